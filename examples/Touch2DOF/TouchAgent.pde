@@ -16,7 +16,7 @@ public class TouchAgent extends MouseAgent {
       tcur.getY(), 
       B_NOMODIFIER_MASK, 
       B_NOBUTTON);
-      updateTrackedGrabber(event);
+      deferTrackedGrabberUpdate(event);
       prevEvent = event.get();
     }
 
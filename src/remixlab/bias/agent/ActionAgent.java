@@ -31,7 +31,8 @@ import remixlab.bias.core.InputHandler;
  * <p>
  * Third-parties implementations should "simply": 1. Derive from the GenericAgent above that best fits their needs; 2.
  * Supply a routine to reduce application-specific input data into BogusEvents (given them thier name); and, 3. Properly
- * call {@link #updateTrackedGrabber(BogusEvent)} and {@link #handle(BogusEvent)} on them. The
+ * call {@link #updateTrackedGrabber(BogusEvent)} (or {@link #deferTrackedGrabberUpdate(BogusEvent)} for high rate hover
+ * events) and {@link #handle(BogusEvent)} on them. The
  * <b>remixlab.proscene.Scene.ProsceneMouse</b> and <b>remixlab.proscene.Scene.ProsceneKeyboard</b> classes provide good
  * example implementations. Note that the GenericAgent methods defined in this package (bias) should rarely be in need
  * to be overridden, not even {@link #handle(BogusEvent)}.
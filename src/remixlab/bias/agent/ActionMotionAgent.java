@@ -28,8 +28,9 @@ import remixlab.bias.event.*;
  */
 public class ActionMotionAgent<M extends MotionProfile<?>, C extends ClickProfile<?>> extends
 		ActionAgent<M> {
-	protected C				clickProfile;
-	protected float[]	sens;
+	protected C								clickProfile;
+	protected float[]					sens;
+	protected MotionPredictor	predictor;
 
 	/**
 	 * @param p
@@ -118,6 +119,41 @@ public class ActionMotionAgent<M extends MotionProfile<?>, C extends ClickProfil
 		return sens;
 	}
 
+	/**
+	 * Returns the agent {@link remixlab.bias.event.MotionPredictor}, which extrapolates the relative motion events to the
+	 * expected present time before they are handled, so that the grabbers track the pointer more closely. The predictor
+	 * is instantiated (and hence enabled) the first time this method is called.
+	 * 
+	 * @see #isPredicting()
+	 * @see remixlab.bias.event.MotionPredictor#setHorizon(float)
+	 */
+	public MotionPredictor predictor() {
+		if (predictor == null)
+			predictor = new MotionPredictor();
+		return predictor;
+	}
+
+	/**
+	 * Returns {@code true} if the motion events are being predicted.
+	 * 
+	 * @see #predictor()
+	 */
+	public boolean isPredicting() {
+		return predictor != null && predictor.isEnabled();
+	}
+
+	/**
+	 * Ends the predicted gesture by handling the {@link remixlab.bias.event.MotionPredictor#correct()} event, which takes
+	 * the input grabber back to the last real pointer sample. It is called by {@link #handle(BogusEvent)} when the
+	 * prediction restarts (see {@link remixlab.bias.event.MotionPredictor#endsGesture(MotionEvent, long)}), and should
+	 * be called as well when the pointer is released.
+	 */
+	public void correctPrediction() {
+		MotionEvent correction = predictor == null ? null : predictor.correct();
+		if (correction != null)
+			handle(correction);
+	}
+
 	@Override
 	public String info() {
 		String description = new String();
@@ -136,6 +172,9 @@ public class ActionMotionAgent<M extends MotionProfile<?>, C extends ClickProfil
 
 	@Override
 	public void handle(BogusEvent event) {
+		if (predictor != null
+				&& predictor.endsGesture(event instanceof MotionEvent ? (MotionEvent) event : null, System.nanoTime()))
+			correctPrediction();
 		// overkill but feels safer ;)
 		if (event == null || !handler.isAgentRegistered(this) || inputGrabber() == null)
 			return;
@@ -145,6 +184,8 @@ public class ActionMotionAgent<M extends MotionProfile<?>, C extends ClickProfil
 			else
 				enqueueEventTuple(new EventGrabberTuple(event, clickProfile().handle(event), inputGrabber()));
 		else if (event instanceof MotionEvent) {
+			if (predictor != null)
+				predictor.predict((MotionEvent) event);
 			((MotionEvent) event).modulate(sens);
 			if (alienGrabber())
 				enqueueEventTuple(new EventGrabberTuple(event, inputGrabber()), false);
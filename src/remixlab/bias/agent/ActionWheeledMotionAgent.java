@@ -86,6 +86,10 @@ public class ActionWheeledMotionAgent<W extends MotionProfile<?>, M extends Moti
 
 	@Override
 	public void handle(BogusEvent event) {
+		// wheel events aren't predicted and don't end the predicted gesture
+		if (predictor != null && predictor.endsGesture(event instanceof MotionEvent && !(event instanceof DOF1Event)
+				? (MotionEvent) event : null, System.nanoTime()))
+			correctPrediction();
 		// overkill but feels safer ;)
 		if (event == null || !handler.isAgentRegistered(this) || inputGrabber() == null)
 			return;
@@ -95,6 +99,8 @@ public class ActionWheeledMotionAgent<W extends MotionProfile<?>, M extends Moti
 			else
 				enqueueEventTuple(new EventGrabberTuple(event, clickProfile().handle(event), inputGrabber()));
 		else if (event instanceof MotionEvent) {
+			if (predictor != null && !(event instanceof DOF1Event))
+				predictor.predict((MotionEvent) event);
 			((MotionEvent) event).modulate(sens);
 			if (alienGrabber())
 				enqueueEventTuple(new EventGrabberTuple(event, inputGrabber()), false);
@@ -0,0 +1,184 @@
+/*********************************************************************************
+ * bias_tree
+ * Copyright (c) 2014 National University of Colombia, https://github.com/remixlab
+ * @author Jean Pierre Charalambos, http://otrolado.info/
+ *
+ * All rights reserved. Library that eases the creation of interactive
+ * scenes, released under the terms of the GNU Public License v3.0
+ * which is available at http://www.gnu.org/licenses/gpl.html
+ *********************************************************************************/
+
+package remixlab.bias.agent;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import remixlab.bias.core.Agent;
+import remixlab.bias.core.BogusEvent;
+import remixlab.bias.core.InputHandler;
+import remixlab.bias.event.InputRecorder;
+
+/**
+ * An agent replaying an {@link remixlab.bias.event.InputRecorder} log into a {@link #target()} agent, e.g., to run
+ * interaction throughput and regression tests headless, with real gesture traffic.
+ * <p>
+ * The log is memory-mapped and decoded sequentially. Each time the {@link #inputHandler()} calls {@link #feed()} (i.e.,
+ * once per {@link remixlab.bias.core.InputHandler#handle()}), the due events are passed to the target
+ * {@link remixlab.bias.core.Agent#handle(BogusEvent)} (or to its
+ * {@link remixlab.bias.core.Agent#deferTrackedGrabberUpdate(BogusEvent)} if they were recorded as tracking events):
+ * <ol>
+ * <li>If {@link #isRealTime()} (default), the events whose recorded time offset has elapsed since the replay started,
+ * so that they are replayed at the original speed.</li>
+ * <li>Otherwise, as many events as possible, so that the log is replayed at the maximum speed.</li>
+ * </ol>
+ * In both cases at most {@link #batchSize()} events are replayed per feed. Event timestamps are shifted so that the
+ * first replayed event occurs when the replay starts.
+ * <p>
+ * Register the target agent at the same input handler, before this one is fed, or feed it yourself, e.g.,
+ * {@code while (!replay.isFinished()) inputHandler.handle();}.
+ */
+public class InputReplayAgent extends Agent {
+	protected ByteBuffer	log;
+	protected Agent				target;
+	protected boolean			realTime;
+	protected int					batchSize;
+	protected long				start, shift, first, replayed;
+
+	/**
+	 * Maps the {@link remixlab.bias.event.InputRecorder} log at {@code path} to be replayed into {@code target}, and
+	 * registers the agent at {@code inputHandler} with the given {@code name}.
+	 */
+	public InputReplayAgent(InputHandler inputHandler, String name, String path, Agent target) {
+		super(inputHandler, name);
+		setTracking(false);
+		RandomAccessFile file = null;
+		try {
+			file = new RandomAccessFile(path, "r");
+			FileChannel channel = file.getChannel();
+			log = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		} catch (IOException e) {
+			throw new RuntimeException("Unable to open input log " + path + ": " + e.getMessage());
+		} finally {
+			if (file != null)
+				try {
+					file.close();
+				} catch (IOException e) {
+				}
+		}
+		if (log.remaining() < InputRecorder.HEADER_BYTES || log.getInt(0) != InputRecorder.MAGIC)
+			throw new RuntimeException(path + " is not an input log");
+		if (log.getInt(4) != InputRecorder.VERSION)
+			throw new RuntimeException("Unsupported input log version: " + log.getInt(4));
+		this.target = target;
+		realTime = true;
+		batchSize = Integer.MAX_VALUE;
+		rewind();
+	}
+
+	/**
+	 * Returns the agent the events are replayed into.
+	 */
+	public Agent target() {
+		return target;
+	}
+
+	/**
+	 * Sets the agent the events are replayed into.
+	 */
+	public void setTarget(Agent agent) {
+		target = agent;
+	}
+
+	/**
+	 * Returns {@code true} if the events are replayed at their original speed and {@code false} if they are replayed at
+	 * the maximum speed.
+	 */
+	public boolean isRealTime() {
+		return realTime;
+	}
+
+	/**
+	 * Sets the {@link #isRealTime()} mode.
+	 */
+	public void setRealTime(boolean enable) {
+		realTime = enable;
+	}
+
+	/**
+	 * Returns the maximum number of events replayed per {@link #feed()}.
+	 */
+	public int batchSize() {
+		return batchSize;
+	}
+
+	/**
+	 * Sets the {@link #batchSize()}, which should be greater than 0.
+	 */
+	public void setBatchSize(int size) {
+		if (size < 1) {
+			System.out.println("Warning: batch size should be greater than 0 - Ignoring value");
+			return;
+		}
+		batchSize = size;
+	}
+
+	/**
+	 * Returns the number of events replayed since the last {@link #rewind()}.
+	 */
+	public long replayed() {
+		return replayed;
+	}
+
+	/**
+	 * Returns {@code true} if all the log events have been replayed.
+	 */
+	public boolean isFinished() {
+		return !log.hasRemaining();
+	}
+
+	/**
+	 * Restarts the replay from the first log event.
+	 */
+	public void rewind() {
+		log.position(InputRecorder.HEADER_BYTES);
+		first = log.remaining() > 0 ? log.getLong(log.position() + 1) : 0;
+		start = -1;
+		replayed = 0;
+	}
+
+	/**
+	 * Replays the due events into the {@link #target()} (see the class documentation) and returns {@code null}, so that
+	 * nothing else is handled by this agent.
+	 */
+	@Override
+	public BogusEvent feed() {
+		if (target == null || isFinished())
+			return null;
+		long now = System.currentTimeMillis();
+		if (start < 0) {
+			start = now;
+			shift = now - first;
+		}
+		for (int i = 0; i < batchSize && log.hasRemaining(); i++) {
+			if (realTime && log.getLong(log.position() + 1) - first > now - start)
+				break;
+			boolean tracking = InputRecorder.isTracking(log);
+			BogusEvent event = InputRecorder.read(log);
+			event.modifiedTimestamp(event.timestamp() + shift);
+			if (tracking)
+				target.deferTrackedGrabberUpdate(event);
+			else
+				target.handle(event);
+			replayed++;
+		}
+		return null;
+	}
+
+	@Override
+	public String info() {
+		return name() + "\nReplaying into " + (target == null ? "nothing" : target.name()) + ": " + replayed
+				+ " events replayed" + (isFinished() ? " (finished)" : "") + "\n";
+	}
+}
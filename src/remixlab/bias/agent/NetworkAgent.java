@@ -0,0 +1,484 @@
+/*********************************************************************************
+ * bias_tree
+ * Copyright (c) 2014 National University of Colombia, https://github.com/remixlab
+ * @author Jean Pierre Charalambos, http://otrolado.info/
+ *
+ * All rights reserved. Library that eases the creation of interactive
+ * scenes, released under the terms of the GNU Public License v3.0
+ * which is available at http://www.gnu.org/licenses/gpl.html
+ *********************************************************************************/
+
+package remixlab.bias.agent;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import remixlab.bias.core.Agent;
+import remixlab.bias.core.BogusEvent;
+import remixlab.bias.core.InputHandler;
+import remixlab.bias.core.LatencyTracker;
+import remixlab.bias.event.InputRecorder;
+
+/**
+ * An agent receiving events from remote controllers (e.g., a phone touch screen or a 6-DOF tracker) over UDP, and
+ * forwarding them to {@link #target(byte)} agents, so that the scene may be driven over the network without blocking
+ * the drawing thread.
+ * <p>
+ * Once {@link #start(int)}ed, a daemon thread waits on a {@code Selector} for datagrams arriving at a non-blocking
+ * {@code DatagramChannel}, decodes them and publishes their events into a concurrent queue. Each time the
+ * {@link #inputHandler()} calls {@link #feed()}, the queued events are passed to the target agent of their type
+ * {@link remixlab.bias.core.Agent#handle(BogusEvent)} (or its
+ * {@link remixlab.bias.core.Agent#deferTrackedGrabberUpdate(BogusEvent)} for tracking events). Event timestamps are
+ * replaced by their local arrival time.
+ * <p>
+ * Datagram format (big-endian): {@link #MAGIC} (int), {@link #VERSION} (byte), number of events (byte), sequence number
+ * (int), sender {@code System.nanoTime()} (long), followed by the events encoded as
+ * {@link remixlab.bias.event.InputRecorder#write(ByteBuffer, BogusEvent, boolean)} records (e.g.,
+ * {@link remixlab.bias.event.DOF6Event}, {@link remixlab.bias.event.DOF2Event} and
+ * {@link remixlab.bias.event.ClickEvent}). Use {@link #encode(ByteBuffer, int, BogusEvent[], boolean[])} to build them.
+ * <p>
+ * Stale datagrams, i.e., duplicated or reordered ones whose sequence number is not greater than (but within
+ * {@link #REORDER_WINDOW} of) the last one received from the same sender, are dropped, as well as queued events older
+ * than {@link #maxAge()} when fed, and the oldest queued events beyond {@link #capacity()}. A larger backward jump, or
+ * a datagram arriving after {@link #senderTimeout()} of silence, is taken as a sender restart and accepted.
+ */
+public class NetworkAgent extends Agent {
+	public static final int		MAGIC						= 0x42494E50;	// "BINP"
+	public static final byte	VERSION					= 1;
+	public static final int		HEADER_BYTES		= 18;
+	public static final int		MAX_DATAGRAM		= 1472;
+	/**
+	 * Largest backward sequence jump still taken as a reordered (stale) datagram rather than as a sender restart.
+	 */
+	public static final int		REORDER_WINDOW	= 64;
+
+	/**
+	 * Internal use. Queued event.
+	 */
+	protected static class Item {
+		BogusEvent	event;
+		boolean			tracking;
+		long				sent, arrival;
+	}
+
+	/**
+	 * Internal use. Last sequence number accepted from a sender, and its arrival time.
+	 */
+	protected static class Sender {
+		int		seq;
+		long	arrival;
+	}
+
+	protected Agent[]												targets;
+	protected int														capacity;
+	protected long													maxAge;
+
+	protected DatagramChannel								channel;
+	protected Selector											selector;
+	protected Thread												thread;
+	protected volatile boolean							running;
+	protected ConcurrentLinkedQueue<Item>		queue;
+	protected AtomicInteger									queued;
+	protected HashMap<SocketAddress, Sender>	lastSeq;
+	protected long													senderTimeout;
+
+	protected AtomicLong										received, stale, malformed, overflowed;
+	protected long													delivered, expired;
+	protected LatencyTracker.Histogram			transit, wait;
+
+	/**
+	 * Creates the agent forwarding all the events to {@code target}, and registers it at {@code inputHandler} with the
+	 * given {@code name}. Call {@link #start(int)} to start receiving.
+	 */
+	public NetworkAgent(InputHandler inputHandler, String name, Agent target) {
+		super(inputHandler, name);
+		setTracking(false);
+		targets = new Agent[InputRecorder.DOF6 + 1];
+		setTarget(target);
+		capacity = 1024;
+		maxAge = 250;
+		queue = new ConcurrentLinkedQueue<Item>();
+		queued = new AtomicInteger();
+		lastSeq = new HashMap<SocketAddress, Sender>();
+		senderTimeout = 2000;
+		received = new AtomicLong();
+		stale = new AtomicLong();
+		malformed = new AtomicLong();
+		overflowed = new AtomicLong();
+		transit = new LatencyTracker.Histogram();
+		wait = new LatencyTracker.Histogram();
+	}
+
+	/**
+	 * Sets {@code agent} as the target of all event types.
+	 */
+	public void setTarget(Agent agent) {
+		for (int i = 0; i < targets.length; i++)
+			targets[i] = agent;
+	}
+
+	/**
+	 * Sets {@code agent} as the target of the {@code type} events, e.g.,
+	 * {@code setTarget(InputRecorder.DOF2, mouseAgent)} and {@code setTarget(InputRecorder.DOF6, hidAgent)}.
+	 *
+	 * @see remixlab.bias.event.InputRecorder#type(BogusEvent)
+	 */
+	public void setTarget(byte type, Agent agent) {
+		if (type < 1 || type >= targets.length) {
+			System.out.println("Warning: unknown event type " + type + " - Ignoring value");
+			return;
+		}
+		targets[type] = agent;
+	}
+
+	/**
+	 * Returns the target agent of the {@code type} events.
+	 */
+	public Agent target(byte type) {
+		return type < 1 || type >= targets.length ? null : targets[type];
+	}
+
+	/**
+	 * Returns the maximum number of queued events. Default is 1024.
+	 */
+	public int capacity() {
+		return capacity;
+	}
+
+	/**
+	 * Sets the {@link #capacity()}.
+	 */
+	public void setCapacity(int c) {
+		if (c < 1) {
+			System.out.println("Warning: capacity should be greater than 0 - Ignoring value");
+			return;
+		}
+		capacity = c;
+	}
+
+	/**
+	 * Returns the age (in milliseconds since their arrival) beyond which queued events are dropped. Default is 250.
+	 */
+	public long maxAge() {
+		return maxAge;
+	}
+
+	/**
+	 * Sets the {@link #maxAge()}. A non-positive value never drops queued events.
+	 */
+	public void setMaxAge(long millis) {
+		maxAge = millis;
+	}
+
+	/**
+	 * Returns the silence (in milliseconds) after which a sender is forgotten, so that its next datagram is accepted
+	 * whatever its sequence number (e.g., after the remote controller restarted). Default is 2000.
+	 */
+	public long senderTimeout() {
+		return senderTimeout;
+	}
+
+	/**
+	 * Sets the {@link #senderTimeout()}.
+	 */
+	public void setSenderTimeout(long millis) {
+		if (millis <= 0) {
+			System.out.println("Warning: sender timeout should be positive - Ignoring value");
+			return;
+		}
+		senderTimeout = millis;
+	}
+
+	/**
+	 * Binds the agent to the given UDP {@code port} (0 picks an ephemeral one, see {@link #localPort()}) and starts the
+	 * receiving thread.
+	 */
+	public void start(int port) {
+		if (isRunning())
+			stop();
+		try {
+			channel = DatagramChannel.open();
+			channel.configureBlocking(false);
+			channel.socket().setReceiveBufferSize(1 << 20);
+			channel.socket().bind(new InetSocketAddress(port));
+			selector = Selector.open();
+			channel.register(selector, SelectionKey.OP_READ);
+		} catch (IOException e) {
+			closeChannel();
+			throw new RuntimeException("Unable to bind network agent " + name() + " to port " + port + ": " + e.getMessage());
+		}
+		lastSeq.clear();
+		running = true;
+		thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				receive();
+			}
+		}, "NetworkAgent-" + name());
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Stops the receiving thread and closes the channel.
+	 */
+	public void stop() {
+		running = false;
+		if (selector != null)
+			selector.wakeup();
+		if (thread != null && thread != Thread.currentThread())
+			try {
+				thread.join(1000);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		thread = null;
+		closeChannel();
+	}
+
+	/**
+	 * Returns {@code true} if the agent is receiving.
+	 */
+	public boolean isRunning() {
+		return running;
+	}
+
+	/**
+	 * Returns the UDP port the agent is bound to, or -1 if it isn't {@link #isRunning()}.
+	 */
+	public int localPort() {
+		return channel == null ? -1 : channel.socket().getLocalPort();
+	}
+
+	/**
+	 * Internal use. Receiving thread loop.
+	 */
+	protected void receive() {
+		ByteBuffer buffer = ByteBuffer.allocateDirect(MAX_DATAGRAM);
+		try {
+			while (running) {
+				if (selector.select() == 0)
+					continue;
+				selector.selectedKeys().clear();
+				SocketAddress sender;
+				while ((sender = channel.receive(buffer)) != null) {
+					buffer.flip();
+					decode(buffer, sender, System.nanoTime());
+					buffer.clear();
+				}
+			}
+		} catch (IOException e) {
+			if (running)
+				System.out.println("Warning: network agent " + name() + " stopped receiving: " + e.getMessage());
+		} finally {
+			running = false;
+		}
+	}
+
+	/**
+	 * Internal use. Decodes the {@code in} datagram received from {@code sender} at {@code arrival} and queues its
+	 * events.
+	 */
+	protected void decode(ByteBuffer in, SocketAddress sender, long arrival) {
+		received.incrementAndGet();
+		if (in.remaining() < HEADER_BYTES || in.getInt() != MAGIC || in.get() != VERSION) {
+			malformed.incrementAndGet();
+			return;
+		}
+		int count = in.get() & 0xFF;
+		int seq = in.getInt();
+		long sent = in.getLong();
+		if (isStale(sender, seq, arrival)) {
+			stale.incrementAndGet();
+			return;
+		}
+		long millis = System.currentTimeMillis();
+		Item[] items = new Item[count];
+		try {
+			for (int i = 0; i < count; i++) {
+				Item item = new Item();
+				item.tracking = InputRecorder.isTracking(in);
+				item.event = InputRecorder.read(in);
+				item.event.modifiedTimestamp(millis);
+				item.sent = sent;
+				item.arrival = arrival;
+				items[i] = item;
+			}
+		} catch (RuntimeException e) {
+			// truncated datagram or unknown record type
+			malformed.incrementAndGet();
+			return;
+		}
+		for (Item item : items) {
+			queue.add(item);
+			if (queued.incrementAndGet() > capacity && queue.poll() != null) {
+				queued.decrementAndGet();
+				overflowed.incrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * Internal use. Returns {@code true} if the {@code seq} datagram received from {@code sender} at {@code arrival} is
+	 * stale (see the class documentation). Otherwise records it as the sender last datagram. Forgotten senders are
+	 * pruned whenever a new one shows up.
+	 */
+	protected boolean isStale(SocketAddress sender, int seq, long arrival) {
+		long timeout = senderTimeout * 1000000;
+		Sender last = lastSeq.get(sender);
+		if (last == null) {
+			Iterator<Sender> it = lastSeq.values().iterator();
+			while (it.hasNext())
+				if (arrival - it.next().arrival > timeout)
+					it.remove();
+			last = new Sender();
+			lastSeq.put(sender, last);
+		}
+		else if (arrival - last.arrival <= timeout && seq - last.seq <= 0 && last.seq - seq < REORDER_WINDOW)
+			return true;
+		last.seq = seq;
+		last.arrival = arrival;
+		return false;
+	}
+
+	/**
+	 * Forwards the queued events to their {@link #target(byte)} (see the class documentation) and returns {@code null},
+	 * so that nothing else is handled by this agent.
+	 */
+	@Override
+	public BogusEvent feed() {
+		long now = System.nanoTime();
+		Item item;
+		while ((item = queue.poll()) != null) {
+			queued.decrementAndGet();
+			if (maxAge > 0 && now - item.arrival > maxAge * 1000000L) {
+				expired++;
+				continue;
+			}
+			transit.record(item.arrival - item.sent);
+			wait.record(now - item.arrival);
+			Agent target = targets[InputRecorder.type(item.event)];
+			if (target == null)
+				continue;
+			if (item.tracking)
+				target.deferTrackedGrabberUpdate(item.event);
+			else
+				target.handle(item.event);
+			delivered++;
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the number of received datagrams (including the stale and malformed ones).
+	 */
+	public long received() {
+		return received.get();
+	}
+
+	/**
+	 * Returns the number of dropped out-of-order or duplicated datagrams.
+	 */
+	public long stale() {
+		return stale.get();
+	}
+
+	/**
+	 * Returns the number of dropped malformed datagrams.
+	 */
+	public long malformed() {
+		return malformed.get();
+	}
+
+	/**
+	 * Returns the number of events dropped because the queue exceeded its {@link #capacity()} or their {@link #maxAge()}
+	 * .
+	 */
+	public long dropped() {
+		return overflowed.get() + expired;
+	}
+
+	/**
+	 * Returns the number of events forwarded to their targets.
+	 */
+	public long delivered() {
+		return delivered;
+	}
+
+	/**
+	 * Returns the histogram of the transit times of the forwarded events, i.e., from the sender {@code System.nanoTime()}
+	 * to the datagram arrival. Only meaningful if the sender runs on the same host (e.g., a loopback test).
+	 */
+	public LatencyTracker.Histogram transitLatency() {
+		return transit;
+	}
+
+	/**
+	 * Returns the histogram of the times the events waited in the queue, from their arrival to their forwarding.
+	 */
+	public LatencyTracker.Histogram queueLatency() {
+		return wait;
+	}
+
+	/**
+	 * Encodes a datagram with the given sequence number and {@code events} (and their {@code tracking} flags, which may
+	 * be {@code null}) into {@code out}, stamping it with the current {@code System.nanoTime()}. Returns the number of
+	 * encoded events, which is lower than {@code events.length} if the remaining ones don't fit into a
+	 * {@link #MAX_DATAGRAM}. Events of unsupported types are skipped.
+	 */
+	public static int encode(ByteBuffer out, int seq, BogusEvent[] events, boolean[] tracking) {
+		out.clear();
+		out.limit(MAX_DATAGRAM);
+		out.putInt(MAGIC).put(VERSION).put((byte) 0).putInt(seq).putLong(System.nanoTime());
+		int count = 0;
+		for (int i = 0; i < events.length && count < 255; i++) {
+			if (InputRecorder.type(events[i]) == 0)
+				continue;
+			int mark = out.position();
+			try {
+				InputRecorder.write(out, events[i], tracking != null && tracking[i]);
+				count++;
+			} catch (BufferOverflowException e) {
+				out.position(mark);
+				break;
+			}
+		}
+		out.put(5, (byte) count);
+		out.flip();
+		return count;
+	}
+
+	/**
+	 * Internal use. Closes the selector and the channel.
+	 */
+	protected void closeChannel() {
+		try {
+			if (selector != null)
+				selector.close();
+			if (channel != null)
+				channel.close();
+		} catch (IOException e) {
+			System.out.println("Warning: unable to close network agent " + name() + ": " + e.getMessage());
+		} finally {
+			selector = null;
+			channel = null;
+		}
+	}
+
+	@Override
+	public String info() {
+		return name() + "\nUDP port " + localPort() + ": " + received() + " datagrams received, " + stale() + " stale, "
+				+ malformed() + " malformed; " + delivered() + " events delivered, " + dropped() + " dropped\n";
+	}
+}
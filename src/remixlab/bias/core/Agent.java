@@ -10,7 +10,6 @@
 
 package remixlab.bias.core;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -37,10 +36,11 @@ import java.util.List;
 public class Agent {
 	protected InputHandler	handler;
 	protected String				nm;
-	protected List<Grabber>	grabbers;
+	protected GrabberPool		grabbers;
 	protected Grabber				trackedGrabber;
 	protected Grabber				defaultGrabber;
 	protected boolean				agentTrckn;
+	protected BogusEvent		trackingEvent;
 
 	/**
 	 * Constructs an Agent with the given name and registers is at the given inputHandler.
@@ -48,7 +48,7 @@ public class Agent {
 	public Agent(InputHandler inputHandler, String name) {
 		handler = inputHandler;
 		nm = name;
-		grabbers = new ArrayList<Grabber>();
+		grabbers = new GrabberPool();
 		setTracking(true);
 		handler.registerAgent(this);
 	}
@@ -93,8 +93,10 @@ public class Agent {
 	 */
 	public void setTracking(boolean enable) {
 		agentTrckn = enable;
-		if (!isTracking())
+		if (!isTracking()) {
+			trackingEvent = null;
 			setTrackedGrabber(null);
+		}
 	}
 
 	/**
@@ -120,8 +122,10 @@ public class Agent {
 	 * 
 	 * @see #setDefaultGrabber(Grabber)
 	 * @see #isTracking()
+	 * @see #deferTrackedGrabberUpdate(BogusEvent)
 	 */
 	public Grabber updateTrackedGrabber(BogusEvent event) {
+		trackingEvent = null;
 		if (event == null || !inputHandler().isAgentRegistered(this) || !isTracking())
 			return trackedGrabber();
 
@@ -163,8 +167,10 @@ public class Agent {
 	 */
 	public void enqueueEventTuple(EventGrabberTuple eventTuple, boolean checkNullAction) {
 		if (eventTuple != null && handler.isAgentRegistered(this))
-			if ((checkNullAction && eventTuple.action() != null) || (!checkNullAction))
+			if ((checkNullAction && eventTuple.action() != null) || (!checkNullAction)) {
+				eventTuple.agent = this;
 				inputHandler().enqueueEventTuple(eventTuple);
+			}
 	}
 
 	/**
@@ -216,11 +222,20 @@ public class Agent {
 	}
 
 	/**
-	 * Returns a list containing references to all the active grabbers.
+	 * Returns a read-only list containing references to all the active grabbers, in {@link #grabberPool()} priority
+	 * order. Use {@link #addInPool(Grabber)} and {@link #removeFromPool(Grabber)} to modify it.
 	 * <p>
 	 * Used to parse all the grabbers and to check if any of them {@link remixlab.bias.core.Grabber#grabsInput(Agent)}.
 	 */
 	public List<Grabber> pool() {
+		return grabbers.list();
+	}
+
+	/**
+	 * Returns the {@link remixlab.bias.core.GrabberPool} registry backing the {@link #pool()}, e.g., to
+	 * {@link remixlab.bias.core.GrabberPool#setPriority(Grabber, int)} of a grabber.
+	 */
+	public GrabberPool grabberPool() {
 		return grabbers;
 	}
 
@@ -230,7 +245,7 @@ public class Agent {
 	 * See {@link #addInPool(Grabber)} for details. Removing a grabber that is not in {@link #pool()} has no effect.
 	 */
 	public boolean removeFromPool(Grabber grabber) {
-		return pool().remove(grabber);
+		return grabbers.remove(grabber);
 	}
 
 	/**
@@ -240,7 +255,7 @@ public class Agent {
 	 * remove each one independently.
 	 */
 	public void clearPool() {
-		pool().clear();
+		grabbers.clear();
 	}
 
 	/**
@@ -251,13 +266,41 @@ public class Agent {
 	 * to insert it * back.
 	 */
 	public boolean isInPool(Grabber grabber) {
-		return pool().contains(grabber);
+		return grabbers.contains(grabber);
 	}
 
 	/**
 	 * Returns the grabber set after {@link #updateTrackedGrabber(BogusEvent)} is called. It may be null.
 	 */
 	public Grabber trackedGrabber() {
+		if (trackingEvent != null)
+			updateDeferredTrackedGrabber();
+		return trackedGrabber;
+	}
+
+	/**
+	 * Defers {@link #updateTrackedGrabber(BogusEvent)} until the tracked grabber is actually needed, i.e., until the next
+	 * {@link remixlab.bias.core.InputHandler#handle()} or the next {@link #trackedGrabber()} (or {@link #inputGrabber()})
+	 * query, whichever comes first. Only the latest deferred {@code event} is kept.
+	 * <p>
+	 * Use it instead of {@link #updateTrackedGrabber(BogusEvent)} for high rate hover events (e.g., mouse moves), so that
+	 * the pool is queried at most once per frame instead of once per event.
+	 * 
+	 * @see #updateDeferredTrackedGrabber()
+	 */
+	public void deferTrackedGrabberUpdate(BogusEvent event) {
+		if (isTracking())
+			trackingEvent = event;
+	}
+
+	/**
+	 * Calls {@link #updateTrackedGrabber(BogusEvent)} on the latest {@link #deferTrackedGrabberUpdate(BogusEvent)} event,
+	 * if any, and returns the {@link #trackedGrabber()}. Automatically called by the
+	 * {@link remixlab.bias.core.InputHandler#handle()}.
+	 */
+	public Grabber updateDeferredTrackedGrabber() {
+		if (trackingEvent != null)
+			return updateTrackedGrabber(trackingEvent);
 		return trackedGrabber;
 	}
 
@@ -301,13 +344,17 @@ public class Agent {
 	 * agent focus. Use {@link #isInPool(Grabber)} to know the current state of the grabber.
 	 */
 	public boolean addInPool(Grabber grabber) {
-		if (grabber == null)
-			return false;
-		if (!isInPool(grabber)) {
-			pool().add(grabber);
-			return true;
-		}
-		return false;
+		return grabbers.add(grabber);
+	}
+
+	/**
+	 * Same as {@link #addInPool(Grabber)}, but giving the grabber the {@code priority} with which it is queried by
+	 * {@link #updateTrackedGrabber(BogusEvent)} (grabbers with higher priority are queried first, default is 0).
+	 * 
+	 * @see remixlab.bias.core.GrabberPool#setPriority(Grabber, int)
+	 */
+	public boolean addInPool(Grabber grabber, int priority) {
+		return grabbers.add(grabber, priority);
 	}
 
 	/**
@@ -17,6 +17,8 @@ package remixlab.bias.core;
 public class EventGrabberTuple {
 	protected BogusEvent	event;
 	protected Grabber			grabber;
+	protected Agent				agent;
+	protected long				enqueueTime, dispatchTime, completeTime;
 
 	/**
 	 * Constructs <{@link remixlab.bias.core.BogusEvent},{@link remixlab.bias.core.Grabber}> tuple
@@ -77,4 +79,46 @@ public class EventGrabberTuple {
 	public Action<?> action() {
 		return event.action();
 	}
+
+	/**
+	 * Returns the agent that enqueued this tuple (see
+	 * {@link remixlab.bias.core.Agent#enqueueEventTuple(EventGrabberTuple, boolean)}), or {@code null} if it was added to
+	 * the queue directly.
+	 */
+	public Agent agent() {
+		return agent;
+	}
+
+	/**
+	 * Returns the {@code System.nanoTime()} at which the tuple was enqueued, or 0 if the
+	 * {@link remixlab.bias.core.InputHandler#latencyTracker()} wasn't enabled then.
+	 * 
+	 * @see #dispatchTime()
+	 * @see #completeTime()
+	 */
+	public long enqueueTime() {
+		return enqueueTime;
+	}
+
+	/**
+	 * Returns the {@code System.nanoTime()} at which {@link #perform()} was called by the input handler, or 0 if the
+	 * {@link remixlab.bias.core.InputHandler#latencyTracker()} wasn't enabled then.
+	 * 
+	 * @see #enqueueTime()
+	 * @see #completeTime()
+	 */
+	public long dispatchTime() {
+		return dispatchTime;
+	}
+
+	/**
+	 * Returns the {@code System.nanoTime()} at which {@link #perform()} returned, or 0 if the
+	 * {@link remixlab.bias.core.InputHandler#latencyTracker()} wasn't enabled then.
+	 * 
+	 * @see #enqueueTime()
+	 * @see #dispatchTime()
+	 */
+	public long completeTime() {
+		return completeTime;
+	}
 }
@@ -0,0 +1,216 @@
+/*********************************************************************************
+ * bias_tree
+ * Copyright (c) 2014 National University of Colombia, https://github.com/remixlab
+ * @author Jean Pierre Charalambos, http://otrolado.info/
+ *
+ * All rights reserved. Library that eases the creation of interactive
+ * scenes, released under the terms of the GNU Public License v3.0
+ * which is available at http://www.gnu.org/licenses/gpl.html
+ *********************************************************************************/
+
+package remixlab.bias.core;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Grabber registry backing the {@link remixlab.bias.core.Agent#pool()}: a linked identity hash set with an explicit
+ * {@link #priority(Grabber)} ordering.
+ * <p>
+ * Membership ({@link #contains(Grabber)}), {@link #add(Grabber)} and {@link #remove(Grabber)} are O(1) (adding a
+ * grabber with a lower priority than the last one walks the list from its tail). Grabbers are compared by identity, so
+ * that grabbers defining a value-based {@code equals} (e.g., frames) are not confused with each other.
+ * <p>
+ * Iteration follows the priority order (higher first, insertion order among equal priorities), which is the order
+ * {@link remixlab.bias.core.Agent#updateTrackedGrabber(BogusEvent)} queries the grabbers in. {@link #list()} returns a
+ * read-only snapshot which is only rebuilt after the pool changes (see {@link #version()}).
+ */
+public class GrabberPool implements Iterable<Grabber> {
+	/**
+	 * Internal use. Linked list node.
+	 */
+	protected static class Entry {
+		Grabber	grabber;
+		int			priority;
+		Entry		prev, next;
+
+		Entry(Grabber g, int p) {
+			grabber = g;
+			priority = p;
+		}
+	}
+
+	protected IdentityHashMap<Grabber, Entry>	index;
+	protected Entry														head, tail;
+	protected long														version;
+	protected List<Grabber>										snapshot;
+	protected long														snapshotVersion;
+
+	/**
+	 * Creates an empty pool.
+	 */
+	public GrabberPool() {
+		index = new IdentityHashMap<Grabber, Entry>();
+		snapshotVersion = -1;
+	}
+
+	/**
+	 * Returns the number of grabbers in the pool.
+	 */
+	public int size() {
+		return index.size();
+	}
+
+	/**
+	 * Returns {@code true} if the pool is empty.
+	 */
+	public boolean isEmpty() {
+		return index.isEmpty();
+	}
+
+	/**
+	 * Returns {@code true} if {@code grabber} is in the pool.
+	 */
+	public boolean contains(Grabber grabber) {
+		return index.containsKey(grabber);
+	}
+
+	/**
+	 * Same as {@code return add(grabber, 0)}.
+	 */
+	public boolean add(Grabber grabber) {
+		return add(grabber, 0);
+	}
+
+	/**
+	 * Adds {@code grabber} with the given {@code priority}, after the grabbers having a greater or equal priority.
+	 * Returns {@code false} (and nothing is done) if the grabber is null or already in the pool.
+	 *
+	 * @see #setPriority(Grabber, int)
+	 */
+	public boolean add(Grabber grabber, int priority) {
+		if (grabber == null || index.containsKey(grabber))
+			return false;
+		Entry e = new Entry(grabber, priority);
+		index.put(grabber, e);
+		link(e);
+		version++;
+		return true;
+	}
+
+	/**
+	 * Removes {@code grabber} from the pool. Returns {@code false} if it wasn't in it.
+	 */
+	public boolean remove(Grabber grabber) {
+		Entry e = grabber == null ? null : index.remove(grabber);
+		if (e == null)
+			return false;
+		unlink(e);
+		version++;
+		return true;
+	}
+
+	/**
+	 * Removes all the grabbers from the pool.
+	 */
+	public void clear() {
+		if (index.isEmpty())
+			return;
+		index.clear();
+		head = tail = null;
+		version++;
+	}
+
+	/**
+	 * Returns the {@code grabber} priority, or {@link Integer#MIN_VALUE} if it isn't in the pool.
+	 */
+	public int priority(Grabber grabber) {
+		Entry e = index.get(grabber);
+		return e == null ? Integer.MIN_VALUE : e.priority;
+	}
+
+	/**
+	 * Sets the {@code grabber} priority. Grabbers with higher priority are queried first by
+	 * {@link remixlab.bias.core.Agent#updateTrackedGrabber(BogusEvent)}. Returns {@code false} if the grabber isn't in
+	 * the pool.
+	 */
+	public boolean setPriority(Grabber grabber, int priority) {
+		Entry e = index.get(grabber);
+		if (e == null)
+			return false;
+		if (e.priority != priority) {
+			unlink(e);
+			e.priority = priority;
+			link(e);
+			version++;
+		}
+		return true;
+	}
+
+	/**
+	 * Returns a counter incremented each time the pool changes.
+	 */
+	public long version() {
+		return version;
+	}
+
+	/**
+	 * Returns a read-only list of the grabbers, in priority order. The list is cached until the pool changes.
+	 */
+	public List<Grabber> list() {
+		if (snapshotVersion != version) {
+			Grabber[] array = new Grabber[index.size()];
+			int i = 0;
+			for (Entry e = head; e != null; e = e.next)
+				array[i++] = e.grabber;
+			snapshot = Collections.unmodifiableList(Arrays.asList(array));
+			snapshotVersion = version;
+		}
+		return snapshot;
+	}
+
+	/**
+	 * Returns an iterator over the {@link #list()} snapshot, so that the pool may be modified while iterating.
+	 */
+	@Override
+	public Iterator<Grabber> iterator() {
+		return list().iterator();
+	}
+
+	/**
+	 * Internal use. Inserts {@code e} after the last entry having a greater or equal priority.
+	 */
+	protected void link(Entry e) {
+		Entry after = tail;
+		while (after != null && after.priority < e.priority)
+			after = after.prev;
+		e.prev = after;
+		e.next = after == null ? head : after.next;
+		if (e.prev == null)
+			head = e;
+		else
+			e.prev.next = e;
+		if (e.next == null)
+			tail = e;
+		else
+			e.next.prev = e;
+	}
+
+	/**
+	 * Internal use. Removes {@code e} from the linked list.
+	 */
+	protected void unlink(Entry e) {
+		if (e.prev == null)
+			head = e.next;
+		else
+			e.prev.next = e.next;
+		if (e.next == null)
+			tail = e.prev;
+		else
+			e.next.prev = e.prev;
+		e.prev = e.next = null;
+	}
+}
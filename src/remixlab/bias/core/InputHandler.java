@@ -11,10 +11,14 @@
 package remixlab.bias.core;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.List;
 
+import remixlab.util.Trace;
+
 /**
  * <h1>Introduction to BIAS</h1>
  * 
@@ -97,12 +101,20 @@ public class InputHandler {
 	// D E V I C E S & E V E N T S
 	protected HashMap<String, Agent>				agents;
 	protected LinkedList<EventGrabberTuple>	eventTupleQueue;
+	protected LatencyTracker								latency;
+	// global grabber index
+	protected long													agentsVersion, indexAgentsVersion, indexPoolsVersion;
+	protected IdentityHashMap<Grabber, Grabber>	globalIndex;
+	protected List<Grabber>									globalList;
 
 	public InputHandler() {
 		// agents
 		agents = new HashMap<String, Agent>();
 		// events
 		eventTupleQueue = new LinkedList<EventGrabberTuple>();
+		// global grabber index
+		globalIndex = new IdentityHashMap<Grabber, Grabber>();
+		indexAgentsVersion = -1;
 	}
 
 	/**
@@ -112,21 +124,64 @@ public class InputHandler {
 	 * The handle comprises the following two loops:
 	 * <p>
 	 * 1. {@link remixlab.bias.core.EventGrabberTuple} producer loop which for each registered agent calls:
+	 * {@link remixlab.bias.core.Agent#updateDeferredTrackedGrabber()} and
 	 * {@link remixlab.bias.core.Agent#handle(BogusEvent)}. Note that the bogus event is obtained from the agents callback
 	 * {@link remixlab.bias.core.Agent#feed()} method.<br>
 	 * 2. User-defined action consumer loop: which for each {@link remixlab.bias.core.EventGrabberTuple} calls
 	 * {@link remixlab.bias.core.EventGrabberTuple#perform()}.<br>
 	 */
 	public void handle() {
+		if (Trace.isEnabled() || (latency != null && latency.isEnabled())) {
+			instrumentedHandle();
+			return;
+		}
 		// 1. Agents
-		for (Agent agent : agents.values())
+		for (Agent agent : agents.values()) {
+			agent.updateDeferredTrackedGrabber();
 			agent.handle(agent.feed());
+		}
 
 		// 2. Low level events
 		while (!eventTupleQueue.isEmpty())
 			eventTupleQueue.remove().perform();
 	}
 
+	/**
+	 * Same as {@link #handle()}, but reporting the {@link remixlab.util.Trace#AGENT_FEED},
+	 * {@link remixlab.util.Trace#AGENT_HANDLE} and {@link remixlab.util.Trace#TUPLE_PERFORM} sections to the installed
+	 * {@link remixlab.util.Tracer}, and stamping the performed tuples if the {@link #latencyTracker()} is enabled.
+	 */
+	protected void instrumentedHandle() {
+		LatencyTracker lt = latency != null && latency.isEnabled() ? latency : null;
+		long token;
+		// 1. Agents
+		for (Agent agent : agents.values()) {
+			agent.updateDeferredTrackedGrabber();
+			token = Trace.begin(Trace.AGENT_FEED);
+			BogusEvent event = agent.feed();
+			Trace.end(Trace.AGENT_FEED, token, agent, null, event);
+			token = Trace.begin(Trace.AGENT_HANDLE);
+			agent.handle(event);
+			Trace.end(Trace.AGENT_HANDLE, token, agent, agent.inputGrabber(), event);
+		}
+
+		// 2. Low level events
+		long start = lt == null ? 0 : System.nanoTime();
+		while (!eventTupleQueue.isEmpty()) {
+			EventGrabberTuple tuple = eventTupleQueue.remove();
+			token = Trace.begin(Trace.TUPLE_PERFORM);
+			if (lt == null)
+				tuple.perform();
+			else {
+				tuple.dispatchTime = System.nanoTime();
+				tuple.perform();
+				tuple.completeTime = System.nanoTime();
+				lt.completed(tuple, start);
+			}
+			Trace.end(Trace.TUPLE_PERFORM, token, tuple.grabber(), tuple.action(), tuple.event());
+		}
+	}
+
 	/**
 	 * Returns a description of all registered agents' bindings and shortcuts as a String
 	 */
@@ -169,8 +224,10 @@ public class InputHandler {
 	 * Registers the given agent.
 	 */
 	public void registerAgent(Agent agent) {
-		if (!isAgentRegistered(agent))
+		if (!isAgentRegistered(agent)) {
 			agents.put(agent.name(), agent);
+			agentsVersion++;
+		}
 		else {
 			System.out.println("Nothing done. An agent with the same name is already registered. Current agent names are:");
 			for (Agent ag : agents.values())
@@ -203,14 +260,17 @@ public class InputHandler {
 	 * Unregisters the given agent and returns it.
 	 */
 	public Agent unregisterAgent(Agent agent) {
-		return agents.remove(agent.name());
+		return unregisterAgent(agent.name());
 	}
 
 	/**
 	 * Unregisters the given agent by its name and returns it.
 	 */
 	public Agent unregisterAgent(String name) {
-		return agents.remove(name);
+		Agent agent = agents.remove(name);
+		if (agent != null)
+			agentsVersion++;
+		return agent;
 	}
 
 	/**
@@ -218,6 +278,22 @@ public class InputHandler {
 	 */
 	public void unregisterAllAgents() {
 		agents.clear();
+		agentsVersion++;
+	}
+
+	/**
+	 * Returns the handler {@link remixlab.bias.core.LatencyTracker}, which records the queue, perform and total latency
+	 * of each {@link remixlab.bias.core.EventGrabberTuple}, per agent and per action, together with queue depth
+	 * high-water marks. The tracker is instantiated (and hence starts recording) the first time this method is called,
+	 * so that handlers not using it don't pay for it.
+	 * 
+	 * @see remixlab.bias.core.LatencyTracker#agent(Agent)
+	 * @see remixlab.bias.core.LatencyTracker#info()
+	 */
+	public LatencyTracker latencyTracker() {
+		if (latency == null)
+			latency = new LatencyTracker();
+		return latency;
 	}
 
 	/**
@@ -236,6 +312,8 @@ public class InputHandler {
 	public boolean enqueueEventTuple(EventGrabberTuple eventTuple) {
 		if (!eventTupleQueue.contains(eventTuple))
 			if (!eventTuple.event().isNull()) {
+				if (latency != null && latency.isEnabled())
+					latency.enqueued(eventTuple);
 				eventTupleQueue.add(eventTuple);
 				return true;
 			}
@@ -257,6 +335,8 @@ public class InputHandler {
 	 */
 	public void removeAllEventTuples() {
 		eventTupleQueue.clear();
+		if (latency != null)
+			latency.clearPending();
 	}
 
 	/**
@@ -330,15 +410,69 @@ public class InputHandler {
 	}
 
 	/**
-	 * Returns a list containing all Grabber objects registered at all agents.
+	 * Returns a read-only list containing all Grabber objects registered at all agents.
+	 * <p>
+	 * The list is backed by a global grabber index, which is only rebuilt when an agent is (un)registered or an agent
+	 * {@link remixlab.bias.core.Agent#grabberPool()} changes.
+	 * 
+	 * @see #isInAnyAgentPool(Grabber)
 	 */
 	public List<Grabber> globalGrabberList() {
-		List<Grabber> msGrabberPool = new ArrayList<Grabber>();
-		for (Agent device : agents.values())
-			for (Grabber grabber : device.pool())
-				if (!msGrabberPool.contains(grabber))
-					msGrabberPool.add(grabber);
+		updateGlobalIndex();
+		return globalList;
+	}
+
+	/**
+	 * Returns a counter which changes each time an agent is (un)registered or an agent
+	 * {@link remixlab.bias.core.Agent#grabberPool()} changes, e.g., to skip adding grabbers to the agent pools again when
+	 * nothing changed since the last time.
+	 */
+	public long poolsVersion() {
+		long poolsVersion = 0;
+		for (Agent agent : agents.values())
+			poolsVersion += agent.grabberPool().version();
+		return (agentsVersion << 32) + poolsVersion;
+	}
+
+	/**
+	 * Returns the sum of the registered agents' {@link remixlab.bias.core.Agent#pool()} sizes, i.e., a grabber pooled at
+	 * several agents is counted once per agent. Unlike {@code globalGrabberList().size()} it never rebuilds the global
+	 * grabber index, so it may be sampled every frame.
+	 */
+	public int pooledGrabbers() {
+		int count = 0;
+		for (Agent agent : agents.values())
+			count += agent.grabberPool().size();
+		return count;
+	}
+
+	/**
+	 * Returns {@code true} if the given {@code grabber} is in the pool of any registered agent. Constant time query of
+	 * the global grabber index (see {@link #globalGrabberList()}).
+	 */
+	public boolean isInAnyAgentPool(Grabber grabber) {
+		updateGlobalIndex();
+		return globalIndex.containsKey(grabber);
+	}
 
-		return msGrabberPool;
+	/**
+	 * Internal use. Rebuilds the global grabber index if the registered agents or their pools changed since the last
+	 * call.
+	 */
+	protected void updateGlobalIndex() {
+		long poolsVersion = 0;
+		for (Agent agent : agents.values())
+			poolsVersion += agent.grabberPool().version();
+		if (poolsVersion == indexPoolsVersion && agentsVersion == indexAgentsVersion)
+			return;
+		globalIndex.clear();
+		List<Grabber> list = new ArrayList<Grabber>();
+		for (Agent agent : agents.values())
+			for (Grabber grabber : agent.grabberPool())
+				if (globalIndex.put(grabber, grabber) == null)
+					list.add(grabber);
+		globalList = Collections.unmodifiableList(list);
+		indexPoolsVersion = poolsVersion;
+		indexAgentsVersion = agentsVersion;
 	}
 }
@@ -0,0 +1,440 @@
+/*********************************************************************************
+ * bias_tree
+ * Copyright (c) 2014 National University of Colombia, https://github.com/remixlab
+ * @author Jean Pierre Charalambos, http://otrolado.info/
+ *
+ * All rights reserved. Library that eases the creation of interactive
+ * scenes, released under the terms of the GNU Public License v3.0
+ * which is available at http://www.gnu.org/licenses/gpl.html
+ *********************************************************************************/
+
+package remixlab.bias.core;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Input-to-action latency statistics of an {@link remixlab.bias.core.InputHandler}, as returned by
+ * {@link remixlab.bias.core.InputHandler#latencyTracker()}.
+ * <p>
+ * While the tracker {@link #isEnabled()}, each {@link remixlab.bias.core.EventGrabberTuple} gets nanosecond
+ * {@link remixlab.bias.core.EventGrabberTuple#enqueueTime()}, {@link remixlab.bias.core.EventGrabberTuple#dispatchTime()}
+ * and {@link remixlab.bias.core.EventGrabberTuple#completeTime()} stamps, which are aggregated into {@link Stats}
+ * histograms: {@link Stats#queue()} (time spent in the {@link remixlab.bias.core.InputHandler#eventTupleQueue()}),
+ * {@link Stats#perform()} (time spent in {@link remixlab.bias.core.Grabber#performInteraction(BogusEvent)}) and
+ * {@link Stats#total()} (both). Stats are kept for all tuples ({@link #stats()}), per {@link #agent(String)} and per
+ * {@link #action(Action)}, together with queue depth high-water marks.
+ * <p>
+ * Recording a tuple doesn't allocate (except for the first tuple of each agent and action), so the tracker may be kept
+ * enabled in production builds, e.g., to verify touch responsiveness under load.
+ */
+public class LatencyTracker {
+	/**
+	 * Log-linear latency histogram: each power of two nanoseconds range is split in 8 buckets, so that percentiles have
+	 * a relative error below 12.5%. Fixed size, no allocation when recording.
+	 */
+	public static class Histogram {
+		protected static final int	SUB_BITS	= 3;
+		protected static final int	SUB				= 1 << SUB_BITS;
+
+		protected long[]						buckets		= new long[(64 - SUB_BITS) * SUB];
+		protected long							count, sum, min = Long.MAX_VALUE, max;
+
+		/**
+		 * Records the {@code nanos} latency. Negative values are taken as 0.
+		 */
+		public void record(long nanos) {
+			if (nanos < 0)
+				nanos = 0;
+			buckets[bucket(nanos)]++;
+			count++;
+			sum += nanos;
+			if (nanos < min)
+				min = nanos;
+			if (nanos > max)
+				max = nanos;
+		}
+
+		/**
+		 * Internal use. Bucket index of {@code v}.
+		 */
+		protected static int bucket(long v) {
+			if (v < SUB)
+				return (int) v;
+			int e = 63 - Long.numberOfLeadingZeros(v);
+			return ((e - SUB_BITS + 1) << SUB_BITS) | (int) ((v >>> (e - SUB_BITS)) & (SUB - 1));
+		}
+
+		/**
+		 * Internal use. Smallest value falling into the {@code i} bucket.
+		 */
+		protected static long lowerBound(int i) {
+			if (i < SUB)
+				return i;
+			int e = (i >> SUB_BITS) + SUB_BITS - 1;
+			return (long) (SUB | (i & (SUB - 1))) << (e - SUB_BITS);
+		}
+
+		/**
+		 * Returns the number of recorded latencies.
+		 */
+		public long count() {
+			return count;
+		}
+
+		/**
+		 * Returns the minimum recorded latency in nanoseconds, or 0 if none has been recorded.
+		 */
+		public long min() {
+			return count == 0 ? 0 : min;
+		}
+
+		/**
+		 * Returns the maximum recorded latency in nanoseconds.
+		 */
+		public long max() {
+			return max;
+		}
+
+		/**
+		 * Returns the mean recorded latency in nanoseconds.
+		 */
+		public double mean() {
+			return count == 0 ? 0 : (double) sum / count;
+		}
+
+		/**
+		 * Returns the {@code p} (in [0..100]) percentile latency in nanoseconds, interpolated within its bucket.
+		 *
+		 * @see #p50()
+		 * @see #p95()
+		 * @see #p99()
+		 */
+		public long percentile(float p) {
+			if (count == 0)
+				return 0;
+			double rank = Math.min(Math.max(p, 0), 100) / 100.0 * count;
+			long seen = 0;
+			for (int i = 0; i < buckets.length; i++) {
+				if (buckets[i] == 0)
+					continue;
+				if (seen + buckets[i] >= rank) {
+					long lo = lowerBound(i);
+					long hi = i + 1 < buckets.length ? lowerBound(i + 1) : Long.MAX_VALUE;
+					long value = lo + (long) ((hi - lo) * ((rank - seen) / buckets[i]));
+					return Math.min(Math.max(value, min), max);
+				}
+				seen += buckets[i];
+			}
+			return max;
+		}
+
+		/**
+		 * Same as {@code return percentile(50)}.
+		 */
+		public long p50() {
+			return percentile(50);
+		}
+
+		/**
+		 * Same as {@code return percentile(95)}.
+		 */
+		public long p95() {
+			return percentile(95);
+		}
+
+		/**
+		 * Same as {@code return percentile(99)}.
+		 */
+		public long p99() {
+			return percentile(99);
+		}
+
+		/**
+		 * Discards all recorded latencies.
+		 */
+		public void reset() {
+			for (int i = 0; i < buckets.length; i++)
+				buckets[i] = 0;
+			count = sum = max = 0;
+			min = Long.MAX_VALUE;
+		}
+
+		@Override
+		public String toString() {
+			return "n=" + count + " p50=" + micros(p50()) + " p95=" + micros(p95()) + " p99=" + micros(p99()) + " max="
+					+ micros(max()) + " (us)";
+		}
+
+		/**
+		 * Internal use. Formats {@code nanos} as microseconds.
+		 */
+		protected static String micros(long nanos) {
+			return String.valueOf(Math.round(nanos / 100.0) / 10.0);
+		}
+	}
+
+	/**
+	 * Latency histograms and queue depth high-water mark of a set of tuples.
+	 */
+	public static class Stats {
+		protected Histogram	queue		= new Histogram();
+		protected Histogram	perform	= new Histogram();
+		protected Histogram	total		= new Histogram();
+		protected int				pending, maxPending;
+
+		/**
+		 * Returns the histogram of the times the tuples waited in the queue, i.e., from
+		 * {@link remixlab.bias.core.EventGrabberTuple#enqueueTime()} to
+		 * {@link remixlab.bias.core.EventGrabberTuple#dispatchTime()}.
+		 */
+		public Histogram queue() {
+			return queue;
+		}
+
+		/**
+		 * Returns the histogram of the {@link remixlab.bias.core.EventGrabberTuple#perform()} times, i.e., from
+		 * {@link remixlab.bias.core.EventGrabberTuple#dispatchTime()} to
+		 * {@link remixlab.bias.core.EventGrabberTuple#completeTime()}.
+		 */
+		public Histogram perform() {
+			return perform;
+		}
+
+		/**
+		 * Returns the histogram of the input-to-action latencies, i.e., from
+		 * {@link remixlab.bias.core.EventGrabberTuple#enqueueTime()} to
+		 * {@link remixlab.bias.core.EventGrabberTuple#completeTime()}.
+		 */
+		public Histogram total() {
+			return total;
+		}
+
+		/**
+		 * Returns the number of tuples currently waiting in the queue.
+		 */
+		public int pending() {
+			return pending;
+		}
+
+		/**
+		 * Returns the maximum number of tuples that have been waiting in the queue at the same time.
+		 */
+		public int maxPending() {
+			return maxPending;
+		}
+
+		/**
+		 * Discards all recorded latencies and the high-water mark.
+		 */
+		public void reset() {
+			queue.reset();
+			perform.reset();
+			total.reset();
+			maxPending = pending;
+		}
+
+		/**
+		 * Internal use. A tuple has been enqueued.
+		 */
+		protected void enqueued() {
+			if (++pending > maxPending)
+				maxPending = pending;
+		}
+
+		/**
+		 * Internal use. A tuple has been performed.
+		 */
+		protected void completed(long q, long p) {
+			if (pending > 0)
+				pending--;
+			queue.record(q);
+			perform.record(p);
+			total.record(q + p);
+		}
+
+		@Override
+		public String toString() {
+			return "queue " + queue + ", perform " + perform + ", total " + total + ", max pending " + maxPending;
+		}
+	}
+
+	protected boolean							enabled;
+	protected Stats								all;
+	protected HashMap<String, Stats>	agents;
+	protected HashMap<Object, Stats>	actions;
+
+	/**
+	 * Creates an enabled tracker. Use {@link remixlab.bias.core.InputHandler#latencyTracker()} instead.
+	 */
+	public LatencyTracker() {
+		all = new Stats();
+		agents = new HashMap<String, Stats>();
+		actions = new HashMap<Object, Stats>();
+		enabled = true;
+	}
+
+	/**
+	 * Enables or disables the recording of latencies. Tuples enqueued while disabled are not recorded.
+	 */
+	public void enable(boolean flag) {
+		enabled = flag;
+		if (!flag)
+			clearPending();
+	}
+
+	/**
+	 * Returns {@code true} if latencies are being recorded.
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Returns the stats of all the recorded tuples. Its {@link Stats#maxPending()} is the
+	 * {@link remixlab.bias.core.InputHandler#eventTupleQueue()} depth high-water mark.
+	 */
+	public Stats stats() {
+		return all;
+	}
+
+	/**
+	 * Returns the stats of the tuples enqueued by the agent named {@code name}, or {@code null} if none has been recorded.
+	 */
+	public Stats agent(String name) {
+		return agents.get(name);
+	}
+
+	/**
+	 * Same as {@code return agent(agent.name())}.
+	 */
+	public Stats agent(Agent agent) {
+		return agent(agent.name());
+	}
+
+	/**
+	 * Returns the stats of the tuples whose action {@link remixlab.bias.core.Action#referenceAction()} is that of
+	 * {@code action}, or {@code null} if none has been recorded.
+	 */
+	public Stats action(Action<?> action) {
+		return actions.get(key(action));
+	}
+
+	/**
+	 * Returns the names of the agents having recorded stats.
+	 */
+	public List<String> agentNames() {
+		return new ArrayList<String>(agents.keySet());
+	}
+
+	/**
+	 * Returns the (reference) actions having recorded stats.
+	 */
+	public List<Object> actionKeys() {
+		return new ArrayList<Object>(actions.keySet());
+	}
+
+	/**
+	 * Discards all recorded latencies and high-water marks.
+	 */
+	public void reset() {
+		all.reset();
+		for (Stats s : agents.values())
+			s.reset();
+		for (Stats s : actions.values())
+			s.reset();
+	}
+
+	/**
+	 * Returns a description of the recorded stats as a String.
+	 */
+	public String info() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("Input latency\nall: ").append(all).append('\n');
+		for (String name : agents.keySet())
+			sb.append("agent ").append(name).append(": ").append(agents.get(name)).append('\n');
+		for (Object action : actions.keySet())
+			sb.append("action ").append(action).append(": ").append(actions.get(action)).append('\n');
+		return sb.toString();
+	}
+
+	/**
+	 * Internal use. Called by the input handler when {@code tuple} is enqueued.
+	 */
+	protected void enqueued(EventGrabberTuple tuple) {
+		tuple.enqueueTime = System.nanoTime();
+		all.enqueued();
+		if (tuple.agent != null)
+			agentStats(tuple.agent.name()).enqueued();
+		if (tuple.event != null && tuple.action() != null)
+			actionStats(tuple.action()).enqueued();
+	}
+
+	/**
+	 * Internal use. Called by the input handler once {@code tuple} has been performed. Tuples added directly to the
+	 * queue (i.e., not through {@link remixlab.bias.core.InputHandler#enqueueEventTuple(EventGrabberTuple)}) are taken
+	 * as enqueued at {@code loopStart}.
+	 */
+	protected void completed(EventGrabberTuple tuple, long loopStart) {
+		boolean counted = tuple.enqueueTime != 0;
+		if (!counted)
+			tuple.enqueueTime = loopStart;
+		long q = tuple.dispatchTime - tuple.enqueueTime;
+		long p = tuple.completeTime - tuple.dispatchTime;
+		complete(all, counted, q, p);
+		if (tuple.agent != null)
+			complete(agentStats(tuple.agent.name()), counted, q, p);
+		if (tuple.event != null && tuple.action() != null)
+			complete(actionStats(tuple.action()), counted, q, p);
+	}
+
+	/**
+	 * Internal use. Records the {@code q} queue and {@code p} perform latencies into {@code stats}.
+	 */
+	protected void complete(Stats stats, boolean counted, long q, long p) {
+		if (!counted)
+			stats.pending++;
+		stats.completed(q, p);
+	}
+
+	/**
+	 * Internal use. Called when the queue is cleared without performing the tuples.
+	 */
+	protected void clearPending() {
+		all.pending = 0;
+		for (Stats s : agents.values())
+			s.pending = 0;
+		for (Stats s : actions.values())
+			s.pending = 0;
+	}
+
+	/**
+	 * Internal use. Returns the (possibly new) stats of the agent named {@code name}.
+	 */
+	protected Stats agentStats(String name) {
+		Stats s = agents.get(name);
+		if (s == null)
+			agents.put(name, s = new Stats());
+		return s;
+	}
+
+	/**
+	 * Internal use. Returns the (possibly new) stats of the {@code action} reference action.
+	 */
+	protected Stats actionStats(Action<?> action) {
+		Object key = key(action);
+		Stats s = actions.get(key);
+		if (s == null)
+			actions.put(key, s = new Stats());
+		return s;
+	}
+
+	/**
+	 * Internal use. Stats of actions sharing the same {@link remixlab.bias.core.Action#referenceAction()} are merged.
+	 */
+	protected static Object key(Action<?> action) {
+		Object ref = action.referenceAction();
+		return ref == null ? action : ref;
+	}
+}
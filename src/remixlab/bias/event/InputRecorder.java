@@ -0,0 +1,332 @@
+/*********************************************************************************
+ * bias_tree
+ * Copyright (c) 2014 National University of Colombia, https://github.com/remixlab
+ * @author Jean Pierre Charalambos, http://otrolado.info/
+ *
+ * All rights reserved. Library that eases the creation of interactive
+ * scenes, released under the terms of the GNU Public License v3.0
+ * which is available at http://www.gnu.org/licenses/gpl.html
+ *********************************************************************************/
+
+package remixlab.bias.event;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import remixlab.bias.core.BogusEvent;
+
+/**
+ * Records {@link remixlab.bias.core.BogusEvent}s into a compact append-only binary log, to be replayed later with an
+ * {@link remixlab.bias.agent.InputReplayAgent}, e.g., to run headless interaction throughput and regression tests with
+ * real gesture traffic.
+ * <p>
+ * Call {@link #record(BogusEvent)} (or {@link #record(BogusEvent, boolean)} for events only used to
+ * {@link remixlab.bias.core.Agent#updateTrackedGrabber(BogusEvent)}) right where the live events are reduced, e.g., in
+ * the agent {@link remixlab.bias.core.Agent#feed()} or in the platform event callback before calling
+ * {@link remixlab.bias.core.Agent#handle(BogusEvent)}. Records are buffered and appended to the log when the buffer
+ * fills up, on {@link #flush()} and on {@link #close()}.
+ * <p>
+ * Supported events are {@link remixlab.bias.event.KeyboardEvent}, {@link remixlab.bias.event.ClickEvent},
+ * {@link remixlab.bias.event.DOF1Event}, {@link remixlab.bias.event.DOF2Event}, {@link remixlab.bias.event.DOF3Event}
+ * and {@link remixlab.bias.event.DOF6Event}, together with their {@link remixlab.bias.core.BogusEvent#timestamp()} and
+ * (relative motion events) {@link remixlab.bias.event.MotionEvent#delay()}, {@link remixlab.bias.event.MotionEvent#speed()}
+ * and dof deltas, so that they are replayed exactly as they were reduced. Subclasses of them are not supported, since
+ * they may hold additional state.
+ * <p>
+ * Log format (big-endian): a 8 bytes header ({@link #MAGIC}, {@link #VERSION}) followed by the records. Each record
+ * starts with a type byte (having the {@link #TRACKING} bit set for tracking events), the timestamp (long) and the
+ * modifiers (int), followed by the event data.
+ */
+public class InputRecorder {
+	public static final int		MAGIC				= 0x42494C47;	// "BILG"
+	public static final int		VERSION			= 1;
+	public static final int		HEADER_BYTES	= 8;
+
+	public static final byte	KEYBOARD		= 1;
+	public static final byte	CLICK				= 2;
+	public static final byte	DOF1				= 3;
+	public static final byte	DOF2				= 4;
+	public static final byte	DOF3				= 5;
+	public static final byte	DOF6				= 6;
+	public static final byte	TRACKING		= (byte) 0x80;
+
+	protected FileChannel			channel;
+	protected FileOutputStream	stream;
+	protected ByteBuffer			buffer;
+	protected String					path;
+	protected long						count;
+
+	/**
+	 * Same as {@code this(path, 64 * 1024)}.
+	 */
+	public InputRecorder(String path) {
+		this(path, 64 * 1024);
+	}
+
+	/**
+	 * Opens (or creates) the log at {@code path} for appending, buffering up to {@code bufferSize} bytes of records
+	 * before writing them to the file.
+	 */
+	public InputRecorder(String path, int bufferSize) {
+		this.path = path;
+		buffer = ByteBuffer.allocateDirect(Math.max(bufferSize, 256));
+		try {
+			stream = new FileOutputStream(path, true);
+			channel = stream.getChannel();
+			if (channel.size() == 0) {
+				buffer.putInt(MAGIC).putInt(VERSION);
+				flush();
+			}
+		} catch (IOException e) {
+			throw new RuntimeException("Unable to open input log " + path + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Returns the log path.
+	 */
+	public String path() {
+		return path;
+	}
+
+	/**
+	 * Returns the number of events recorded by this recorder.
+	 */
+	public long count() {
+		return count;
+	}
+
+	/**
+	 * Same as {@code return record(event, false)}.
+	 */
+	public boolean record(BogusEvent event) {
+		return record(event, false);
+	}
+
+	/**
+	 * Appends {@code event} to the log. Set {@code tracking} to {@code true} if the event is only meant to
+	 * {@link remixlab.bias.core.Agent#updateTrackedGrabber(BogusEvent)} (e.g., a mouse move), and to {@code false} if it
+	 * should be {@link remixlab.bias.core.Agent#handle(BogusEvent)}d (e.g., a mouse drag).
+	 * <p>
+	 * Returns {@code false} (and nothing is recorded) if the event type is not supported.
+	 */
+	public boolean record(BogusEvent event, boolean tracking) {
+		if (channel == null)
+			throw new RuntimeException("Input log " + path + " is closed");
+		if (event == null || type(event) == 0)
+			return false;
+		if (buffer.remaining() < maxRecordBytes())
+			flush();
+		write(buffer, event, tracking);
+		count++;
+		return true;
+	}
+
+	/**
+	 * Writes the buffered records to the log.
+	 */
+	public void flush() {
+		buffer.flip();
+		try {
+			while (buffer.hasRemaining())
+				channel.write(buffer);
+		} catch (IOException e) {
+			throw new RuntimeException("Unable to write input log " + path + ": " + e.getMessage());
+		} finally {
+			buffer.clear();
+		}
+	}
+
+	/**
+	 * Flushes the buffered records and closes the log.
+	 */
+	public void close() {
+		if (channel == null)
+			return;
+		flush();
+		try {
+			stream.close();
+		} catch (IOException e) {
+			throw new RuntimeException("Unable to close input log " + path + ": " + e.getMessage());
+		} finally {
+			channel = null;
+			stream = null;
+		}
+	}
+
+	/**
+	 * Internal use. Size in bytes of the largest record.
+	 */
+	protected static int maxRecordBytes() {
+		return 1 + 8 + 4 + 4 + 1 + 8 + 4 + 4 + 12 * 4;
+	}
+
+	/**
+	 * Returns the record type of {@code event}, or 0 if it is not supported.
+	 */
+	public static byte type(BogusEvent event) {
+		Class<?> c = event.getClass();
+		if (c == DOF2Event.class)
+			return DOF2;
+		if (c == KeyboardEvent.class)
+			return KEYBOARD;
+		if (c == ClickEvent.class)
+			return CLICK;
+		if (c == DOF1Event.class)
+			return DOF1;
+		if (c == DOF3Event.class)
+			return DOF3;
+		if (c == DOF6Event.class)
+			return DOF6;
+		return 0;
+	}
+
+	/**
+	 * Writes the {@code event} record (which should be of a supported {@link #type(BogusEvent)}) into {@code out}.
+	 *
+	 * @see #read(ByteBuffer)
+	 */
+	public static void write(ByteBuffer out, BogusEvent event, boolean tracking) {
+		byte type = type(event);
+		out.put(tracking ? (byte) (type | TRACKING) : type);
+		out.putLong(event.timestamp());
+		out.putInt(event.modifiers());
+		switch (type) {
+			case KEYBOARD:
+				KeyboardEvent k = (KeyboardEvent) event;
+				out.putChar(k.key);
+				out.putInt(k.vKey);
+				break;
+			case CLICK:
+				ClickEvent c = (ClickEvent) event;
+				out.putFloat(c.x).putFloat(c.y);
+				out.putInt(c.button).putInt(c.numberOfClicks);
+				break;
+			case DOF1:
+				DOF1Event e1 = (DOF1Event) event;
+				putMotion(out, e1);
+				out.putFloat(e1.x).putFloat(e1.dx);
+				break;
+			case DOF2:
+				DOF2Event e2 = (DOF2Event) event;
+				putMotion(out, e2);
+				out.putFloat(e2.x).putFloat(e2.dx).putFloat(e2.y).putFloat(e2.dy);
+				break;
+			case DOF3:
+				DOF3Event e3 = (DOF3Event) event;
+				putMotion(out, e3);
+				out.putFloat(e3.x).putFloat(e3.dx).putFloat(e3.y).putFloat(e3.dy).putFloat(e3.z).putFloat(e3.dz);
+				break;
+			case DOF6:
+				DOF6Event e6 = (DOF6Event) event;
+				putMotion(out, e6);
+				out.putFloat(e6.x).putFloat(e6.dx).putFloat(e6.y).putFloat(e6.dy).putFloat(e6.z).putFloat(e6.dz);
+				out.putFloat(e6.rx).putFloat(e6.drx).putFloat(e6.ry).putFloat(e6.dry).putFloat(e6.rz).putFloat(e6.drz);
+				break;
+		}
+	}
+
+	/**
+	 * Returns {@code true} if the record at the {@code in} position was recorded as a tracking event.
+	 *
+	 * @see #record(BogusEvent, boolean)
+	 */
+	public static boolean isTracking(ByteBuffer in) {
+		return (in.get(in.position()) & TRACKING) != 0;
+	}
+
+	/**
+	 * Reads the record at the {@code in} position and returns its event.
+	 *
+	 * @see #write(ByteBuffer, BogusEvent, boolean)
+	 */
+	public static BogusEvent read(ByteBuffer in) {
+		byte type = (byte) (in.get() & ~TRACKING);
+		long timestamp = in.getLong();
+		int modifiers = in.getInt();
+		BogusEvent event;
+		switch (type) {
+			case KEYBOARD:
+				char key = in.getChar();
+				int vKey = in.getInt();
+				event = key != '\u0000' ? new KeyboardEvent(key) : new KeyboardEvent(modifiers, vKey);
+				break;
+			case CLICK:
+				float x = in.getFloat(), y = in.getFloat();
+				int button = in.getInt();
+				event = new ClickEvent(x, y, modifiers, button, in.getInt());
+				break;
+			case DOF1:
+				DOF1Event e1 = new DOF1Event(0, modifiers, 0);
+				getMotion(in, e1);
+				e1.x = in.getFloat();
+				e1.dx = in.getFloat();
+				event = e1;
+				break;
+			case DOF2:
+				DOF2Event e2 = new DOF2Event(0, 0, modifiers, 0);
+				getMotion(in, e2);
+				e2.x = in.getFloat();
+				e2.dx = in.getFloat();
+				e2.y = in.getFloat();
+				e2.dy = in.getFloat();
+				event = e2;
+				break;
+			case DOF3:
+				DOF3Event e3 = new DOF3Event(0, 0, 0, modifiers, 0);
+				getMotion(in, e3);
+				e3.x = in.getFloat();
+				e3.dx = in.getFloat();
+				e3.y = in.getFloat();
+				e3.dy = in.getFloat();
+				e3.z = in.getFloat();
+				e3.dz = in.getFloat();
+				event = e3;
+				break;
+			case DOF6:
+				DOF6Event e6 = new DOF6Event(0, 0, 0, 0, 0, 0, modifiers, 0);
+				getMotion(in, e6);
+				e6.x = in.getFloat();
+				e6.dx = in.getFloat();
+				e6.y = in.getFloat();
+				e6.dy = in.getFloat();
+				e6.z = in.getFloat();
+				e6.dz = in.getFloat();
+				e6.rx = in.getFloat();
+				e6.drx = in.getFloat();
+				e6.ry = in.getFloat();
+				e6.dry = in.getFloat();
+				e6.rz = in.getFloat();
+				e6.drz = in.getFloat();
+				event = e6;
+				break;
+			default:
+				throw new RuntimeException("Corrupted input log: unknown record type " + type);
+		}
+		event.modifiedTimestamp(timestamp);
+		return event;
+	}
+
+	/**
+	 * Internal use. Writes the {@link remixlab.bias.event.MotionEvent} common data.
+	 */
+	protected static void putMotion(ByteBuffer out, MotionEvent event) {
+		out.putInt(event.button);
+		out.put(event.rel ? (byte) 1 : (byte) 0);
+		out.putLong(event.delay);
+		out.putFloat(event.distance).putFloat(event.speed);
+	}
+
+	/**
+	 * Internal use. Reads the {@link remixlab.bias.event.MotionEvent} common data.
+	 */
+	protected static void getMotion(ByteBuffer in, MotionEvent event) {
+		event.button = in.getInt();
+		event.rel = in.get() != 0;
+		event.delay = in.getLong();
+		event.distance = in.getFloat();
+		event.speed = in.getFloat();
+	}
+}
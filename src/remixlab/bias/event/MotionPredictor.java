@@ -0,0 +1,310 @@
+/*********************************************************************************
+ * bias_tree
+ * Copyright (c) 2014 National University of Colombia, https://github.com/remixlab
+ * @author Jean Pierre Charalambos, http://otrolado.info/
+ *
+ * All rights reserved. Library that eases the creation of interactive
+ * scenes, released under the terms of the GNU Public License v3.0
+ * which is available at http://www.gnu.org/licenses/gpl.html
+ *********************************************************************************/
+
+package remixlab.bias.event;
+
+/**
+ * Pointer motion predictor hiding part of the display latency of relative
+ * {@link remixlab.bias.event.MotionEvent}s (see {@link remixlab.bias.agent.ActionMotionAgent#predictor()}).
+ * <p>
+ * Each relative event is stamped with {@code System.nanoTime()} when it reaches {@link #predict(MotionEvent)}, and its
+ * dofs are fed into a per-dof alpha-beta-gamma filter which estimates their position, velocity and acceleration. The
+ * event dofs are then replaced by their extrapolation at the expected present time, i.e., {@link #horizon()}
+ * milliseconds ahead, and the dof deltas by the difference with respect to the previously predicted ones. Each new real
+ * sample corrects the estimates (and hence any overshoot of the previous prediction).
+ * <p>
+ * The event {@link remixlab.bias.event.MotionEvent#speed()} is recomputed from the nanosecond stamps (still in
+ * units per millisecond), since the millisecond {@link remixlab.bias.core.BogusEvent#timestamp()}s are often equal for
+ * consecutive touch samples.
+ * <p>
+ * Absolute events, changes of button, modifiers or event type, and pauses longer than {@link #resetDelay()} restart the
+ * prediction: the first relative event of a gesture is passed untouched.
+ * <p>
+ * Since the grabbers integrate the predicted deltas, a gesture ends with the grabber ahead of (or behind) the pointer.
+ * Before the prediction restarts, its owner should check {@link #endsGesture(MotionEvent, long)} and handle the
+ * {@link #correct()} event, which takes the grabber back to the last real sample (see
+ * {@link remixlab.bias.agent.ActionMotionAgent#correctPrediction()}).
+ */
+public class MotionPredictor {
+	protected boolean			enabled;
+	protected float				horizon;
+	protected float				alpha, beta, gamma;
+	protected long				resetDelay;
+
+	protected boolean			active;
+	protected int					dofs, button, modifiers;
+	protected long				last, lastEmitted;
+	protected float[]			pos, vel, acc, emitted, sample, real;
+	protected MotionEvent	lastEvent;
+
+	/**
+	 * Creates an enabled predictor with a 16 ms {@link #horizon()} (about one frame at 60 fps).
+	 */
+	public MotionPredictor() {
+		enabled = true;
+		horizon = 16;
+		alpha = 0.85f;
+		beta = 0.35f;
+		gamma = 0.05f;
+		resetDelay = 100;
+		pos = new float[6];
+		vel = new float[6];
+		acc = new float[6];
+		emitted = new float[6];
+		sample = new float[6];
+		real = new float[6];
+	}
+
+	/**
+	 * Enables or disables the prediction. Disabling it ends the current gesture (see
+	 * {@link #endsGesture(MotionEvent, long)}).
+	 */
+	public void enable(boolean flag) {
+		enabled = flag;
+	}
+
+	/**
+	 * Returns {@code true} if the predictor is enabled.
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Returns how far ahead (in milliseconds) the dofs are extrapolated. Default is 16.
+	 */
+	public float horizon() {
+		return horizon;
+	}
+
+	/**
+	 * Sets the {@link #horizon()}, e.g., to the measured input-to-display latency. A 0 horizon still smooths the samples
+	 * and recomputes the event speed.
+	 */
+	public void setHorizon(float millis) {
+		if (millis < 0) {
+			System.out.println("Warning: prediction horizon should be non-negative - Ignoring value");
+			return;
+		}
+		horizon = millis;
+	}
+
+	/**
+	 * Returns the pause (in milliseconds) after which the prediction is restarted. Default is 100.
+	 */
+	public long resetDelay() {
+		return resetDelay;
+	}
+
+	/**
+	 * Sets the {@link #resetDelay()}.
+	 */
+	public void setResetDelay(long millis) {
+		resetDelay = millis;
+	}
+
+	/**
+	 * Sets the filter gains. Higher {@code a} (position), {@code b} (velocity) and {@code g} (acceleration) gains follow
+	 * the samples more closely, while lower ones smooth them more. Defaults are {@code 0.85, 0.35, 0.05}.
+	 */
+	public void setGains(float a, float b, float g) {
+		if (a <= 0 || a > 1 || b < 0 || g < 0) {
+			System.out.println("Warning: prediction gains should be in (0..1], [0..), [0..) - Ignoring values");
+			return;
+		}
+		alpha = a;
+		beta = b;
+		gamma = g;
+	}
+
+	/**
+	 * Restarts the prediction, discarding the pending {@link #correct()} event.
+	 */
+	public void reset() {
+		active = false;
+		lastEvent = null;
+	}
+
+	/**
+	 * Returns {@code true} if the predicted gesture ends before {@code event} (sampled at {@code nanos}), i.e., if the
+	 * event would restart the prediction, or if the predictor has been disabled. A {@code null} event only checks for a
+	 * pause longer than {@link #resetDelay()}, so that it may be polled once per frame.
+	 *
+	 * @see #correct()
+	 */
+	public boolean endsGesture(MotionEvent event, long nanos) {
+		if (!active)
+			return false;
+		if (!enabled || (nanos - last) / 1e6f > resetDelay)
+			return true;
+		if (event == null)
+			return false;
+		return !event.isRelative() || get(event, sample) != dofs || event.button() != button
+				|| event.modifiers() != modifiers;
+	}
+
+	/**
+	 * Ends the predicted gesture and returns a copy of its last event holding the last real sample dofs, and the deltas
+	 * taking the predicted dofs back to them. Returns {@code null} if no gesture is being predicted or if its last
+	 * prediction already matches the real sample.
+	 *
+	 * @see #endsGesture(MotionEvent, long)
+	 */
+	public MotionEvent correct() {
+		if (!active)
+			return null;
+		active = false;
+		float dist = 0;
+		for (int i = 0; i < dofs; i++) {
+			sample[i] = real[i] - emitted[i];
+			dist += sample[i] * sample[i];
+		}
+		MotionEvent event = dist == 0 ? null : lastEvent.get();
+		if (event != null) {
+			set(event, real, sample);
+			event.distance = dofs == 1 ? sample[0] : (float) Math.sqrt(dist);
+			event.speed = 0;
+		}
+		lastEvent = null;
+		return event;
+	}
+
+	/**
+	 * Same as {@code return predict(event, System.nanoTime())}.
+	 */
+	public boolean predict(MotionEvent event) {
+		return predict(event, System.nanoTime());
+	}
+
+	/**
+	 * Feeds the {@code event} dofs, sampled at {@code nanos}, into the filter and replaces them (together with their
+	 * deltas, distance and speed) by their predicted values. Returns {@code true} if the event was modified.
+	 */
+	public boolean predict(MotionEvent event, long nanos) {
+		int n = get(event, sample);
+		if (!enabled || n == 0 || !event.isRelative()) {
+			reset();
+			return false;
+		}
+		float dt = (nanos - last) / 1e6f;
+		if (!active || n != dofs || event.button() != button || event.modifiers() != modifiers || dt > resetDelay) {
+			dofs = n;
+			button = event.button();
+			modifiers = event.modifiers();
+			for (int i = 0; i < n; i++) {
+				pos[i] = emitted[i] = real[i] = sample[i];
+				vel[i] = acc[i] = 0;
+			}
+			last = lastEmitted = nanos;
+			lastEvent = event;
+			active = true;
+			return false;
+		}
+		if (dt < 0.01f)
+			dt = 0.01f;
+		float dist = 0;
+		for (int i = 0; i < n; i++) {
+			// alpha-beta-gamma predict-correct step
+			float p = pos[i] + vel[i] * dt + 0.5f * acc[i] * dt * dt;
+			float v = vel[i] + acc[i] * dt;
+			real[i] = sample[i];
+			float r = sample[i] - p;
+			pos[i] = p + alpha * r;
+			vel[i] = v + beta * r / dt;
+			acc[i] = acc[i] + 2 * gamma * r / (dt * dt);
+			// extrapolation to the expected present time
+			float predicted = pos[i] + vel[i] * horizon + 0.5f * acc[i] * horizon * horizon;
+			sample[i] = predicted - emitted[i];
+			emitted[i] = predicted;
+			dist += sample[i] * sample[i];
+		}
+		set(event, emitted, sample);
+		float elapsed = (nanos - lastEmitted) / 1e6f;
+		event.distance = n == 1 ? sample[0] : (float) Math.sqrt(dist);
+		event.speed = elapsed > 0 ? event.distance / elapsed : event.distance;
+		last = lastEmitted = nanos;
+		lastEvent = event;
+		return true;
+	}
+
+	/**
+	 * Internal use. Reads the {@code event} dofs into {@code out} and returns their number (0 if the event type is not
+	 * supported).
+	 */
+	protected static int get(MotionEvent event, float[] out) {
+		if (event instanceof DOF2Event) {
+			DOF2Event e = (DOF2Event) event;
+			out[0] = e.x;
+			out[1] = e.y;
+			return 2;
+		}
+		if (event instanceof DOF3Event) {
+			DOF3Event e = (DOF3Event) event;
+			out[0] = e.x;
+			out[1] = e.y;
+			out[2] = e.z;
+			return 3;
+		}
+		if (event instanceof DOF6Event) {
+			DOF6Event e = (DOF6Event) event;
+			out[0] = e.x;
+			out[1] = e.y;
+			out[2] = e.z;
+			out[3] = e.rx;
+			out[4] = e.ry;
+			out[5] = e.rz;
+			return 6;
+		}
+		if (event instanceof DOF1Event) {
+			out[0] = ((DOF1Event) event).x;
+			return 1;
+		}
+		return 0;
+	}
+
+	/**
+	 * Internal use. Sets the {@code event} dofs and their deltas.
+	 */
+	protected static void set(MotionEvent event, float[] values, float[] deltas) {
+		if (event instanceof DOF2Event) {
+			DOF2Event e = (DOF2Event) event;
+			e.x = values[0];
+			e.dx = deltas[0];
+			e.y = values[1];
+			e.dy = deltas[1];
+		} else if (event instanceof DOF3Event) {
+			DOF3Event e = (DOF3Event) event;
+			e.x = values[0];
+			e.dx = deltas[0];
+			e.y = values[1];
+			e.dy = deltas[1];
+			e.z = values[2];
+			e.dz = deltas[2];
+		} else if (event instanceof DOF6Event) {
+			DOF6Event e = (DOF6Event) event;
+			e.x = values[0];
+			e.dx = deltas[0];
+			e.y = values[1];
+			e.dy = deltas[1];
+			e.z = values[2];
+			e.dz = deltas[2];
+			e.rx = values[3];
+			e.drx = deltas[3];
+			e.ry = values[4];
+			e.dry = deltas[4];
+			e.rz = values[5];
+			e.drz = deltas[5];
+		} else if (event instanceof DOF1Event) {
+			DOF1Event e = (DOF1Event) event;
+			e.x = values[0];
+			e.dx = deltas[0];
+		}
+	}
+}
@@ -21,6 +21,7 @@ import remixlab.fpstiming.TimingTask;
 import remixlab.fpstiming.Animator;
 import remixlab.fpstiming.AnimatorObject;
 import remixlab.fpstiming.TimingHandler;
+import remixlab.util.Trace;
 
 /**
  * <h1>Introduction to Dandelion</h1>
@@ -102,6 +103,16 @@ public abstract class AbstractScene extends AnimatorObject implements Constants,
 	public Point						upperLeftCorner;
 	protected boolean				offscreen;
 
+	// change notification
+	protected FrameChangeBus	changeBus;
+
+	// level of detail and occlusion culling
+	protected LODManager			lodManager;
+	protected OcclusionCuller	occlusionCuller;
+
+	// metrics
+	protected FrameMetrics		metrics;
+
 	/**
 	 * Default constructor which defines a right-handed OpenGL compatible Scene with its own
 	 * {@link remixlab.dandelion.core.MatrixStackHelper}. The constructor also instantiates the {@link #inputHandler()}
@@ -840,9 +851,17 @@ public abstract class AbstractScene extends AnimatorObject implements Constants,
 	 * Called before your main drawing, e.g., P5.pre().
 	 * <p>
 	 * Calls {@link remixlab.dandelion.core.Eye#validateScaling()}, handles the {@link #avatar()}, calls {@link #bind()}
-	 * and finally {@link remixlab.dandelion.core.Eye#updateBoundaryEquations()} if {@link #areBoundaryEquationsEnabled()}.
+	 * and {@link remixlab.dandelion.core.Eye#updateBoundaryEquations()} if {@link #areBoundaryEquationsEnabled()}.
+	 * Finally dispatches the {@link #frameChangeBus()} (only if it has been instantiated).
+	 * <p>
+	 * Each step is timed by the {@link #metrics()}, if they have been instantiated and are enabled. The whole method is
+	 * reported as the {@link remixlab.util.Trace#PRE_DRAW} section to the installed {@link remixlab.util.Tracer}, if any.
 	 */
 	public void preDraw() {
+		long token = Trace.begin(Trace.PRE_DRAW);
+		FrameMetrics m = metrics != null && metrics.isEnabled() ? metrics : null;
+		long start = m == null ? 0 : m.beginFrame();
+		long t = start;
 		eye().validateScaling();
 		if (avatar() != null && (!eye().anyInterpolationIsStarted())) {
 			eye().setPosition(avatar().eyePosition());
@@ -850,8 +869,84 @@ public abstract class AbstractScene extends AnimatorObject implements Constants,
 			eye().lookAt(avatar().target());
 		}
 		bind();
-		if (areBoundaryEquationsEnabled())
+		if (m != null)
+			t = m.record(FrameMetrics.Phase.BIND, t);
+		if (areBoundaryEquationsEnabled()) {
 			eye().updateBoundaryEquations();
+			if (m != null)
+				t = m.record(FrameMetrics.Phase.BOUNDARY_EQUATIONS, t);
+		}
+		if (lodManager != null)
+			lodManager.update();
+		if (occlusionCuller != null && occlusionCuller.occluderCount() > 0)
+			occlusionCuller.update();
+		if (m != null && (lodManager != null || occlusionCuller != null))
+			t = m.record(FrameMetrics.Phase.CULLING, t);
+		if (changeBus != null) {
+			changeBus.dispatch();
+			if (m != null)
+				m.record(FrameMetrics.Phase.CHANGE_BUS, t);
+		}
+		if (m != null)
+			m.record(FrameMetrics.Phase.PRE_DRAW, start);
+		Trace.end(Trace.PRE_DRAW, token, this, null, null);
+	}
+
+	/**
+	 * Returns the scene {@link remixlab.dandelion.core.FrameMetrics}, which time each {@link #preDraw()} and
+	 * {@link #postDraw()} phase. The metrics are instantiated (and hence start recording) the first time this method is
+	 * called, so that scenes not using them don't pay for it.
+	 * 
+	 * @see remixlab.dandelion.core.FrameMetrics#p95(FrameMetrics.Phase)
+	 * @see remixlab.dandelion.core.FrameMetrics#info()
+	 */
+	public FrameMetrics metrics() {
+		if (metrics == null)
+			metrics = new FrameMetrics(this);
+		return metrics;
+	}
+
+	/**
+	 * Returns the scene {@link remixlab.dandelion.core.LODManager}, which is updated once per frame in
+	 * {@link #preDraw()}. The manager is instantiated the first time this method is called.
+	 * 
+	 * @see remixlab.dandelion.core.LODManager#add(Frame, float, float[])
+	 * @see remixlab.dandelion.core.LODManager#level(Frame)
+	 */
+	public LODManager lodManager() {
+		if (lodManager == null)
+			lodManager = new LODManager(this);
+		return lodManager;
+	}
+
+	/**
+	 * Returns the scene {@link remixlab.dandelion.core.OcclusionCuller}, whose occluders are rasterized once per frame in
+	 * {@link #preDraw()}, right after the eye matrices are bound. The culler is instantiated the first time this method
+	 * is called, with a depth buffer 256 pixels wide having the scene aspect ratio.
+	 * 
+	 * @see remixlab.dandelion.core.OcclusionCuller#addOccluder(Frame, float[], int[])
+	 * @see remixlab.dandelion.core.OcclusionCuller#boxIsOccluded(Vec, Vec)
+	 */
+	public OcclusionCuller occlusionCuller() {
+		if (occlusionCuller == null)
+			occlusionCuller = new OcclusionCuller(this, 256, Math.max(1, 256 * height() / Math.max(width(), 1)));
+		return occlusionCuller;
+	}
+
+	/**
+	 * Returns the scene {@link remixlab.dandelion.core.FrameChangeBus}, which is dispatched once per frame at the end of
+	 * {@link #preDraw()}. The bus is instantiated (and the {@link #eye()} registered at it) the first time this method is
+	 * called, so that scenes not using change notification don't pay for it.
+	 * 
+	 * @see remixlab.dandelion.core.FrameChangeBus#register(Frame)
+	 * @see remixlab.dandelion.core.FrameChangeBus#addObserver(FrameObserver)
+	 */
+	public FrameChangeBus frameChangeBus() {
+		if (changeBus == null) {
+			changeBus = new FrameChangeBus();
+			changeBus.register(eye());
+		}
+		return changeBus;
 	}
 
 	/**
@@ -866,22 +961,50 @@ public abstract class AbstractScene extends AnimatorObject implements Constants,
 	 * <li>{@link #displayVisualHints()}.</li>
 	 * </ol>
 	 * 
+	 * The method, the draw handler and the visual hints are reported as the {@link remixlab.util.Trace#POST_DRAW},
+	 * {@link remixlab.util.Trace#DRAW_HANDLER} and {@link remixlab.util.Trace#VISUAL_HINTS} sections to the installed
+	 * {@link remixlab.util.Tracer}, if any. Each step is also timed by the {@link #metrics()}, if they have been
+	 * instantiated and are enabled.
+	 * 
 	 * @see #proscenium()
 	 * @see #invokeDrawHandler()
 	 * @see #gridVisualHint()
 	 * @see #visualHints()
 	 */
 	public void postDraw() {
+		long token = Trace.begin(Trace.POST_DRAW);
+		FrameMetrics m = metrics != null && metrics.isEnabled() ? metrics : null;
+		long start = m == null ? 0 : System.nanoTime();
+		long t = start;
 		// 1. timers
 		timingHandler().handle();
+		if (m != null) {
+			t = m.record(FrameMetrics.Phase.TIMERS, t);
+			m.sampleQueue();
+		}
 		// 2. Agents
 		inputHandler().handle();
+		if (m != null)
+			t = m.record(FrameMetrics.Phase.INPUT, t);
 		// 3. Alternative use only
 		proscenium();
+		if (m != null)
+			t = m.record(FrameMetrics.Phase.PROSCENIUM, t);
 		// 4. Draw external registered method (only in java sub-classes)
+		long section = Trace.begin(Trace.DRAW_HANDLER);
 		invokeDrawHandler(); // abstract
+		Trace.end(Trace.DRAW_HANDLER, section, this, null, null);
+		if (m != null)
+			t = m.record(FrameMetrics.Phase.DRAW_HANDLER, t);
 		// 5. Display visual hints
+		section = Trace.begin(Trace.VISUAL_HINTS);
 		displayVisualHints(); // abstract
+		Trace.end(Trace.VISUAL_HINTS, section, this, null, null);
+		if (m != null) {
+			m.record(FrameMetrics.Phase.VISUAL_HINTS, t);
+			m.record(FrameMetrics.Phase.POST_DRAW, start);
+		}
+		Trace.end(Trace.POST_DRAW, token, this, null, null);
 	}
 
 	/**
@@ -1478,6 +1601,8 @@ public abstract class AbstractScene extends AnimatorObject implements Constants,
 		vp.setScreenWidthAndHeight(width(), height());
 
 		eye = vp;
+		if (changeBus != null)
+			changeBus.register(eye);
 
 		for (Agent agent : inputHandler().agents()) {
 			if (agent instanceof ActionWheeledBiMotionAgent)
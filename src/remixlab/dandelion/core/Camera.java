@@ -35,6 +35,7 @@ public class Camera extends Eye implements Constants, Copyable {
 				append(focusDist).
 				append(physicalDist2Scrn).
 				append(physicalScrnWidth).
+				append(stereo).
 				append(tp).
 				append(zClippingCoef).
 				append(zNearCoef).
@@ -59,6 +60,7 @@ public class Camera extends Eye implements Constants, Copyable {
 				.append(focusDist, other.focusDist)
 				.append(physicalDist2Scrn, other.physicalDist2Scrn)
 				.append(physicalScrnWidth, other.physicalScrnWidth)
+				.append(stereo, other.stereo)
 				.append(tp, other.tp)
 				.append(zClippingCoef, other.zClippingCoef)
 				.append(zNearCoef, other.zNearCoef)
@@ -118,12 +120,10 @@ public class Camera extends Eye implements Constants, Copyable {
 				return;
 			}
 
-			Vec[] n = new Vec[normals.length];
 			for (int i = 0; i < normals.length; i++) {
-				n[i] = new Vec();
-				n[i].set(normals[i]);
-				n[i].normalize();
-				axis = Vec.add(axis, n[i]);
+				float m = normals[i].magnitude();
+				if (m != 0)
+					axis.add(normals[i].x() / m, normals[i].y() / m, normals[i].z() / m);
 			}
 
 			if (Util.nonZero(axis.magnitude())) {
@@ -133,9 +133,13 @@ public class Camera extends Eye implements Constants, Copyable {
 				axis.set(0, 0, 1);
 			}
 
-			angle = 0;
-			for (int i = 0; i < normals.length; i++)
-				angle = Math.max(angle, (float) Math.acos(Vec.dot(n[i], axis)));
+			// a single acos, for the widest normal
+			float minCos = 1;
+			for (int i = 0; i < normals.length; i++) {
+				float m = normals[i].magnitude();
+				minCos = Math.min(minCos, m != 0 ? Vec.dot(normals[i], axis) / m : 0);
+			}
+			angle = (float) Math.acos(Math.max(minCos, -1));
 		}
 	}
 
@@ -172,6 +176,9 @@ public class Camera extends Eye implements Constants, Copyable {
 	private float	focusDist;					// in scene units
 	private float	physicalDist2Scrn;	// in meters
 	private float	physicalScrnWidth;	// in meters
+	private boolean	stereo;
+	protected Mat[]	stereoViewMat;			// left, right
+	protected Mat[]	stereoProjectionMat;	// left, right
 
 	// rescale ortho when rap changes
 	private float	rapK	= 1;
@@ -218,6 +225,8 @@ public class Camera extends Eye implements Constants, Copyable {
 		setPhysicalDistanceToScreen(0.5f);
 		setPhysicalScreenWidth(0.4f);
 		// focusDistance is set from setFieldOfView()
+		stereoViewMat = new Mat[] { new Mat(), new Mat() };
+		stereoProjectionMat = new Mat[] { new Mat(), new Mat() };
 
 		computeProjection();
 	}
@@ -231,6 +240,9 @@ public class Camera extends Eye implements Constants, Copyable {
 		this.setPhysicalDistanceToScreen(oCam.physicalDistanceToScreen());
 		this.setPhysicalScreenWidth(oCam.physicalScreenWidth());
 		this.rapK = oCam.rapK;
+		this.stereo = oCam.stereo;
+		this.stereoViewMat = new Mat[] { new Mat(oCam.stereoViewMat[0]), new Mat(oCam.stereoViewMat[1]) };
+		this.stereoProjectionMat = new Mat[] { new Mat(oCam.stereoProjectionMat[0]), new Mat(oCam.stereoProjectionMat[1]) };
 	}
 
 	@Override
@@ -715,6 +727,10 @@ public class Camera extends Eye implements Constants, Copyable {
 			break;
 		}
 
+		// In stereo mode the left and right planes bound both eye frustums
+		if (isStereoEnabled() && type() == Type.PERSPECTIVE)
+			computeStereoSidePlanes(pos, viewDir, right);
+
 		// Front and far planes are identical for both camera types.
 		normal[2] = Vec.multiply(viewDir, -1);
 		normal[3] = viewDir;
@@ -831,6 +847,26 @@ public class Camera extends Eye implements Constants, Copyable {
 		return false;
 	}
 
+	/**
+	 * Returns {@code true} if every triangle of a cluster bounded by the ball of {@code radius} centered at
+	 * {@code center}, and whose normals lie within the cone given by the normalized {@code axis} and {@code angle}, is
+	 * back facing the camera. Unlike {@link #coneIsBackFacing(Vec, Vec, float)}, the camera {@link #position()} is taken
+	 * into account (perspective cameras), so that the test is conservative for nearby clusters too.
+	 * <p>
+	 * To test many clusters per frame, precompute their cones with {@link remixlab.dandelion.core.MeshClusters}.
+	 * 
+	 * @see remixlab.dandelion.core.MeshClusters#visibleClusters(Camera, Frame, int[])
+	 */
+	public boolean coneIsBackFacing(Vec center, float radius, Vec axis, float angle) {
+		if (angle >= HALF_PI)
+			return false;
+		float[] cone = { axis.x(), axis.y(), axis.z(), (float) Math.sin(angle), (float) Math.cos(angle), center.x(),
+				center.y(), center.z(), radius };
+		boolean perspective = type() == Type.PERSPECTIVE;
+		return MeshClusters.visibleClusters(cone, 1, perspective ? position() : viewDirection(), perspective,
+				new int[1]) == 0;
+	}
+
 	/**
 	 * Returns {@code true} if the given face is back facing the camera. Otherwise returns {@code false}.
 	 * <p>
@@ -1217,6 +1253,8 @@ public class Camera extends Eye implements Constants, Copyable {
 	 * Sets the {@link #IODistance()}.
 	 */
 	public void setIODistance(float distance) {
+		if (distance != IODist)
+			modified();
 		IODist = distance;
 	}
 
@@ -1239,6 +1277,8 @@ public class Camera extends Eye implements Constants, Copyable {
 	 * Sets the {@link #physicalDistanceToScreen()}.
 	 */
 	public void setPhysicalDistanceToScreen(float distance) {
+		if (distance != physicalDist2Scrn)
+			modified();
 		physicalDist2Scrn = distance;
 	}
 
@@ -1257,6 +1297,8 @@ public class Camera extends Eye implements Constants, Copyable {
 	 * Sets the physical screen (monitor or projected wall) width (in meters).
 	 */
 	public void setPhysicalScreenWidth(float width) {
+		if (width != physicalScrnWidth)
+			modified();
 		physicalScrnWidth = width;
 	}
 
@@ -1284,4 +1326,114 @@ public class Camera extends Eye implements Constants, Copyable {
 			modified();
 		focusDist = distance;
 	}
+
+	/**
+	 * Returns {@code true} if stereo mode is enabled, and {@code false} otherwise (default).
+	 * 
+	 * @see #enableStereo(boolean)
+	 */
+	public boolean isStereoEnabled() {
+		return stereo;
+	}
+
+	/**
+	 * Enables or disables stereo mode according to {@code flag}.
+	 * <p>
+	 * In stereo mode the left and right eye matrices are computed together with the Camera ones, in a single step (see
+	 * {@link #computeStereo()}), each time the {@link remixlab.dandelion.core.MatrixHelper#bind()} recomputes them. Load
+	 * them before drawing each eye pass with {@link remixlab.dandelion.core.MatrixHelper#bindStereo(boolean)}.
+	 * <p>
+	 * The boundary equations (see {@link #computeBoundaryEquations(float[][])}) then bound both eye frustums, so that
+	 * {@link #pointIsVisible(Vec)}, {@link #ballIsVisible(Vec, float)} and {@link #boxIsVisible(Vec, Vec)} may be
+	 * computed once per frame and their results reused in the left and right passes.
+	 * <p>
+	 * Stereo only makes sense for a {@link Type#PERSPECTIVE} Camera. An {@link Type#ORTHOGRAPHIC} one simply uses its own
+	 * matrices for both eyes.
+	 */
+	public void enableStereo(boolean flag) {
+		if (flag != stereo)
+			modified();
+		stereo = flag;
+	}
+
+	/**
+	 * Returns the distance (in scene units) from the Camera {@link #position()} to each eye, along the
+	 * {@link #rightVector()}, i.e., half the {@link #IODistance()} converted to virtual world units using the
+	 * {@link #physicalScreenWidth()} to {@link #focusDistance()} plane width ratio.
+	 */
+	public float stereoShift() {
+		float screenHalfWidth = focusDistance() * frame().scaling().x() * aspectRatio();
+		return screenHalfWidth * IODistance() / physicalScreenWidth();
+	}
+
+	/**
+	 * Computes both the left and the right eye view and projection matrices (see {@link #getStereoView(boolean)} and
+	 * {@link #getStereoProjection(boolean)}) at once, from the current Camera ones. Called by
+	 * {@link remixlab.dandelion.core.MatrixHelper#bind()} when {@link #isStereoEnabled()}, right after
+	 * {@link #computeProjection()} and {@link #computeView()}.
+	 * <p>
+	 * Each eye is shifted by {@link #stereoShift()} along the {@link #rightVector()} and uses an off-axis (asymmetric)
+	 * frustum, so that the horizontal parallax is null at the {@link #focusDistance()}. The left and right eye view
+	 * matrices only differ from the Camera one in their x translation, and their projection matrices in their x-z term.
+	 */
+	public void computeStereo() {
+		stereoViewMat[0].set(viewMat);
+		stereoViewMat[1].set(viewMat);
+		stereoProjectionMat[0].set(projectionMat);
+		stereoProjectionMat[1].set(projectionMat);
+		if (type() != Type.PERSPECTIVE)
+			return;
+		float shift = stereoShift();
+		float screenHalfWidth = focusDistance() * frame().scaling().x() * aspectRatio();
+		// the left eye stands at -shift: scene points are shifted by +shift in its coordinate system
+		stereoViewMat[0].mat[12] += shift;
+		stereoViewMat[1].mat[12] -= shift;
+		// glFrustum (r+l)/(r-l) term, with the focus plane window [-w, w] seen from each eye
+		stereoProjectionMat[0].mat[8] = shift / screenHalfWidth;
+		stereoProjectionMat[1].mat[8] = -shift / screenHalfWidth;
+	}
+
+	/**
+	 * Returns the view matrix of the left (if {@code left} is {@code true}) or right eye, as computed by the last
+	 * {@link #computeStereo()}.
+	 */
+	public Mat getStereoView(boolean left) {
+		return stereoViewMat[left ? 0 : 1];
+	}
+
+	/**
+	 * Returns the projection matrix of the left (if {@code left} is {@code true}) or right eye, as computed by the last
+	 * {@link #computeStereo()}.
+	 */
+	public Mat getStereoProjection(boolean left) {
+		return stereoProjectionMat[left ? 0 : 1];
+	}
+
+	/**
+	 * Internal use. Replaces the left and right boundary planes computed by {@link #computeBoundaryEquations(float[][])}
+	 * with those of the convex hull of both eye frustums.
+	 * <p>
+	 * Both eye frustums share the near, far, top and bottom planes. The hull left (resp. right) plane goes through the
+	 * leftmost (resp. rightmost) near plane edge and the leftmost (resp. rightmost) far plane edge of both frustums.
+	 */
+	protected void computeStereoSidePlanes(Vec pos, Vec viewDir, Vec right) {
+		float n = zNear();
+		float f = zFar();
+		float shift = stereoShift();
+		float w = focusDistance() * frame().scaling().x() * aspectRatio();
+		float k = 1 / focusDistance();
+		// eye frustum edges (x coordinate, in the Camera frame) at depth z: -shift + (+-w + shift) * z / focusDistance()
+		// for the left eye, and shift + (+-w - shift) * z / focusDistance() for the right one
+		float minN = Math.min(-shift + (shift - w) * n * k, shift - (shift + w) * n * k);
+		float minF = Math.min(-shift + (shift - w) * f * k, shift - (shift + w) * f * k);
+		float maxN = Math.max(-shift + (shift + w) * n * k, shift + (w - shift) * n * k);
+		float maxF = Math.max(-shift + (shift + w) * f * k, shift + (w - shift) * f * k);
+		// camera frame plane normals are (-(f-n), 0, -(minF-minN)) and (f-n, 0, maxF-maxN), z pointing backwards
+		normal[0] = Vec.add(Vec.multiply(right, -(f - n)), Vec.multiply(viewDir, minF - minN));
+		normal[1] = Vec.add(Vec.multiply(right, f - n), Vec.multiply(viewDir, -(maxF - maxN)));
+		normal[0].normalize();
+		normal[1].normalize();
+		dist[0] = Vec.dot(Vec.add(pos, Vec.add(Vec.multiply(right, minN), Vec.multiply(viewDir, n))), normal[0]);
+		dist[1] = Vec.dot(Vec.add(pos, Vec.add(Vec.multiply(right, maxN), Vec.multiply(viewDir, n))), normal[1]);
+	}
 }
@@ -129,6 +129,9 @@ public abstract class Eye implements Copyable {
 	public long																				lastNonFrameUpdate						= 0;
 	protected long																		lastFPCoeficientsUpdateIssued	= -1;
 
+	// change notification
+	protected FrameChangeBus													changeBus;
+
 	public Eye(AbstractScene scn) {
 		scene = scn;
 
@@ -248,6 +251,8 @@ public abstract class Eye implements Copyable {
 
 	protected void modified() {
 		lastNonFrameUpdate = TimingHandler.frameCount;
+		if (changeBus != null)
+			changeBus.eyeModified(this);
 	}
 
 	/**
@@ -1471,9 +1476,10 @@ public abstract class Eye implements Copyable {
 	 * @see remixlab.dandelion.core.AbstractScene#enableBoundaryEquations()
 	 */
 	public void updateBoundaryEquations() {
-		if (lastUpdate() != lastFPCoeficientsUpdateIssued) {
+		// eye modifications issued later within the same frame should trigger a new update as well
+		if (lastUpdate() >= lastFPCoeficientsUpdateIssued) {
 			computeBoundaryEquations(fpCoefficients);
-			lastFPCoeficientsUpdateIssued = lastUpdate();
+			lastFPCoeficientsUpdateIssued = TimingHandler.frameCount;
 		}
 	}
 
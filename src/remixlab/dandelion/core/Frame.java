@@ -10,9 +10,16 @@
 
 package remixlab.dandelion.core;
 
+import java.nio.FloatBuffer;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import remixlab.dandelion.constraint.*;
 import remixlab.dandelion.geom.Mat;
@@ -235,6 +242,8 @@ public class Frame implements Copyable, Constants {
 
 		protected void modified() {
 			lastUpdate = TimingHandler.frameCount;
+			Frame.this.notifyChangeBus();
+			Frame.this.notifyKeyFrames();
 		}
 
 		public long lastUpdate() {
@@ -323,6 +332,10 @@ public class Frame implements Copyable, Constants {
 	protected AbstractFrameKernel	krnl;
 	protected List<Frame>					linkedFramesList;
 	protected Frame								srcFrame;
+	protected FrameChangeBus			changeBus;
+
+	// keyFrames defined by this frame, lazily created
+	protected List<KeyFrameInterpolator.AbstractKeyFrame>	keyFrames;
 
 	/**
 	 * Convenience constructor that simply calls {@code this(true)}.
@@ -459,6 +472,75 @@ public class Frame implements Copyable, Constants {
 		return kernel().scaling();
 	}
 
+	/**
+	 * Internal use. Reports the modification of this frame (and of the frames linked to it, which share its kernel) to
+	 * their {@link #changeBus()}.
+	 */
+	protected void notifyChangeBus() {
+		if (changeBus != null)
+			changeBus.frameModified(this);
+		// kernels may be modified while the frame is being constructed
+		if (linkedFramesList == null)
+			return;
+		for (int i = 0; i < linkedFramesList.size(); i++)
+			if (linkedFramesList.get(i).changeBus != null)
+				linkedFramesList.get(i).changeBus.frameModified(linkedFramesList.get(i));
+	}
+
+	/**
+	 * Internal use. Reports the modification of this frame (and of the frames linked to it, which share its kernel) to
+	 * the {@link remixlab.dandelion.core.KeyFrameInterpolator} keyFrames it defines, so that their interpolators only
+	 * update the affected part of their paths.
+	 */
+	protected void notifyKeyFrames() {
+		if (keyFrames != null)
+			for (int i = 0; i < keyFrames.size(); i++)
+				keyFrames.get(i).frameModified();
+		if (linkedFramesList == null)
+			return;
+		for (int i = 0; i < linkedFramesList.size(); i++) {
+			List<KeyFrameInterpolator.AbstractKeyFrame> linked = linkedFramesList.get(i).keyFrames;
+			if (linked != null)
+				for (int j = 0; j < linked.size(); j++)
+					linked.get(j).frameModified();
+		}
+	}
+
+	/**
+	 * Internal use. Called by the {@link remixlab.dandelion.core.KeyFrameInterpolator} when {@code keyFrame} (which is
+	 * defined by this frame) is added to its path.
+	 */
+	protected void attachKeyFrame(KeyFrameInterpolator.AbstractKeyFrame keyFrame) {
+		if (keyFrames == null)
+			keyFrames = new ArrayList<KeyFrameInterpolator.AbstractKeyFrame>(1);
+		keyFrames.add(keyFrame);
+	}
+
+	/**
+	 * Internal use. Called by the {@link remixlab.dandelion.core.KeyFrameInterpolator} when {@code keyFrame} is removed
+	 * from its path. KeyFrames are compared by identity.
+	 */
+	protected void detachKeyFrame(KeyFrameInterpolator.AbstractKeyFrame keyFrame) {
+		if (keyFrames == null)
+			return;
+		for (int i = 0; i < keyFrames.size(); i++)
+			if (keyFrames.get(i) == keyFrame) {
+				keyFrames.remove(i);
+				break;
+			}
+		if (keyFrames.isEmpty())
+			keyFrames = null;
+	}
+
+	/**
+	 * Returns the {@link remixlab.dandelion.core.FrameChangeBus} this frame is registered at, or {@code null} (default).
+	 * 
+	 * @see remixlab.dandelion.core.FrameChangeBus#register(Frame)
+	 */
+	public FrameChangeBus changeBus() {
+		return changeBus;
+	}
+
 	/**
 	 * @return the last frame the Frame was updated.
 	 */
@@ -1585,6 +1667,42 @@ public class Frame implements Copyable, Constants {
 			return matrix();
 	}
 
+	/**
+	 * Returns the inverse of the {@link #matrix()}, i.e., the matrix of the transformation from the
+	 * {@link #referenceFrame()} to the Frame coordinate system.
+	 * <p>
+	 * Since the {@link #matrix()} is always affine, it is inverted with
+	 * {@link remixlab.dandelion.geom.Mat#invertRigid(Mat)} when the Frame has no {@link #scaling()} and with
+	 * {@link remixlab.dandelion.geom.Mat#invertAffine(Mat)} otherwise, both much cheaper than a general 4x4 inversion.
+	 * 
+	 * @see #worldInverseMatrix()
+	 * @see #inverse()
+	 */
+	public final Mat inverseMatrix() {
+		return invertFrameMatrix(matrix(), scaling());
+	}
+
+	/**
+	 * Returns the inverse of the {@link #worldMatrix()}, i.e., the matrix of the transformation from the world to the
+	 * Frame coordinate system. See {@link #inverseMatrix()} for details.
+	 * 
+	 * @see #worldInverse()
+	 */
+	public final Mat worldInverseMatrix() {
+		return invertFrameMatrix(worldMatrix(), scaling());
+	}
+
+	/**
+	 * Internal use. Inverts the (affine) frame matrix {@code m} in place.
+	 */
+	protected static Mat invertFrameMatrix(Mat m, Vec scl) {
+		if (scl.x() == 1 && scl.y() == 1 && scl.z() == 1)
+			m.invertRigid(m);
+		else
+			m.invertAffine(m);
+		return m;
+	}
+
 	/**
 	 * Convenience function that simply calls {@code fromMatrix(pM, new Vec(1, 1, 1))}.
 	 * 
@@ -1819,6 +1937,8 @@ public class Frame implements Copyable, Constants {
 	 * instead of coordinates.
 	 */
 	public final Vec coordinatesOf(Vec src, boolean improper) {
+		if (is2D())
+			return coordinatesOf2D(src, improper, true);
 		if (referenceFrame() != null)
 			return localCoordinatesOf(referenceFrame().coordinatesOf(src), improper);
 		else
@@ -1869,6 +1989,8 @@ public class Frame implements Copyable, Constants {
 	 * vectors instead of coordinates.
 	 */
 	public final Vec inverseCoordinatesOf(Vec src, boolean improper) {
+		if (is2D())
+			return inverseCoordinatesOf2D(src, improper, true);
 		Frame fr = this;
 		Vec res = src;
 		while (fr != null) {
@@ -1896,6 +2018,8 @@ public class Frame implements Copyable, Constants {
 	 * coordinates instead of vectors (here only the rotational part of the transformation is taken into account).
 	 */
 	public final Vec transformOf(Vec src, boolean improper) {
+		if (is2D())
+			return coordinatesOf2D(src, improper, false);
 		if (referenceFrame() != null)
 			return localTransformOf(referenceFrame().transformOf(src), improper);
 		else
@@ -1921,6 +2045,8 @@ public class Frame implements Copyable, Constants {
 	 * coordinates instead of vectors.
 	 */
 	public final Vec inverseTransformOf(Vec src, boolean improper) {
+		if (is2D())
+			return inverseCoordinatesOf2D(src, improper, false);
 		Frame fr = this;
 		Vec res = src;
 		while (fr != null) {
@@ -1981,4 +2107,355 @@ public class Frame implements Copyable, Constants {
 		else
 			return rotation().rotate(src);
 	}
+
+	// BULK CONVERSIONS
+
+	protected static int						parallelBulkThreshold;
+	private static ExecutorService	bulkExecutor;
+
+	/**
+	 * Returns the number of points from which the bulk conversions (e.g., {@link #coordinatesOf(float[], float[], int, int)})
+	 * are split among all the available processors. Default is 0, meaning they always run in the calling thread.
+	 * 
+	 * @see #setParallelBulkThreshold(int)
+	 */
+	public static int parallelBulkThreshold() {
+		return parallelBulkThreshold;
+	}
+
+	/**
+	 * Sets the {@link #parallelBulkThreshold()}. Use a large value (e.g., {@code 50000}) since splitting small inputs
+	 * among threads is slower than converting them in place. Set it to 0 to disable parallel conversions.
+	 */
+	public static void setParallelBulkThreshold(int points) {
+		parallelBulkThreshold = Math.max(points, 0);
+	}
+
+	/**
+	 * Converts {@code count} points defined in the world coordinate system into the Frame coordinate system (see
+	 * {@link #coordinatesOf(Vec)}).
+	 * <p>
+	 * Points are packed as consecutive {@code (x, y, z)} triples: the first one is read from {@code src[offset]} and
+	 * written to {@code dst[offset]}. {@code src} and {@code dst} may be the same array. The {@link #referenceFrame()}
+	 * chain is composed into a single matrix once, and no objects are allocated per point. In 2D the z coordinate is left
+	 * untouched.
+	 * 
+	 * @see #parallelBulkThreshold()
+	 */
+	public final void coordinatesOf(float[] src, float[] dst, int offset, int count) {
+		convert(bulkMatrix(true, true), true, src, dst, offset, count);
+	}
+
+	/**
+	 * Converts {@code count} points defined in the Frame coordinate system into the world coordinate system (see
+	 * {@link #inverseCoordinatesOf(Vec)}). See {@link #coordinatesOf(float[], float[], int, int)} for details.
+	 */
+	public final void inverseCoordinatesOf(float[] src, float[] dst, int offset, int count) {
+		convert(bulkMatrix(true, false), true, src, dst, offset, count);
+	}
+
+	/**
+	 * Converts {@code count} vectors defined in the world coordinate system into the Frame coordinate system (see
+	 * {@link #transformOf(Vec)}). See {@link #coordinatesOf(float[], float[], int, int)} for details.
+	 */
+	public final void transformOf(float[] src, float[] dst, int offset, int count) {
+		convert(bulkMatrix(true, true), false, src, dst, offset, count);
+	}
+
+	/**
+	 * Converts {@code count} vectors defined in the Frame coordinate system into the world coordinate system (see
+	 * {@link #inverseTransformOf(Vec)}). See {@link #coordinatesOf(float[], float[], int, int)} for details.
+	 */
+	public final void inverseTransformOf(float[] src, float[] dst, int offset, int count) {
+		convert(bulkMatrix(true, false), false, src, dst, offset, count);
+	}
+
+	/**
+	 * Converts {@code count} points defined in the {@link #referenceFrame()} coordinate system into the Frame coordinate
+	 * system (see {@link #localCoordinatesOf(Vec)}). See {@link #coordinatesOf(float[], float[], int, int)} for details.
+	 */
+	public final void localCoordinatesOf(float[] src, float[] dst, int offset, int count) {
+		convert(bulkMatrix(false, true), true, src, dst, offset, count);
+	}
+
+	/**
+	 * Converts {@code count} points defined in the Frame coordinate system into the {@link #referenceFrame()} coordinate
+	 * system (see {@link #localInverseCoordinatesOf(Vec)}). See {@link #coordinatesOf(float[], float[], int, int)} for
+	 * details.
+	 */
+	public final void localInverseCoordinatesOf(float[] src, float[] dst, int offset, int count) {
+		convert(bulkMatrix(false, false), true, src, dst, offset, count);
+	}
+
+	/**
+	 * Converts {@code count} vectors defined in the {@link #referenceFrame()} coordinate system into the Frame coordinate
+	 * system (see {@link #localTransformOf(Vec)}). See {@link #coordinatesOf(float[], float[], int, int)} for details.
+	 */
+	public final void localTransformOf(float[] src, float[] dst, int offset, int count) {
+		convert(bulkMatrix(false, true), false, src, dst, offset, count);
+	}
+
+	/**
+	 * Converts {@code count} vectors defined in the Frame coordinate system into the {@link #referenceFrame()} coordinate
+	 * system (see {@link #localInverseTransformOf(Vec)}). See {@link #coordinatesOf(float[], float[], int, int)} for
+	 * details.
+	 */
+	public final void localInverseTransformOf(float[] src, float[] dst, int offset, int count) {
+		convert(bulkMatrix(false, false), false, src, dst, offset, count);
+	}
+
+	/**
+	 * Same as {@link #coordinatesOf(float[], float[], int, int)}, but reading the points from the {@code src} current
+	 * position and writing them at the {@code dst} current position. Both positions are advanced by {@code 3 * count}.
+	 * {@code src} and {@code dst} may be the same buffer.
+	 */
+	public final void coordinatesOf(FloatBuffer src, FloatBuffer dst, int count) {
+		convert(bulkMatrix(true, true), true, src, dst, count);
+	}
+
+	/**
+	 * {@code FloatBuffer} version of {@link #inverseCoordinatesOf(float[], float[], int, int)}. See
+	 * {@link #coordinatesOf(FloatBuffer, FloatBuffer, int)} for details.
+	 */
+	public final void inverseCoordinatesOf(FloatBuffer src, FloatBuffer dst, int count) {
+		convert(bulkMatrix(true, false), true, src, dst, count);
+	}
+
+	/**
+	 * {@code FloatBuffer} version of {@link #transformOf(float[], float[], int, int)}. See
+	 * {@link #coordinatesOf(FloatBuffer, FloatBuffer, int)} for details.
+	 */
+	public final void transformOf(FloatBuffer src, FloatBuffer dst, int count) {
+		convert(bulkMatrix(true, true), false, src, dst, count);
+	}
+
+	/**
+	 * {@code FloatBuffer} version of {@link #inverseTransformOf(float[], float[], int, int)}. See
+	 * {@link #coordinatesOf(FloatBuffer, FloatBuffer, int)} for details.
+	 */
+	public final void inverseTransformOf(FloatBuffer src, FloatBuffer dst, int count) {
+		convert(bulkMatrix(true, false), false, src, dst, count);
+	}
+
+	/**
+	 * Internal use. Returns the local (or {@code world}) Frame transformation matrix, or its {@code inverse}. The world
+	 * matrix is composed along the {@link #referenceFrame()} chain (see
+	 * {@link remixlab.dandelion.core.WorldMatrixBatch#localMatrix(Frame, float[])}).
+	 */
+	protected final Mat bulkMatrix(boolean world, boolean inverse) {
+		Mat m = new Mat();
+		WorldMatrixBatch.localMatrix(this, m.mat);
+		if (world && referenceFrame() != null) {
+			Mat local = new Mat();
+			Mat tmp = new Mat();
+			for (Frame fr = referenceFrame(); fr != null; fr = fr.referenceFrame()) {
+				WorldMatrixBatch.localMatrix(fr, local.mat);
+				Mat.multiplyAffine(local, m, tmp);
+				Mat swap = m;
+				m = tmp;
+				tmp = swap;
+			}
+		}
+		if (inverse)
+			m.invertAffine(m);
+		return m;
+	}
+
+	/**
+	 * Internal use. Applies {@code m} to {@code count} points (or vectors, if {@code point} is {@code false}), splitting
+	 * the work among the available processors when {@code count} reaches the {@link #parallelBulkThreshold()}.
+	 */
+	protected static void convert(final Mat m, final boolean point, final float[] src, final float[] dst,
+			final int offset, int count) {
+		if (offset < 0 || count < 0 || offset + 3 * count > src.length || offset + 3 * count > dst.length)
+			throw new RuntimeException("Bulk conversion out of bounds: " + count + " points from offset " + offset);
+		if (parallelBulkThreshold == 0 || count < parallelBulkThreshold) {
+			convert(m.mat, point, src, dst, offset, offset + 3 * count);
+			return;
+		}
+		List<Callable<Object>> tasks = new ArrayList<Callable<Object>>();
+		int chunks = Runtime.getRuntime().availableProcessors();
+		int chunk = (count + chunks - 1) / chunks;
+		for (int first = 0; first < count; first += chunk) {
+			final int from = offset + 3 * first;
+			final int to = offset + 3 * Math.min(first + chunk, count);
+			tasks.add(new Callable<Object>() {
+				@Override
+				public Object call() {
+					convert(m.mat, point, src, dst, from, to);
+					return null;
+				}
+			});
+		}
+		runAll(tasks);
+	}
+
+	/**
+	 * Internal use. {@code FloatBuffer} version of {@link #convert(Mat, boolean, float[], float[], int, int)}.
+	 */
+	protected static void convert(final Mat m, final boolean point, final FloatBuffer src, final FloatBuffer dst,
+			int count) {
+		if (src.remaining() < 3 * count || dst.remaining() < 3 * count)
+			throw new RuntimeException("Bulk conversion out of bounds: " + count + " points needed");
+		final int srcStart = src.position();
+		final int dstStart = dst.position();
+		if (parallelBulkThreshold == 0 || count < parallelBulkThreshold)
+			convert(m.mat, point, src, srcStart, dst, dstStart, 0, count);
+		else {
+			List<Callable<Object>> tasks = new ArrayList<Callable<Object>>();
+			int chunks = Runtime.getRuntime().availableProcessors();
+			int chunk = (count + chunks - 1) / chunks;
+			for (int first = 0; first < count; first += chunk) {
+				final int from = first;
+				final int to = Math.min(first + chunk, count);
+				tasks.add(new Callable<Object>() {
+					@Override
+					public Object call() {
+						convert(m.mat, point, src, srcStart, dst, dstStart, from, to);
+						return null;
+					}
+				});
+			}
+			runAll(tasks);
+		}
+		src.position(srcStart + 3 * count);
+		if (dst != src)
+			dst.position(dstStart + 3 * count);
+	}
+
+	private static void convert(float[] m, boolean point, float[] src, float[] dst, int from, int to) {
+		float m0 = m[0], m1 = m[1], m2 = m[2], m4 = m[4], m5 = m[5], m6 = m[6], m8 = m[8], m9 = m[9], m10 = m[10];
+		float m12 = point ? m[12] : 0, m13 = point ? m[13] : 0, m14 = point ? m[14] : 0;
+		for (int i = from; i < to; i += 3) {
+			float x = src[i], y = src[i + 1], z = src[i + 2];
+			dst[i] = m0 * x + m4 * y + m8 * z + m12;
+			dst[i + 1] = m1 * x + m5 * y + m9 * z + m13;
+			dst[i + 2] = m2 * x + m6 * y + m10 * z + m14;
+		}
+	}
+
+	private static void convert(float[] m, boolean point, FloatBuffer src, int srcStart, FloatBuffer dst, int dstStart,
+			int from, int to) {
+		float m0 = m[0], m1 = m[1], m2 = m[2], m4 = m[4], m5 = m[5], m6 = m[6], m8 = m[8], m9 = m[9], m10 = m[10];
+		float m12 = point ? m[12] : 0, m13 = point ? m[13] : 0, m14 = point ? m[14] : 0;
+		for (int p = from; p < to; p++) {
+			int i = srcStart + 3 * p, j = dstStart + 3 * p;
+			float x = src.get(i), y = src.get(i + 1), z = src.get(i + 2);
+			dst.put(j, m0 * x + m4 * y + m8 * z + m12);
+			dst.put(j + 1, m1 * x + m5 * y + m9 * z + m13);
+			dst.put(j + 2, m2 * x + m6 * y + m10 * z + m14);
+		}
+	}
+
+	private static void runAll(List<Callable<Object>> tasks) {
+		synchronized (Frame.class) {
+			if (bulkExecutor == null)
+				bulkExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new ThreadFactory() {
+					@Override
+					public Thread newThread(Runnable r) {
+						Thread t = new Thread(r, "dandelion-bulk");
+						t.setDaemon(true);
+						return t;
+					}
+				});
+		}
+		try {
+			for (Future<Object> f : bulkExecutor.invokeAll(tasks))
+				f.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Bulk conversion interrupted", e);
+		} catch (ExecutionException e) {
+			throw new RuntimeException("Bulk conversion failed", e.getCause());
+		}
+	}
+
+	// 2D fast path
+
+	/**
+	 * Internal use. 2D version of {@link #coordinatesOf(Vec, boolean)} (or {@link #transformOf(Vec, boolean)} when
+	 * {@code point} is {@code false}).
+	 * <p>
+	 * The {@link #referenceFrame()} chain is composed into a single 3x2 affine matrix (the upper 2x2 rotation times
+	 * scaling matrix plus the translation), which is then inverted and applied to {@code src} together with the local
+	 * Frame transformation. Uses the cached {@link remixlab.dandelion.geom.Rot#cos()} and
+	 * {@link remixlab.dandelion.geom.Rot#sin()} and no intermediate vectors.
+	 */
+	protected final Vec coordinatesOf2D(Vec src, boolean improper, boolean point) {
+		float x = src.x(), y = src.y();
+		if (referenceFrame() != null) {
+			// reference frame world matrix: [a00 a01 tx; a10 a11 ty]
+			float a00 = 1, a01 = 0, a10 = 0, a11 = 1, tx = 0, ty = 0;
+			for (Frame fr = referenceFrame(); fr != null; fr = fr.referenceFrame()) {
+				Rot r = (Rot) fr.rotation();
+				Vec s = fr.scaling();
+				float m00 = r.cos() * s.x(), m01 = -r.sin() * s.y(), m10 = r.sin() * s.x(), m11 = r.cos() * s.y();
+				float n00 = m00 * a00 + m01 * a10;
+				float n01 = m00 * a01 + m01 * a11;
+				float n10 = m10 * a00 + m11 * a10;
+				float n11 = m10 * a01 + m11 * a11;
+				float ntx = m00 * tx + m01 * ty + fr.translation().x();
+				float nty = m10 * tx + m11 * ty + fr.translation().y();
+				a00 = n00;
+				a01 = n01;
+				a10 = n10;
+				a11 = n11;
+				tx = ntx;
+				ty = nty;
+			}
+			float det = a00 * a11 - a01 * a10;
+			if (det == 0)
+				return point ? localCoordinatesOf(referenceFrame().coordinatesOf(src), improper) : localTransformOf(
+						referenceFrame().transformOf(src), improper);
+			if (point) {
+				x -= tx;
+				y -= ty;
+			}
+			float lx = (a11 * x - a01 * y) / det;
+			float ly = (a00 * y - a10 * x) / det;
+			x = lx;
+			y = ly;
+		}
+		// local transformation
+		if (point) {
+			x -= translation().x();
+			y -= translation().y();
+		}
+		Rot r = (Rot) rotation();
+		float c = r.cos(), sn = r.sin();
+		float lx = c * x + sn * y;
+		float ly = c * y - sn * x;
+		if (improper) {
+			lx /= scaling().x();
+			ly /= scaling().y();
+		}
+		return new Vec(lx, ly);
+	}
+
+	/**
+	 * Internal use. 2D version of {@link #inverseCoordinatesOf(Vec, boolean)} (or
+	 * {@link #inverseTransformOf(Vec, boolean)} when {@code point} is {@code false}), which walks up the
+	 * {@link #referenceFrame()} chain using the cached {@link remixlab.dandelion.geom.Rot#cos()} and
+	 * {@link remixlab.dandelion.geom.Rot#sin()} and no intermediate vectors.
+	 */
+	protected final Vec inverseCoordinatesOf2D(Vec src, boolean improper, boolean point) {
+		float x = src.x(), y = src.y();
+		for (Frame fr = this; fr != null; fr = fr.referenceFrame()) {
+			if (improper) {
+				x *= fr.scaling().x();
+				y *= fr.scaling().y();
+			}
+			Rot r = (Rot) fr.rotation();
+			float c = r.cos(), sn = r.sin();
+			float rx = c * x - sn * y;
+			float ry = sn * x + c * y;
+			x = rx;
+			y = ry;
+			if (point) {
+				x += fr.translation().x();
+				y += fr.translation().y();
+			}
+		}
+		return new Vec(x, y);
+	}
 }
@@ -0,0 +1,248 @@
+/*********************************************************************************
+ * dandelion_tree
+ * Copyright (c) 2014 National University of Colombia, https://github.com/remixlab
+ * @author Jean Pierre Charalambos, http://otrolado.info/
+ *
+ * All rights reserved. Library that eases the creation of interactive
+ * scenes, released under the terms of the GNU Public License v3.0
+ * which is available at http://www.gnu.org/licenses/gpl.html
+ *********************************************************************************/
+
+package remixlab.dandelion.core;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * Collects the {@link remixlab.dandelion.core.Frame}s (and the {@link remixlab.dandelion.core.Eye}) modified along a
+ * frame and dispatches them, all at once, to the registered {@link remixlab.dandelion.core.FrameObserver}s.
+ * <p>
+ * Frame change notification is opt-in: only frames registered with {@link #register(Frame)} (and the eye registered
+ * with {@link #register(Eye)}) are reported. A modified frame is reported together with all its registered descendants,
+ * i.e., registered frames having it somewhere in their {@link remixlab.dandelion.core.Frame#referenceFrame()} chain,
+ * since their world transformation changed too.
+ * <p>
+ * The {@link remixlab.dandelion.core.AbstractScene#frameChangeBus()} is dispatched automatically at the end of
+ * {@link remixlab.dandelion.core.AbstractScene#preDraw()}. Frames are compared by identity.
+ * <p>
+ * <b>Attention:</b> Only registered frames notify the bus. If a (non-registered) frame standing in between two
+ * registered ones in a reference frame chain is modified, the descendant won't be reported. Register it as well in that
+ * case.
+ */
+public class FrameChangeBus {
+	protected List<FrameObserver>							observers;
+	protected IdentityHashMap<Frame, Frame>				parent;
+	protected IdentityHashMap<Frame, List<Frame>>	children;
+	protected Eye															eye;
+	protected boolean													eyeModified;
+
+	// dirty set: identity map for O(1) membership, list for ordering
+	protected IdentityHashMap<Frame, Boolean>	dirtySet;
+	protected List<Frame>											dirtyList;
+	protected IdentityHashMap<Frame, Boolean>	dispatchSet;
+	protected List<Frame>											dispatchList;
+
+	public FrameChangeBus() {
+		observers = new ArrayList<FrameObserver>();
+		parent = new IdentityHashMap<Frame, Frame>();
+		children = new IdentityHashMap<Frame, List<Frame>>();
+		dirtySet = new IdentityHashMap<Frame, Boolean>();
+		dirtyList = new ArrayList<Frame>();
+		dispatchSet = new IdentityHashMap<Frame, Boolean>();
+		dispatchList = new ArrayList<Frame>();
+	}
+
+	/**
+	 * Adds {@code observer} to the bus. Does nothing if it was already added.
+	 */
+	public void addObserver(FrameObserver observer) {
+		if (!observers.contains(observer))
+			observers.add(observer);
+	}
+
+	/**
+	 * Removes {@code observer} from the bus.
+	 */
+	public boolean removeObserver(FrameObserver observer) {
+		return observers.remove(observer);
+	}
+
+	/**
+	 * Registers {@code frame} so that its modifications get reported to the observers. A frame can only be registered in
+	 * a single bus at a time.
+	 */
+	public void register(Frame frame) {
+		if (frame == null || isRegistered(frame))
+			return;
+		if (frame.changeBus != null)
+			frame.changeBus.unregister(frame);
+		frame.changeBus = this;
+		parent.put(frame, null);
+		children.put(frame, new ArrayList<Frame>());
+		updateParent(frame);
+		// adopt already registered children
+		for (Frame f : new ArrayList<Frame>(parent.keySet()))
+			if (f != frame && f.referenceFrame() != null && nearestRegisteredAncestor(f) == frame)
+				updateParent(f);
+		markModified(frame);
+	}
+
+	/**
+	 * Unregisters {@code frame}.
+	 */
+	public void unregister(Frame frame) {
+		if (!isRegistered(frame))
+			return;
+		frame.changeBus = null;
+		Frame p = parent.remove(frame);
+		if (p != null)
+			removeFrom(children.get(p), frame);
+		List<Frame> orphans = children.remove(frame);
+		for (Frame child : orphans) {
+			parent.put(child, null);
+			updateParent(child);
+		}
+		if (dirtySet.remove(frame) != null)
+			removeFrom(dirtyList, frame);
+	}
+
+	/**
+	 * Returns true if {@code frame} is registered at this bus.
+	 */
+	public boolean isRegistered(Frame frame) {
+		return frame != null && parent.containsKey(frame);
+	}
+
+	/**
+	 * Registers the {@code eye} (and its {@link remixlab.dandelion.core.Eye#frame()}) so that its modifications get
+	 * reported to the observers through {@link remixlab.dandelion.core.FrameObserver#eyeChanged(Eye)}. Note that the eye
+	 * should be registered again if its frame is replaced.
+	 */
+	public void register(Eye eye) {
+		if (this.eye != null)
+			this.eye.changeBus = null;
+		this.eye = eye;
+		if (eye != null) {
+			eye.changeBus = this;
+			register(eye.frame());
+			eyeModified = true;
+		}
+	}
+
+	/**
+	 * Returns the registered eye, if any.
+	 */
+	public Eye eye() {
+		return eye;
+	}
+
+	/**
+	 * Internal use. Called by the frame kernel each time a registered frame is modified.
+	 */
+	protected void frameModified(Frame frame) {
+		if (!isRegistered(frame))
+			return;
+		// setReferenceFrame() calls modified() as well, so hierarchy changes are caught here
+		if (parent.get(frame) != nearestRegisteredAncestor(frame))
+			updateParent(frame);
+		markModified(frame);
+	}
+
+	/**
+	 * Internal use. Called by the registered eye each time one of its (non-frame) parameters is modified.
+	 */
+	protected void eyeModified(Eye e) {
+		if (e == eye)
+			eyeModified = true;
+	}
+
+	/**
+	 * Returns the number of registered frames modified since the last {@link #dispatch()}, not counting their
+	 * descendants.
+	 */
+	public int pendingCount() {
+		return dirtyList.size();
+	}
+
+	/**
+	 * Reports all the frames modified since the last call (together with their registered descendants) to the
+	 * observers, and clears the dirty set. Frames modified by the observers themselves are reported in the next call.
+	 */
+	public void dispatch() {
+		boolean eyeChanged = eyeModified;
+		if (!eyeChanged && eye != null)
+			eyeChanged = dirtySet.containsKey(eye.frame());
+		eyeModified = false;
+		if (dirtyList.isEmpty() && !eyeChanged)
+			return;
+
+		// swap the dirty set with the dispatch one so that observers may safely modify frames
+		dispatchSet.clear();
+		dispatchList.clear();
+		IdentityHashMap<Frame, Boolean> set = dirtySet;
+		List<Frame> list = dirtyList;
+		dirtySet = dispatchSet;
+		dirtyList = dispatchList;
+		dispatchSet = set;
+		dispatchList = list;
+
+		// add descendants, breadth first
+		for (int i = 0; i < dispatchList.size(); i++) {
+			List<Frame> c = children.get(dispatchList.get(i));
+			if (c != null)
+				for (int j = 0; j < c.size(); j++)
+					if (dispatchSet.put(c.get(j), Boolean.TRUE) == null)
+						dispatchList.add(c.get(j));
+		}
+
+		for (int i = 0; i < observers.size(); i++) {
+			if (eyeChanged)
+				observers.get(i).eyeChanged(eye);
+			if (!dispatchList.isEmpty())
+				observers.get(i).framesChanged(dispatchList);
+		}
+	}
+
+	/**
+	 * Internal use. Adds {@code frame} to the dirty set.
+	 */
+	protected void markModified(Frame frame) {
+		if (dirtySet.put(frame, Boolean.TRUE) == null)
+			dirtyList.add(frame);
+	}
+
+	/**
+	 * Internal use. Returns the first registered frame found along the {@code frame} reference frame chain, or null.
+	 */
+	protected Frame nearestRegisteredAncestor(Frame frame) {
+		Frame f = frame.referenceFrame();
+		while (f != null && !parent.containsKey(f))
+			f = f.referenceFrame();
+		return f;
+	}
+
+	/**
+	 * Internal use. Updates the {@code frame} registered parent, i.e., its {@link #nearestRegisteredAncestor(Frame)}.
+	 */
+	protected void updateParent(Frame frame) {
+		Frame old = parent.get(frame);
+		if (old != null)
+			removeFrom(children.get(old), frame);
+		Frame p = nearestRegisteredAncestor(frame);
+		parent.put(frame, p);
+		if (p != null)
+			children.get(p).add(frame);
+	}
+
+	/**
+	 * Internal use. Removes {@code frame} from {@code list}, comparing by identity (Frame.equals compares values).
+	 */
+	protected static void removeFrom(List<Frame> list, Frame frame) {
+		for (int i = 0; i < list.size(); i++)
+			if (list.get(i) == frame) {
+				list.remove(i);
+				return;
+			}
+	}
+}
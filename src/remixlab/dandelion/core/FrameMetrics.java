@@ -0,0 +1,387 @@
+/*********************************************************************************
+ * dandelion_tree
+ * Copyright (c) 2014 National University of Colombia, https://github.com/remixlab
+ * @author Jean Pierre Charalambos, http://otrolado.info/
+ *
+ * All rights reserved. Library that eases the creation of interactive
+ * scenes, released under the terms of the GNU Public License v3.0
+ * which is available at http://www.gnu.org/licenses/gpl.html
+ *********************************************************************************/
+
+package remixlab.dandelion.core;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+/**
+ * Per phase frame timing metrics of an {@link remixlab.dandelion.core.AbstractScene}, see
+ * {@link remixlab.dandelion.core.AbstractScene#metrics()}.
+ * <p>
+ * Each {@link Phase} of {@link remixlab.dandelion.core.AbstractScene#preDraw()} and
+ * {@link remixlab.dandelion.core.AbstractScene#postDraw()} is timed with {@code System.nanoTime()}, and the last
+ * {@link #windowSize()} samples of each phase are kept in a ring buffer, from which rolling percentiles (e.g.,
+ * {@link #p50(Phase)}, {@link #p95(Phase)} and {@link #p99(Phase)}) are computed on demand. Recording a sample is just
+ * an array store, so the metrics may be left enabled in production.
+ * <p>
+ * Once per frame the number of registered timing tasks, animators, grabbers and queued event tuples are sampled as
+ * well, together with the bytes allocated by the drawing thread along the previous frame. The allocation counter is
+ * read (through reflection) from the {@code com.sun.management.ThreadMXBean}, which isn't available on every platform
+ * (e.g., Android): {@link #allocatedBytes()} returns -1 in that case. The bytes allocated by the reflective call itself
+ * (e.g., the boxed result) are measured once, when the class is loaded, and subtracted from each sample.
+ * <p>
+ * Percentiles are given in [0..100], as in {@link remixlab.bias.core.LatencyTracker.Histogram#percentile(float)}.
+ */
+public class FrameMetrics {
+	/**
+	 * Timed phases. {@link #FRAME} is the time elapsed between two consecutive
+	 * {@link remixlab.dandelion.core.AbstractScene#preDraw()} calls.
+	 */
+	public enum Phase {
+		BIND, BOUNDARY_EQUATIONS, CULLING, CHANGE_BUS, PRE_DRAW, TIMERS, INPUT, PROSCENIUM, DRAW_HANDLER, VISUAL_HINTS,
+		POST_DRAW, FRAME
+	};
+
+	protected AbstractScene		scene;
+	protected boolean					enabled;
+	protected int							windowSize;
+	protected long[][]				samples;
+	protected long[]					sampleCount;
+	protected long[]					sampleMax;
+	protected long[]					sampleSum;
+	protected long						lastFrameStart;
+
+	// allocated bytes per frame share the ring buffers, after the phases
+	protected static final int	ALLOCATION	= Phase.values().length;
+
+	// per frame counters
+	protected int							timingTasks, animators, grabbers, queuedTuples, maxQueuedTuples;
+	protected long						lastAllocated		= -1;
+	protected long						allocatedBytes	= -1;
+
+	// com.sun.management.ThreadMXBean.getCurrentThreadAllocatedBytes() or getThreadAllocatedBytes(long), if available
+	private static Object			threadBean;
+	private static Method			allocatedBytesMethod;
+	private static boolean		currentThreadMethod;
+	// bytes allocated by a threadAllocatedBytes() call
+	private static long				sampleCost;
+
+	static {
+		try {
+			Object bean = Class.forName("java.lang.management.ManagementFactory").getMethod("getThreadMXBean")
+					.invoke(null);
+			Class<?> sunBean = Class.forName("com.sun.management.ThreadMXBean");
+			if (sunBean.isInstance(bean)) {
+				Method method;
+				try {
+					// faster, but only available since Java 14
+					method = sunBean.getMethod("getCurrentThreadAllocatedBytes");
+					method.invoke(bean);
+					currentThreadMethod = true;
+				} catch (Throwable e) {
+					method = sunBean.getMethod("getThreadAllocatedBytes", long.class);
+					method.invoke(bean, Thread.currentThread().getId());
+					currentThreadMethod = false;
+				}
+				threadBean = bean;
+				allocatedBytesMethod = method;
+				sampleCost = measureSampleCost();
+			}
+		} catch (Throwable e) {
+			// not available, e.g., on Android
+			threadBean = null;
+			allocatedBytesMethod = null;
+		}
+	}
+
+	public FrameMetrics(AbstractScene scn) {
+		scene = scn;
+		enabled = true;
+		setWindowSize(256);
+	}
+
+	/**
+	 * Returns {@code true} if the metrics are being recorded. Default is {@code true}.
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Enables or disables the metrics recording according to {@code flag}.
+	 */
+	public void enable(boolean flag) {
+		enabled = flag;
+		lastFrameStart = 0;
+		lastAllocated = -1;
+	}
+
+	/**
+	 * Returns the number of samples per phase the rolling percentiles are computed from. Default is 256.
+	 */
+	public int windowSize() {
+		return windowSize;
+	}
+
+	/**
+	 * Sets the {@link #windowSize()} and {@link #reset()} the metrics.
+	 */
+	public void setWindowSize(int size) {
+		if (size <= 0) {
+			System.out.println("Warning: metrics window size should be positive - Ignoring value");
+			return;
+		}
+		windowSize = size;
+		samples = new long[ALLOCATION + 1][size];
+		sampleCount = new long[ALLOCATION + 1];
+		sampleMax = new long[ALLOCATION + 1];
+		sampleSum = new long[ALLOCATION + 1];
+		reset();
+	}
+
+	/**
+	 * Clears all the recorded samples.
+	 */
+	public void reset() {
+		Arrays.fill(sampleCount, 0);
+		Arrays.fill(sampleMax, 0);
+		Arrays.fill(sampleSum, 0);
+		maxQueuedTuples = 0;
+		lastFrameStart = 0;
+	}
+
+	/**
+	 * Returns {@code true} if the allocated bytes per frame can be measured on this platform.
+	 */
+	public static boolean isAllocationCounterAvailable() {
+		return allocatedBytesMethod != null;
+	}
+
+	// 1. Recording
+
+	/**
+	 * Internal use. Records the {@code phase} duration, started at {@code start} (as given by {@code System.nanoTime()}),
+	 * and returns the current time, so that consecutive phases may be chained.
+	 */
+	protected long record(Phase phase, long start) {
+		long now = System.nanoTime();
+		add(phase.ordinal(), now - start);
+		return now;
+	}
+
+	/**
+	 * Internal use. Called at the beginning of {@link remixlab.dandelion.core.AbstractScene#preDraw()}: records the
+	 * {@link Phase#FRAME} time and the bytes allocated since the previous call, and samples the counters. Returns the
+	 * current time.
+	 */
+	protected long beginFrame() {
+		long now = System.nanoTime();
+		if (lastFrameStart != 0)
+			add(Phase.FRAME.ordinal(), now - lastFrameStart);
+		lastFrameStart = now;
+		long allocated = threadAllocatedBytes();
+		if (allocated >= 0 && lastAllocated >= 0) {
+			allocatedBytes = Math.max(allocated - lastAllocated - sampleCost, 0);
+			add(ALLOCATION, allocatedBytes);
+		}
+		lastAllocated = allocated;
+		timingTasks = scene.timingHandler().timerPool().size();
+		animators = scene.timingHandler().animatorPool().size();
+		grabbers = scene.inputHandler().pooledGrabbers();
+		return now;
+	}
+
+	/**
+	 * Internal use. Samples the number of event tuples queued at the {@link remixlab.bias.core.InputHandler}, right
+	 * before they are handled.
+	 */
+	protected void sampleQueue() {
+		queuedTuples = scene.inputHandler().eventTupleQueue().size();
+		maxQueuedTuples = Math.max(maxQueuedTuples, queuedTuples);
+	}
+
+	private void add(int index, long value) {
+		samples[index][(int) (sampleCount[index] % windowSize)] = value;
+		sampleCount[index]++;
+		sampleSum[index] += value;
+		if (value > sampleMax[index])
+			sampleMax[index] = value;
+	}
+
+	/**
+	 * Internal use. Returns the bytes allocated by a {@link #threadAllocatedBytes()} call, once the reflective accessor
+	 * is warmed up (the smallest difference between consecutive calls).
+	 */
+	private static long measureSampleCost() {
+		long cost = Long.MAX_VALUE;
+		long previous = threadAllocatedBytes();
+		for (int i = 0; i < 64; i++) {
+			long current = threadAllocatedBytes();
+			if (current < 0 || previous < 0)
+				return 0;
+			cost = Math.min(cost, current - previous);
+			previous = current;
+		}
+		return Math.max(cost, 0);
+	}
+
+	private static long threadAllocatedBytes() {
+		if (allocatedBytesMethod == null)
+			return -1;
+		try {
+			if (currentThreadMethod)
+				return (Long) allocatedBytesMethod.invoke(threadBean);
+			return (Long) allocatedBytesMethod.invoke(threadBean, Thread.currentThread().getId());
+		} catch (Throwable e) {
+			allocatedBytesMethod = null;
+			return -1;
+		}
+	}
+
+	// 2. Queries
+
+	/**
+	 * Returns the {@code p} percentile (in [0..100]) of the last {@link #windowSize()} {@code phase} durations, in
+	 * nanoseconds, or 0 if no sample has been recorded yet.
+	 */
+	public long percentile(Phase phase, float p) {
+		return percentile(phase.ordinal(), p);
+	}
+
+	/**
+	 * Returns the median of the last {@link #windowSize()} {@code phase} durations, in nanoseconds.
+	 */
+	public long p50(Phase phase) {
+		return percentile(phase, 50);
+	}
+
+	/**
+	 * Returns the 95th percentile of the last {@link #windowSize()} {@code phase} durations, in nanoseconds.
+	 */
+	public long p95(Phase phase) {
+		return percentile(phase, 95);
+	}
+
+	/**
+	 * Returns the 99th percentile of the last {@link #windowSize()} {@code phase} durations, in nanoseconds.
+	 */
+	public long p99(Phase phase) {
+		return percentile(phase, 99);
+	}
+
+	/**
+	 * Returns the last recorded {@code phase} duration, in nanoseconds.
+	 */
+	public long last(Phase phase) {
+		int i = phase.ordinal();
+		return sampleCount[i] == 0 ? 0 : samples[i][(int) ((sampleCount[i] - 1) % windowSize)];
+	}
+
+	/**
+	 * Returns the mean of all the {@code phase} durations recorded since the last {@link #reset()}, in nanoseconds.
+	 */
+	public long mean(Phase phase) {
+		int i = phase.ordinal();
+		return sampleCount[i] == 0 ? 0 : sampleSum[i] / sampleCount[i];
+	}
+
+	/**
+	 * Returns the longest {@code phase} duration recorded since the last {@link #reset()}, in nanoseconds.
+	 */
+	public long max(Phase phase) {
+		return sampleMax[phase.ordinal()];
+	}
+
+	/**
+	 * Returns the number of {@code phase} durations recorded since the last {@link #reset()}.
+	 */
+	public long count(Phase phase) {
+		return sampleCount[phase.ordinal()];
+	}
+
+	/**
+	 * Returns the number of bytes allocated by the drawing thread along the previous frame, or -1 if it
+	 * {@link #isAllocationCounterAvailable()} isn't.
+	 */
+	public long allocatedBytes() {
+		return allocatedBytes;
+	}
+
+	/**
+	 * Returns the {@code p} percentile (in [0..100]) of the last {@link #windowSize()} {@link #allocatedBytes()} values, or
+	 * 0 if none has been recorded.
+	 */
+	public long allocatedBytesPercentile(float p) {
+		return percentile(ALLOCATION, p);
+	}
+
+	/**
+	 * Returns the number of registered timing tasks, sampled at the beginning of the current frame.
+	 */
+	public int timingTasks() {
+		return timingTasks;
+	}
+
+	/**
+	 * Returns the number of registered animators, sampled at the beginning of the current frame.
+	 */
+	public int animators() {
+		return animators;
+	}
+
+	/**
+	 * Returns the number of grabbers in the agent pools (see
+	 * {@link remixlab.bias.core.InputHandler#pooledGrabbers()}), sampled at the beginning of the current frame.
+	 */
+	public int grabbers() {
+		return grabbers;
+	}
+
+	/**
+	 * Returns the number of queued event tuples, sampled right before the input handler processed them.
+	 */
+	public int queuedTuples() {
+		return queuedTuples;
+	}
+
+	/**
+	 * Returns the maximum of {@link #queuedTuples()} since the last {@link #reset()}.
+	 */
+	public int maxQueuedTuples() {
+		return maxQueuedTuples;
+	}
+
+	/**
+	 * Returns a description of the metrics as a String: p50, p95, p99 and max durations (in microseconds) of each phase,
+	 * followed by the counters.
+	 */
+	public String info() {
+		StringBuilder description = new StringBuilder();
+		description.append("Frame metrics (us: p50 p95 p99 max)\n");
+		for (Phase phase : Phase.values())
+			if (count(phase) > 0)
+				description.append(phase).append(": ").append(p50(phase) / 1000).append(' ').append(p95(phase) / 1000)
+						.append(' ').append(p99(phase) / 1000).append(' ').append(max(phase) / 1000).append('\n');
+		description.append("timing tasks: ").append(timingTasks).append(", animators: ").append(animators)
+				.append(", grabbers: ").append(grabbers).append(", queued tuples: ").append(queuedTuples).append(" (max ")
+				.append(maxQueuedTuples).append(")\n");
+		description.append("allocated bytes per frame: ");
+		if (isAllocationCounterAvailable())
+			description.append(allocatedBytes).append(" (p95 ").append(allocatedBytesPercentile(95)).append(")\n");
+		else
+			description.append("not available\n");
+		return description.toString();
+	}
+
+	/**
+	 * Internal use. Returns the {@code p} percentile (in [0..100]) of the samples at {@code index}.
+	 */
+	protected long percentile(int index, float p) {
+		int n = (int) Math.min(sampleCount[index], windowSize);
+		if (n == 0)
+			return 0;
+		long[] sorted = Arrays.copyOf(samples[index], n);
+		Arrays.sort(sorted);
+		int rank = (int) Math.ceil(Math.min(Math.max(p, 0), 100) / 100 * n) - 1;
+		return sorted[Math.max(rank, 0)];
+	}
+}
@@ -0,0 +1,38 @@
+/*********************************************************************************
+ * dandelion_tree
+ * Copyright (c) 2014 National University of Colombia, https://github.com/remixlab
+ * @author Jean Pierre Charalambos, http://otrolado.info/
+ *
+ * All rights reserved. Library that eases the creation of interactive
+ * scenes, released under the terms of the GNU Public License v3.0
+ * which is available at http://www.gnu.org/licenses/gpl.html
+ *********************************************************************************/
+
+package remixlab.dandelion.core;
+
+import java.util.List;
+
+/**
+ * Interface for objects that are to be notified about {@link remixlab.dandelion.core.Frame} and
+ * {@link remixlab.dandelion.core.Eye} changes, such as picking indexes, bounding volume trees or path caches.
+ * <p>
+ * Observers should be added to a {@link remixlab.dandelion.core.FrameChangeBus} (see
+ * {@link remixlab.dandelion.core.AbstractScene#frameChangeBus()}), which batches all changes and dispatches them once
+ * per frame, so that observers only need to process the frames that actually changed.
+ */
+public interface FrameObserver {
+	/**
+	 * Called once per frame (from {@link remixlab.dandelion.core.AbstractScene#preDraw()}) with the list of registered
+	 * frames that were modified since the last call, together with their registered descendants (frames defined through
+	 * a {@link remixlab.dandelion.core.Frame#referenceFrame()} chain). Each frame appears only once.
+	 * <p>
+	 * The list is only valid during the call.
+	 */
+	public void framesChanged(List<Frame> frames);
+
+	/**
+	 * Called once per frame (from {@link remixlab.dandelion.core.AbstractScene#preDraw()}), before
+	 * {@link #framesChanged(List)}, if the registered {@code eye} (or its frame) was modified since the last call.
+	 */
+	public void eyeChanged(Eye eye);
+}
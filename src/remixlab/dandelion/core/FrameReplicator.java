@@ -0,0 +1,752 @@
+/*********************************************************************************
+ * dandelion_tree
+ * Copyright (c) 2014 National University of Colombia, https://github.com/remixlab
+ * @author Jean Pierre Charalambos, http://otrolado.info/
+ *
+ * All rights reserved. Library that eases the creation of interactive
+ * scenes, released under the terms of the GNU Public License v3.0
+ * which is available at http://www.gnu.org/licenses/gpl.html
+ *********************************************************************************/
+
+package remixlab.dandelion.core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+import remixlab.dandelion.geom.*;
+import remixlab.fpstiming.TimingHandler;
+
+/**
+ * Replicates the state of a set of {@link remixlab.dandelion.core.Frame}s (and of the scene
+ * {@link remixlab.dandelion.core.Eye}) from a presenter scene to any number of viewer scenes, over NIO channels.
+ * <p>
+ * The presenter calls {@link #publish()} once per frame (e.g., after
+ * {@link remixlab.dandelion.core.AbstractScene#postDraw()}). Only the frames modified since the last call (see {@link remixlab.dandelion.core.Frame#lastUpdate()} and
+ * {@link remixlab.dandelion.core.Eye#lastUpdate()}) are considered, and only their kernel fields (translation,
+ * rotation, scaling and reference frame) that actually changed are sent. Rotations are quantized to 32 bits (smallest
+ * three quaternion components, 10 bits each), except for the eye whose rotation is always sent in full precision.
+ * <p>
+ * Three message types are used, each made of a 9 bytes header (type, sequence number and payload length):
+ * <ol>
+ * <li>{@link #DELTA}: the changed fields of the changed frames.</li>
+ * <li>{@link #KEYFRAME}: the full (unquantized) state of all frames. Sent every {@link #keyFrameInterval()}
+ * publications, when requested with {@link #requestKeyFrame()}, and to channels that had to skip messages because they
+ * couldn't keep up.</li>
+ * <li>{@link #SNAPSHOT}: a {@link remixlab.dandelion.core.SceneSnapshot} of the frames, sent first to each new channel,
+ * so that viewers may build the replicated frame hierarchy from scratch.</li>
+ * </ol>
+ * The viewer calls {@link #receive(ReadableByteChannel)} once per frame (e.g., in
+ * {@link remixlab.dandelion.core.AbstractScene#preDraw()}). Updates are applied in bulk, writing directly into the frame
+ * kernels. A viewer that misses a message (detected from the sequence numbers) ignores deltas until the next keyframe
+ * (see {@link #isSynchronized()}). A viewer reading a corrupt header (unknown type, or a length outside
+ * [0, {@link #maxMessageLength()}]) discards the stream until the next well-formed keyframe.
+ * <p>
+ * Frames are identified by their index in {@link #frames()}: either {@link #add(Frame)} the same frames, in the same
+ * order, on both sides, or let the viewer build them from the snapshot.
+ * <p>
+ * <b>Attention:</b> A frame whose {@link remixlab.dandelion.core.Frame#referenceFrame()} isn't replicated is sent in
+ * world coordinates, but it is only sent when it is modified itself. Add the whole reference frame chain if the
+ * ancestors move as well.
+ */
+public class FrameReplicator {
+	/**
+	 * Delta message type.
+	 */
+	public static final byte	DELTA						= 1;
+	/**
+	 * Keyframe (full state) message type.
+	 */
+	public static final byte	KEYFRAME				= 2;
+	/**
+	 * Snapshot message type.
+	 */
+	public static final byte	SNAPSHOT				= 3;
+
+	protected static final int	HEADER_BYTES		= 9;
+	protected static final int	EYE_ID					= -1;
+
+	// record field mask
+	protected static final int	TRANSLATION			= 1;
+	protected static final int	ROTATION				= 2;
+	protected static final int	FULL_ROTATION		= 4;
+	protected static final int	SCALING					= 8;
+	protected static final int	REFERENCE				= 16;
+
+	protected static final float	SQRT2					= (float) Math.sqrt(2);
+
+	/**
+	 * Internal class. Holds a channel, together with the part of a message it couldn't take yet.
+	 */
+	protected class Link {
+		WritableByteChannel	channel;
+		ByteBuffer					pending;
+		boolean							needsKeyFrame;
+
+		Link(WritableByteChannel c) {
+			channel = c;
+		}
+	}
+
+	protected AbstractScene									scene;
+	protected List<Frame>										frameList;
+	protected IdentityHashMap<Frame, Integer>	frameIndex;
+	protected boolean												eyeIncluded;
+
+	// presenter side: last sent values, per frame
+	protected float[]												sentValues;				// translation and scaling
+	protected int[]													sentRotations;
+	protected int[]													sentReferences;
+	protected long													lastPublish;
+	protected int														sequence;
+	protected int														keyFrameInterval;
+	protected int														publications;
+	protected boolean												keyFrameRequested;
+	protected List<Link>										links;
+	protected ByteBuffer										scratch;
+
+	// viewer side
+	protected ByteBuffer										inbox;
+	protected int														lastSequence;
+	protected boolean												synced;
+	protected boolean												resyncing;
+	protected int														maxMessageLength;
+
+	// stats
+	protected long													bytesSent, messagesSent, recordsSent, messagesSkipped;
+
+	public FrameReplicator(AbstractScene scn) {
+		scene = scn;
+		frameList = new ArrayList<Frame>();
+		frameIndex = new IdentityHashMap<Frame, Integer>();
+		eyeIncluded = true;
+		sentValues = new float[16 * 6];
+		sentRotations = new int[16];
+		sentReferences = new int[16];
+		lastPublish = -1;
+		keyFrameInterval = 60;
+		links = new ArrayList<Link>();
+		scratch = ByteBuffer.allocate(1024).order(ByteOrder.BIG_ENDIAN);
+		inbox = ByteBuffer.allocate(1024).order(ByteOrder.BIG_ENDIAN);
+		lastSequence = -1;
+		synced = false;
+		maxMessageLength = 1 << 24;
+	}
+
+	/**
+	 * Adds {@code frame} to the replicated ones. Does nothing if it was already added.
+	 */
+	public void add(Frame frame) {
+		if (frame == null || frameIndex.containsKey(frame))
+			return;
+		int index = frameList.size();
+		frameList.add(frame);
+		frameIndex.put(frame, index);
+		ensureCapacity(index + 1);
+		Arrays.fill(sentValues, 6 * index, 6 * index + 6, Float.NaN);
+		sentReferences[index] = Integer.MIN_VALUE;
+		requestKeyFrame();
+	}
+
+	/**
+	 * Adds all {@code frames} to the replicated ones.
+	 */
+	public void add(List<? extends Frame> frames) {
+		for (Frame frame : frames)
+			add(frame);
+	}
+
+	/**
+	 * Returns the replicated frames.
+	 */
+	public List<Frame> frames() {
+		return frameList;
+	}
+
+	/**
+	 * Returns the index of {@code frame}, or -1 if it isn't replicated.
+	 */
+	public int indexOf(Frame frame) {
+		Integer index = frameIndex.get(frame);
+		return index == null ? -1 : index;
+	}
+
+	/**
+	 * Returns true if the scene eye frame is replicated as well. Default is true.
+	 */
+	public boolean isEyeIncluded() {
+		return eyeIncluded;
+	}
+
+	/**
+	 * Includes or excludes the scene eye frame from the replication, according to {@code flag}.
+	 */
+	public void includeEye(boolean flag) {
+		eyeIncluded = flag;
+	}
+
+	// 1. Presenter side
+
+	/**
+	 * Adds {@code channel} to the ones {@link #publish()} writes to. A {@link #SNAPSHOT} is written to it first.
+	 * Non-blocking channels are supported: a channel that can't take a whole message keeps its remainder and skips the
+	 * following messages until it is drained, and then receives a {@link #KEYFRAME}.
+	 */
+	public void addChannel(WritableByteChannel channel) {
+		Link link = new Link(channel);
+		link.pending = snapshot();
+		links.add(link);
+		flush(link);
+	}
+
+	/**
+	 * Removes {@code channel} from the ones {@link #publish()} writes to.
+	 */
+	public boolean removeChannel(WritableByteChannel channel) {
+		for (int i = 0; i < links.size(); i++)
+			if (links.get(i).channel == channel) {
+				links.remove(i);
+				return true;
+			}
+		return false;
+	}
+
+	/**
+	 * Returns the number of publications between two consecutive {@link #KEYFRAME}s. Default is 60. A value of 0 means
+	 * keyframes are only sent when requested or needed.
+	 */
+	public int keyFrameInterval() {
+		return keyFrameInterval;
+	}
+
+	/**
+	 * Sets the {@link #keyFrameInterval()}.
+	 */
+	public void setKeyFrameInterval(int interval) {
+		keyFrameInterval = Math.max(interval, 0);
+	}
+
+	/**
+	 * Makes the next {@link #publish()} send a {@link #KEYFRAME} instead of a {@link #DELTA}.
+	 */
+	public void requestKeyFrame() {
+		keyFrameRequested = true;
+	}
+
+	/**
+	 * Writes the next message (a {@link #DELTA}, or a {@link #KEYFRAME} when due) to all the channels. Channels that
+	 * fail are removed, reporting the error.
+	 *
+	 * @see #delta()
+	 * @see #keyFrame()
+	 */
+	public void publish() {
+		publications++;
+		boolean keyFrameDue = keyFrameRequested || (keyFrameInterval > 0 && publications % keyFrameInterval == 0);
+		ByteBuffer message = keyFrameDue ? keyFrame() : delta();
+		ByteBuffer keyFrame = keyFrameDue ? message : null;
+		for (int i = links.size() - 1; i >= 0; i--) {
+			Link link = links.get(i);
+			if (!flush(link)) {
+				messagesSkipped++;
+				link.needsKeyFrame = true;
+				continue;
+			}
+			if (link.needsKeyFrame && keyFrame == null)
+				keyFrame = keyFrame(false);
+			link.pending = (link.needsKeyFrame ? keyFrame : message).duplicate();
+			link.needsKeyFrame = false;
+			flush(link);
+		}
+	}
+
+	/**
+	 * Internal use. Writes the pending message of {@code link} and returns {@code true} if it was completely written.
+	 */
+	protected boolean flush(Link link) {
+		if (link.pending == null)
+			return true;
+		try {
+			int written = link.channel.write(link.pending);
+			bytesSent += written;
+		} catch (IOException e) {
+			System.out.println("FrameReplicator: removing channel " + link.channel + " - " + e.getMessage());
+			links.remove(link);
+			return false;
+		}
+		if (link.pending.hasRemaining())
+			return false;
+		link.pending = null;
+		messagesSent++;
+		return true;
+	}
+
+	/**
+	 * Returns a new {@link #DELTA} message holding the changed fields of the frames modified since the last
+	 * {@link #delta()} or {@link #keyFrame()}. The last sent values are updated, so the returned message should be sent
+	 * to every viewer.
+	 */
+	public ByteBuffer delta() {
+		return encode(DELTA, false);
+	}
+
+	/**
+	 * Returns a new {@link #KEYFRAME} message holding the full state of all the frames.
+	 */
+	public ByteBuffer keyFrame() {
+		return keyFrame(true);
+	}
+
+	/**
+	 * Internal use. Encodes a {@link #KEYFRAME}. Only updates the last sent values if {@code sequenced} is true, i.e.,
+	 * if the keyframe takes the place of a delta for all viewers.
+	 */
+	protected ByteBuffer keyFrame(boolean sequenced) {
+		if (sequenced)
+			keyFrameRequested = false;
+		return encode(KEYFRAME, !sequenced);
+	}
+
+	/**
+	 * Returns a new {@link #SNAPSHOT} message holding a {@link remixlab.dandelion.core.SceneSnapshot} of the frames (and
+	 * the eye, if {@link #isEyeIncluded()}). It shares the sequence number of the last message, so that the following
+	 * deltas apply on top of it.
+	 */
+	public ByteBuffer snapshot() {
+		SceneSnapshot snapshot = new SceneSnapshot(scene);
+		snapshot.add(frameList);
+		snapshot.includeEye(eyeIncluded);
+		ByteBuffer payload = snapshot.write();
+		ByteBuffer message = ByteBuffer.allocate(HEADER_BYTES + payload.remaining()).order(ByteOrder.BIG_ENDIAN);
+		message.put(SNAPSHOT).putInt(sequence).putInt(payload.remaining()).put(payload);
+		message.flip();
+		return message;
+	}
+
+	/**
+	 * Internal use. Encodes a {@link #DELTA} or a {@link #KEYFRAME} message. When {@code outOfBand} is true the message
+	 * reuses the last sequence number and doesn't touch the last sent values.
+	 */
+	protected ByteBuffer encode(byte type, boolean outOfBand) {
+		boolean full = type == KEYFRAME;
+		scratch.clear();
+		scratch.put(type).putInt(0).putInt(0).putInt(0);
+		int count = 0;
+		long stamp = lastPublish;
+		if (eyeIncluded && (full || scene.eye().lastUpdate() >= stamp)) {
+			Frame eyeFrame = scene.eye().frame();
+			int mask = TRANSLATION | FULL_ROTATION | SCALING;
+			ensureScratch(5 + recordLength(mask, eyeFrame.is3D()));
+			scratch.putInt(EYE_ID).put((byte) mask);
+			putVec(eyeFrame.translation());
+			putRotation(eyeFrame.rotation());
+			putVec(eyeFrame.scaling());
+			count++;
+		}
+		for (int i = 0; i < frameList.size(); i++) {
+			Frame frame = frameList.get(i);
+			if (!full && frame.lastUpdate() < stamp)
+				continue;
+			Integer ref = frame.referenceFrame() == null ? null : frameIndex.get(frame.referenceFrame());
+			int reference = ref == null ? -1 : ref;
+			// frames whose reference frame isn't replicated are sent in world coordinates
+			boolean local = ref != null || frame.referenceFrame() == null;
+			Vec t = local ? frame.translation() : frame.position();
+			Rotation q = local ? frame.rotation() : frame.orientation();
+			Vec s = local ? frame.scaling() : frame.magnitude();
+			int rotation = frame.is3D() ? quantize((Quat) q) : Float.floatToIntBits(q.angle());
+			int at = 6 * i;
+			int mask = full ? TRANSLATION | FULL_ROTATION | SCALING | REFERENCE : 0;
+			if (!full) {
+				if (t.x() != sentValues[at] || t.y() != sentValues[at + 1] || t.z() != sentValues[at + 2])
+					mask |= TRANSLATION;
+				if (rotation != sentRotations[i] || Float.isNaN(sentValues[at]))
+					mask |= ROTATION;
+				if (s.x() != sentValues[at + 3] || s.y() != sentValues[at + 4] || s.z() != sentValues[at + 5])
+					mask |= SCALING;
+				if (reference != sentReferences[i])
+					mask |= REFERENCE;
+				if (mask == 0)
+					continue;
+			}
+			ensureScratch(5 + recordLength(mask, frame.is3D()));
+			scratch.putInt(i).put((byte) mask);
+			if ((mask & TRANSLATION) != 0)
+				putVec(t);
+			if ((mask & FULL_ROTATION) != 0)
+				putRotation(q);
+			else if ((mask & ROTATION) != 0)
+				scratch.putInt(rotation);
+			if ((mask & SCALING) != 0)
+				putVec(s);
+			if ((mask & REFERENCE) != 0)
+				scratch.putInt(reference);
+			if (!outOfBand) {
+				sentValues[at] = t.x();
+				sentValues[at + 1] = t.y();
+				sentValues[at + 2] = t.z();
+				sentValues[at + 3] = s.x();
+				sentValues[at + 4] = s.y();
+				sentValues[at + 5] = s.z();
+				sentRotations[i] = rotation;
+				sentReferences[i] = reference;
+			}
+			count++;
+		}
+		if (!outOfBand) {
+			// modifications issued later within the current frame are caught by the next call
+			lastPublish = TimingHandler.frameCount;
+			sequence++;
+		}
+		recordsSent += count;
+		scratch.putInt(1, sequence).putInt(5, scratch.position() - HEADER_BYTES).putInt(HEADER_BYTES, count);
+		scratch.flip();
+		ByteBuffer message = ByteBuffer.allocate(scratch.remaining()).order(ByteOrder.BIG_ENDIAN);
+		message.put(scratch);
+		message.flip();
+		return message;
+	}
+
+	// 2. Viewer side
+
+	/**
+	 * Returns the maximum payload length (in bytes) accepted by {@link #receive(ReadableByteChannel)}. Default is 16MB.
+	 * Messages announcing a larger (or negative) length are taken as corrupt.
+	 */
+	public int maxMessageLength() {
+		return maxMessageLength;
+	}
+
+	/**
+	 * Sets the {@link #maxMessageLength()}. It should be large enough to hold the {@link #SNAPSHOT} of all the frames.
+	 */
+	public void setMaxMessageLength(int length) {
+		if (length < 4) {
+			System.out.println("Warning: max message length should be at least 4 - Ignoring value");
+			return;
+		}
+		maxMessageLength = length;
+	}
+
+	/**
+	 * Reads all the available bytes from {@code channel} (which should be non-blocking, or have data available) and
+	 * applies the complete messages read so far.
+	 * <p>
+	 * A header holding an unknown type or a length outside [0, {@link #maxMessageLength()}] means the stream lost its
+	 * framing: the viewer is no longer {@link #isSynchronized()} and skips bytes until it finds a {@link #KEYFRAME}
+	 * whose records are well-formed.
+	 *
+	 * @return the number of applied messages, or -1 if the channel reached end-of-stream
+	 */
+	public int receive(ReadableByteChannel channel) {
+		int read;
+		try {
+			do {
+				if (!inbox.hasRemaining()) {
+					ByteBuffer larger = ByteBuffer.allocate(2 * inbox.capacity()).order(ByteOrder.BIG_ENDIAN);
+					inbox.flip();
+					larger.put(inbox);
+					inbox = larger;
+				}
+				read = channel.read(inbox);
+			} while (read > 0);
+		} catch (IOException e) {
+			throw new RuntimeException("FrameReplicator: unable to read from " + channel + ": " + e.getMessage());
+		}
+		int applied = 0;
+		inbox.flip();
+		while (inbox.remaining() >= HEADER_BYTES) {
+			if (resyncing && inbox.remaining() < HEADER_BYTES + 4)
+				break;
+			int at = inbox.position();
+			byte type = inbox.get(at);
+			int length = inbox.getInt(at + 5);
+			boolean valid = length >= 0 && length <= maxMessageLength
+					&& (resyncing ? isKeyFrameHeader(at, length) : type == DELTA || type == KEYFRAME || type == SNAPSHOT);
+			if (!valid) {
+				if (!resyncing) {
+					System.out.println("FrameReplicator: corrupt message header - Waiting for the next keyframe");
+					resyncing = true;
+					synced = false;
+				}
+				inbox.position(at + 1);
+				continue;
+			}
+			if (inbox.remaining() < HEADER_BYTES + length)
+				break;
+			ByteBuffer message = inbox.slice();
+			message.limit(HEADER_BYTES + length);
+			if (apply(message)) {
+				applied++;
+				resyncing = false;
+			}
+			else if (resyncing) {
+				// a false keyframe header: keep scanning from the next byte
+				inbox.position(at + 1);
+				continue;
+			}
+			inbox.position(at + HEADER_BYTES + length);
+		}
+		inbox.compact();
+		return read < 0 && applied == 0 ? -1 : applied;
+	}
+
+	/**
+	 * Internal use. Returns {@code true} if the inbox bytes at {@code at} look like the header of the next
+	 * {@link #KEYFRAME}: a sequence number not older than the last applied one (and not too far ahead), and a record
+	 * count that fits in the payload {@code length}. Used to find the message boundaries back after a corrupt header,
+	 * without stalling on a false header announcing a long payload.
+	 */
+	protected boolean isKeyFrameHeader(int at, int length) {
+		if (inbox.get(at) != KEYFRAME || length < 4)
+			return false;
+		int ahead = inbox.getInt(at + 1) - lastSequence;
+		int count = inbox.getInt(at + HEADER_BYTES);
+		return ahead >= 0 && ahead <= 1 << 16 && count >= 0 && count <= (length - 4) / 5;
+	}
+
+	/**
+	 * Applies a single {@code message} (from its current position) and returns {@code true} if it was applied. Deltas
+	 * are ignored while the viewer isn't {@link #isSynchronized()}.
+	 */
+	public boolean apply(ByteBuffer message) {
+		ByteBuffer in = message.slice().order(ByteOrder.BIG_ENDIAN);
+		byte type = in.get(0);
+		int seq = in.getInt(1);
+		switch (type) {
+		case SNAPSHOT:
+			ByteBuffer payload = in.duplicate();
+			payload.position(HEADER_BYTES);
+			List<Frame> targets = frameList.isEmpty() ? null : new ArrayList<Frame>(frameList);
+			SceneSnapshot snapshot = new SceneSnapshot(scene);
+			List<Frame> restored = snapshot.read(payload, targets);
+			if (targets == null)
+				for (Frame frame : restored)
+					add(frame);
+			break;
+		case KEYFRAME:
+			if (!applyRecords(in)) {
+				synced = false;
+				return false;
+			}
+			break;
+		case DELTA:
+			if (!synced || seq != lastSequence + 1 || !applyRecords(in)) {
+				synced = false;
+				return false;
+			}
+			break;
+		default:
+			throw new RuntimeException("FrameReplicator: unknown message type " + type);
+		}
+		synced = true;
+		lastSequence = seq;
+		return true;
+	}
+
+	/**
+	 * Returns {@code true} if the viewer applied a {@link #SNAPSHOT} or a {@link #KEYFRAME} and didn't miss any
+	 * {@link #DELTA} since then.
+	 */
+	public boolean isSynchronized() {
+		return synced;
+	}
+
+	/**
+	 * Internal use. Applies the records of a {@link #DELTA} or a {@link #KEYFRAME} message, writing directly into the
+	 * frame kernels. Returns {@code false} if a record overruns the message, i.e., if the message is malformed. Each
+	 * record is bounds-checked before being written, so a kernel never receives partial data.
+	 */
+	protected boolean applyRecords(ByteBuffer in) {
+		int limit = in.limit();
+		if (limit < HEADER_BYTES + 4)
+			return false;
+		int count = in.getInt(HEADER_BYTES);
+		if (count < 0 || count > (limit - HEADER_BYTES - 4) / 5)
+			return false;
+		int at = HEADER_BYTES + 4;
+		for (int r = 0; r < count; r++) {
+			if (at + 5 > limit)
+				return false;
+			int id = in.getInt(at);
+			int mask = in.get(at + 4);
+			at += 5;
+			Frame frame = id == EYE_ID ? scene.eye().frame() : id >= 0 && id < frameList.size() ? frameList.get(id) : null;
+			if (frame == null) {
+				System.out.println("FrameReplicator: unknown frame " + id + " - Ignoring remaining records");
+				return true;
+			}
+			if (at + recordLength(mask, frame.is3D()) > limit)
+				return false;
+			Frame.AbstractFrameKernel kernel = frame.kernel();
+			if ((mask & TRANSLATION) != 0) {
+				kernel.trans.set(in.getFloat(at), in.getFloat(at + 4), in.getFloat(at + 8));
+				at += 12;
+			}
+			if ((mask & FULL_ROTATION) != 0) {
+				if (frame.is3D()) {
+					kernel.rot = new Quat(in.getFloat(at), in.getFloat(at + 4), in.getFloat(at + 8), in.getFloat(at + 12));
+					at += 16;
+				}
+				else {
+					kernel.rot = new Rot(in.getFloat(at));
+					at += 4;
+				}
+			}
+			else if ((mask & ROTATION) != 0) {
+				kernel.rot = frame.is3D() ? dequantize(in.getInt(at)) : new Rot(in.getFloat(at));
+				at += 4;
+			}
+			if ((mask & SCALING) != 0) {
+				kernel.scl.set(in.getFloat(at), in.getFloat(at + 4), in.getFloat(at + 8));
+				at += 12;
+			}
+			if ((mask & REFERENCE) != 0) {
+				int ref = in.getInt(at);
+				kernel.refFrame = ref >= 0 && ref < frameList.size() && frameList.get(ref) != frame ? frameList.get(ref) : null;
+				at += 4;
+			}
+			kernel.modified();
+		}
+		return true;
+	}
+
+	/**
+	 * Internal use. Returns the number of bytes following the id and mask of a record holding the {@code mask} fields.
+	 */
+	protected static int recordLength(int mask, boolean is3D) {
+		int length = 0;
+		if ((mask & TRANSLATION) != 0)
+			length += 12;
+		if ((mask & FULL_ROTATION) != 0)
+			length += is3D ? 16 : 4;
+		else if ((mask & ROTATION) != 0)
+			length += 4;
+		if ((mask & SCALING) != 0)
+			length += 12;
+		if ((mask & REFERENCE) != 0)
+			length += 4;
+		return length;
+	}
+
+	// 3. Stats
+
+	/**
+	 * Returns the number of bytes written to all channels.
+	 */
+	public long bytesSent() {
+		return bytesSent;
+	}
+
+	/**
+	 * Returns the number of messages completely written to all channels.
+	 */
+	public long messagesSent() {
+		return messagesSent;
+	}
+
+	/**
+	 * Returns the number of frame records encoded by {@link #delta()} and {@link #keyFrame()}.
+	 */
+	public long recordsSent() {
+		return recordsSent;
+	}
+
+	/**
+	 * Returns the number of messages skipped by slow channels.
+	 */
+	public long messagesSkipped() {
+		return messagesSkipped;
+	}
+
+	// 4. Encoding utilities
+
+	/**
+	 * Quantizes the (unit) quaternion {@code q} to 32 bits: the index of its largest component (2 bits) followed by the
+	 * three remaining ones (10 bits each), whose absolute value is lesser than 1/sqrt(2). The largest component is made
+	 * positive first, since {@code q} and {@code -q} represent the same rotation.
+	 *
+	 * @see #dequantize(int)
+	 */
+	public static int quantize(Quat q) {
+		float[] c = q.quat;
+		int largest = 0;
+		for (int i = 1; i < 4; i++)
+			if (Math.abs(c[i]) > Math.abs(c[largest]))
+				largest = i;
+		float sign = c[largest] < 0 ? -1 : 1;
+		int code = largest << 30;
+		int shift = 20;
+		for (int i = 0; i < 4; i++) {
+			if (i == largest)
+				continue;
+			int v = Math.round((c[i] * sign * SQRT2 * 0.5f + 0.5f) * 1023);
+			code |= Math.min(Math.max(v, 0), 1023) << shift;
+			shift -= 10;
+		}
+		return code;
+	}
+
+	/**
+	 * Returns the quaternion encoded by {@link #quantize(Quat)}.
+	 */
+	public static Quat dequantize(int code) {
+		int largest = code >>> 30;
+		float[] c = new float[4];
+		float sum = 0;
+		int shift = 20;
+		for (int i = 0; i < 4; i++) {
+			if (i == largest)
+				continue;
+			c[i] = (((code >>> shift) & 1023) / 1023f * 2 - 1) / SQRT2;
+			sum += c[i] * c[i];
+			shift -= 10;
+		}
+		c[largest] = (float) Math.sqrt(Math.max(0, 1 - sum));
+		return new Quat(c[0], c[1], c[2], c[3]);
+	}
+
+	protected void putVec(Vec v) {
+		scratch.putFloat(v.x()).putFloat(v.y()).putFloat(v.z());
+	}
+
+	protected void putRotation(Rotation r) {
+		if (r instanceof Quat) {
+			float[] q = ((Quat) r).quat;
+			scratch.putFloat(q[0]).putFloat(q[1]).putFloat(q[2]).putFloat(q[3]);
+		}
+		else
+			scratch.putFloat(r.angle());
+	}
+
+	/**
+	 * Internal use. Grows the encoding buffer to hold at least {@code bytes} more bytes.
+	 */
+	protected void ensureScratch(int bytes) {
+		if (scratch.remaining() >= bytes)
+			return;
+		ByteBuffer larger = ByteBuffer.allocate(Math.max(2 * scratch.capacity(), scratch.position() + bytes)).order(
+				ByteOrder.BIG_ENDIAN);
+		scratch.flip();
+		larger.put(scratch);
+		scratch = larger;
+	}
+
+	/**
+	 * Internal use. Grows the per frame arrays to hold at least {@code capacity} frames.
+	 */
+	protected void ensureCapacity(int capacity) {
+		if (capacity <= sentRotations.length)
+			return;
+		int newCapacity = Math.max(capacity, 2 * sentRotations.length);
+		sentValues = Arrays.copyOf(sentValues, 6 * newCapacity);
+		sentRotations = Arrays.copyOf(sentRotations, newCapacity);
+		sentReferences = Arrays.copyOf(sentReferences, newCapacity);
+	}
+}
@@ -134,13 +134,6 @@ public class InteractiveFrame extends Frame implements Grabber, Copyable {
 		setSpinningSensitivity(0.3f);
 		setDampingFriction(0.5f);
 
-		spinningTimerTask = new TimingTask() {
-			public void execute() {
-				spin();
-			}
-		};
-		scene.registerTimingTask(spinningTimerTask);
-
 		// Drivable stuff:
 		drvSpd = 0.0f;
 		flyUpVec = new Vec(0.0f, 1.0f, 0.0f);
@@ -149,13 +142,6 @@ public class InteractiveFrame extends Frame implements Grabber, Copyable {
 
 		if (!(this instanceof InteractiveEyeFrame))
 			setFlySpeed(0.01f * scene.radius());
-
-		flyTimerTask = new TimingTask() {
-			public void execute() {
-				toss();
-			}
-		};
-		scene.registerTimingTask(flyTimerTask);
 	}
 
 	protected InteractiveFrame(InteractiveFrame otherFrame) {
@@ -178,13 +164,6 @@ public class InteractiveFrame extends Frame implements Grabber, Copyable {
 		this.setSpinningSensitivity(otherFrame.spinningSensitivity());
 		this.setDampingFriction(otherFrame.dampingFriction());
 
-		this.spinningTimerTask = new TimingTask() {
-			public void execute() {
-				spin();
-			}
-		};
-		this.scene.registerTimingTask(spinningTimerTask);
-
 		// Drivable stuff:
 		this.drvSpd = otherFrame.drvSpd;
 		this.flyUpVec = new Vec();
@@ -192,13 +171,6 @@ public class InteractiveFrame extends Frame implements Grabber, Copyable {
 		this.flyDisp = new Vec();
 		this.flyDisp.set(otherFrame.flyDisp);
 		this.setFlySpeed(otherFrame.flySpeed());
-
-		this.flyTimerTask = new TimingTask() {
-			public void execute() {
-				toss();
-			}
-		};
-		this.scene.registerTimingTask(flyTimerTask);
 	}
 
 	@Override
@@ -232,24 +204,11 @@ public class InteractiveFrame extends Frame implements Grabber, Copyable {
 		setSpinningSensitivity(0.3f);
 		setDampingFriction(0.5f);
 
-		spinningTimerTask = new TimingTask() {
-			public void execute() {
-				spin();
-			}
-		};
-		scene.registerTimingTask(spinningTimerTask);
-
 		// Drivable stuff:
 		drvSpd = 0.0f;
 		flyUpVec = new Vec(0.0f, 1.0f, 0.0f);
 		flyDisp = new Vec(0.0f, 0.0f, 0.0f);
 		setFlySpeed(0.0f);
-		flyTimerTask = new TimingTask() {
-			public void execute() {
-				toss();
-			}
-		};
-		scene.registerTimingTask(flyTimerTask);
 	}
 
 	/**
@@ -475,7 +434,7 @@ public class InteractiveFrame extends Frame implements Grabber, Copyable {
 	 * @see #isTossing()
 	 */
 	public final boolean isSpinning() {
-		return spinningTimerTask.isActive();
+		return spinningTimerTask != null && spinningTimerTask.isActive();
 	}
 
 	/**
@@ -490,7 +449,7 @@ public class InteractiveFrame extends Frame implements Grabber, Copyable {
 	 * {@link #isSpinning()}
 	 */
 	public final boolean isTossing() {
-		return flyTimerTask.isActive();
+		return flyTimerTask != null && flyTimerTask.isActive();
 	}
 
 	/**
@@ -561,7 +520,8 @@ public class InteractiveFrame extends Frame implements Grabber, Copyable {
 	 * @see #toss()
 	 */
 	public final void stopSpinning() {
-		spinningTimerTask.stop();
+		if (spinningTimerTask != null)
+			spinningTimerTask.stop();
 	}
 
 	/**
@@ -575,7 +535,8 @@ public class InteractiveFrame extends Frame implements Grabber, Copyable {
 	 * @see #spin()
 	 */
 	public final void stopTossing() {
-		flyTimerTask.stop();
+		if (flyTimerTask != null)
+			flyTimerTask.stop();
 	}
 
 	/**
@@ -593,7 +554,7 @@ public class InteractiveFrame extends Frame implements Grabber, Copyable {
 		eventSpeed = e.speed();
 		int updateInterval = (int) e.delay();
 		if (updateInterval > 0)
-			spinningTimerTask.run(updateInterval);
+			spinningTimerTask().run(updateInterval);
 	}
 
 	/**
@@ -609,7 +570,41 @@ public class InteractiveFrame extends Frame implements Grabber, Copyable {
 	 */
 	public void startTossing(MotionEvent e) {
 		eventSpeed = e.speed();
-		flyTimerTask.run(FLY_UPDATE_PERDIOD);
+		flyTimerTask().run(FLY_UPDATE_PERDIOD);
+	}
+
+	/**
+	 * Internal use. Returns the spinning timer task, registering it at the scene the first time the frame spins, so that
+	 * frames which never do (e.g., the many ones restored by a {@link remixlab.dandelion.core.SceneSnapshot}) don't add
+	 * to the timer pool.
+	 */
+	protected TimingTask spinningTimerTask() {
+		if (spinningTimerTask == null) {
+			spinningTimerTask = new TimingTask() {
+				public void execute() {
+					spin();
+				}
+			};
+			scene.registerTimingTask(spinningTimerTask);
+		}
+		return spinningTimerTask;
+	}
+
+	/**
+	 * Internal use. Returns the tossing timer task, registering it at the scene the first time the frame is tossed.
+	 * 
+	 * @see #spinningTimerTask()
+	 */
+	protected TimingTask flyTimerTask() {
+		if (flyTimerTask == null) {
+			flyTimerTask = new TimingTask() {
+				public void execute() {
+					toss();
+				}
+			};
+			scene.registerTimingTask(flyTimerTask);
+		}
+		return flyTimerTask;
 	}
 
 	/**
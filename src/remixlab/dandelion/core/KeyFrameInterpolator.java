@@ -18,6 +18,7 @@ import remixlab.fpstiming.TimingHandler;
 import remixlab.util.Copyable;
 import remixlab.util.EqualsBuilder;
 import remixlab.util.HashCodeBuilder;
+import remixlab.util.Trace;
 import remixlab.util.Util;
 
 /**
@@ -140,11 +141,14 @@ public class KeyFrameInterpolator implements Copyable {
 					.isEquals();
 		}
 
-		protected Vec		tgPVec;
+		protected Vec			tgPVec;
 		// Option 2 (interpolate magnitude using a spline)
-		protected Vec		tgSVec;
-		protected float	tm;
-		protected Frame	frm;
+		protected Vec			tgSVec;
+		protected float		tm;
+		protected Frame		frm;
+		protected boolean	modified;
+		// position in keyFrameList, or -1 once removed
+		protected int			index;
 
 		AbstractKeyFrame(Frame fr, float t) {
 			tm = t;
@@ -176,6 +180,17 @@ public class KeyFrameInterpolator implements Copyable {
 			return frm;
 		}
 
+		/**
+		 * Internal use. Called by the {@link #frame()} each time it is modified (see
+		 * {@link remixlab.dandelion.core.Frame#notifyKeyFrames()}).
+		 */
+		void frameModified() {
+			if (modified)
+				return;
+			modified = true;
+			modifiedKeyFrames.add(this);
+		}
+
 		Vec tgP() {
 			return tgPVec;
 		}
@@ -246,10 +261,19 @@ public class KeyFrameInterpolator implements Copyable {
 
 	private long														lUpdate;
 	protected List<AbstractKeyFrame>				keyFrameList;
-	private ListIterator<AbstractKeyFrame>	currentFrame0;
-	private ListIterator<AbstractKeyFrame>	currentFrame1;
-	private ListIterator<AbstractKeyFrame>	currentFrame2;
-	private ListIterator<AbstractKeyFrame>	currentFrame3;
+	// keyFrames whose frame was modified since the last checkValidity()
+	private List<AbstractKeyFrame>					modifiedKeyFrames;
+	// keyFrames known to be in the agent pools, see addFramesToAllAgentPools()
+	private int															pooledKeyFrames;
+	private long														pooledVersion			= -1;
+	// indices of the keyFrames surrounding the current interpolation time
+	private int															currentFrame0;
+	private int															currentFrame1;
+	private int															currentFrame2;
+	private int															currentFrame3;
+	// sorted keyFrame times, mirroring keyFrameList, for O(log n) lookups
+	private float[]													keyFrameTimes;
+	private int															keyFrameTimesCount;
 	protected List<Frame>										path;
 	// A s s o c i a t e d f r a m e
 	private Frame														mainFrame;
@@ -269,6 +293,10 @@ public class KeyFrameInterpolator implements Copyable {
 	private boolean													valuesAreValid;
 	private boolean													currentFrmValid;
 	private boolean													splineCacheIsValid;
+	// keyFrame tangents to be recomputed and number of (leading) path segments still valid
+	private int															invalidTangentsFrom;
+	private int															invalidTangentsTo;
+	private int															validPathSegments;
 	private Vec															pv1, pv2;
 	// Option 2 (interpolate magnitude using a spline)
 	private Vec															sv1, sv2;
@@ -298,6 +326,7 @@ public class KeyFrameInterpolator implements Copyable {
 	public KeyFrameInterpolator(AbstractScene scn, Frame frame) {
 		scene = scn;
 		keyFrameList = new ArrayList<AbstractKeyFrame>();
+		modifiedKeyFrames = new ArrayList<AbstractKeyFrame>();
 		path = new ArrayList<Frame>();
 		mainFrame = null;
 		period = 40;
@@ -308,12 +337,13 @@ public class KeyFrameInterpolator implements Copyable {
 		pathIsValid = false;
 		valuesAreValid = true;
 		currentFrmValid = false;
+		invalidTangentsFrom = Integer.MAX_VALUE;
+		invalidTangentsTo = -1;
+		validPathSegments = 0;
 		setFrame(frame);
 
-		currentFrame0 = keyFrameList.listIterator();
-		currentFrame1 = keyFrameList.listIterator();
-		currentFrame2 = keyFrameList.listIterator();
-		currentFrame3 = keyFrameList.listIterator();
+		keyFrameTimes = new float[16];
+		keyFrameTimesCount = 0;
 
 		interpolationTimerTask = new TimingTask() {
 			public void execute() {
@@ -343,18 +373,25 @@ public class KeyFrameInterpolator implements Copyable {
 		this.currentFrmValid = otherKFI.currentFrmValid;
 
 		this.keyFrameList = new ArrayList<AbstractKeyFrame>();
+		this.modifiedKeyFrames = new ArrayList<AbstractKeyFrame>();
 
 		for (AbstractKeyFrame element : otherKFI.keyFrameList) {
-			AbstractKeyFrame kf = (AbstractKeyFrame) element.get();
+			// created here (rather than with element.get()) so that the keyFrame reports its modifications to this path
+			Frame frame = element.frame().get();
+			AbstractKeyFrame kf = scene.is3D() ? new KeyFrame3D(frame, element.time()) : new KeyFrame2D(frame, element.time());
+			kf.index = this.keyFrameList.size();
 			this.keyFrameList.add(kf);
+			frame.attachKeyFrame(kf);
 			if (kf.frame() instanceof InteractiveFrame)
 				this.scene.inputHandler().removeFromAllAgentPools((InteractiveFrame) kf.frame());
 		}
 
-		this.currentFrame0 = keyFrameList.listIterator(otherKFI.currentFrame0.nextIndex());
-		this.currentFrame1 = keyFrameList.listIterator(otherKFI.currentFrame1.nextIndex());
-		this.currentFrame2 = keyFrameList.listIterator(otherKFI.currentFrame2.nextIndex());
-		this.currentFrame3 = keyFrameList.listIterator(otherKFI.currentFrame3.nextIndex());
+		this.currentFrame0 = otherKFI.currentFrame0;
+		this.currentFrame1 = otherKFI.currentFrame1;
+		this.currentFrame2 = otherKFI.currentFrame2;
+		this.currentFrame3 = otherKFI.currentFrame3;
+		this.keyFrameTimes = Arrays.copyOf(otherKFI.keyFrameTimes, otherKFI.keyFrameTimes.length);
+		this.keyFrameTimesCount = otherKFI.keyFrameTimesCount;
 
 		this.interpolationTimerTask = new TimingTask() {
 			public void execute() {
@@ -530,6 +567,7 @@ public class KeyFrameInterpolator implements Copyable {
 	 * {@link #lastTime()}, unless {@link #loopInterpolation()} is {@code true}.
 	 */
 	protected void update() {
+		long token = Trace.begin(Trace.INTERPOLATION);
 		interpolateAtTime(interpolationTime());
 
 		interpolationTm += interpolationSpeed() * interpolationPeriod() / 1000.0f;
@@ -553,15 +591,37 @@ public class KeyFrameInterpolator implements Copyable {
 				stopInterpolation();
 			}
 		}
+		Trace.end(Trace.INTERPOLATION, token, this, null, null);
 	}
 
 	/**
-	 * Internal use. Called by {@link #checkValidity()}.
+	 * Internal use. Invalidates all the cached values: keyFrame tangents, path and spline cache.
+	 * 
+	 * @see #invalidateValues(int, int)
 	 */
 	protected void invalidateValues() {
 		valuesAreValid = false;
 		pathIsValid = false;
 		splineCacheIsValid = false;
+		invalidTangentsFrom = 0;
+		invalidTangentsTo = Integer.MAX_VALUE;
+		validPathSegments = 0;
+	}
+
+	/**
+	 * Internal use. Invalidates only the values depending on the keyFrames in the range [{@code from}, {@code to}]: their
+	 * tangents and the path segments using them. Called when keyFrames are added, removed or modified, so that the
+	 * rest of the path needs not to be recomputed.
+	 */
+	protected void invalidateValues(int from, int to) {
+		from = Math.max(from, 0);
+		valuesAreValid = false;
+		pathIsValid = false;
+		splineCacheIsValid = false;
+		invalidTangentsFrom = Math.min(invalidTangentsFrom, from);
+		invalidTangentsTo = Math.max(invalidTangentsTo, to);
+		// segment i uses keyFrames i and i+1 (and their tangents)
+		validPathSegments = Math.max(Math.min(validPathSegments, from - 1), 0);
 	}
 
 	/**
@@ -666,15 +726,57 @@ public class KeyFrameInterpolator implements Copyable {
 		if ((!keyFrameList.isEmpty()) && (keyFrameList.get(keyFrameList.size() - 1).time() > time))
 			System.out.println("Error in KeyFrameInterpolator.addKeyFrame: time is not monotone");
 		else {
-			if (scene.is3D())
-				keyFrameList.add(new KeyFrame3D(frame, time));
-			else
-				keyFrameList.add(new KeyFrame2D(frame, time));
+			AbstractKeyFrame kf = scene.is3D() ? new KeyFrame3D(frame, time) : new KeyFrame2D(frame, time);
+			kf.index = keyFrameList.size();
+			keyFrameList.add(kf);
+			frame.attachKeyFrame(kf);
+			if (keyFrameTimesCount == keyFrameList.size() - 1) {
+				if (keyFrameTimes.length == keyFrameTimesCount)
+					keyFrameTimes = Arrays.copyOf(keyFrameTimes, 2 * keyFrameTimes.length);
+				keyFrameTimes[keyFrameTimesCount++] = time;
+			}
 		}
 		// */
 
-		valuesAreValid = false;
-		pathIsValid = false;
+		// only the tangents of the new keyFrame and its predecessor change
+		invalidateValues(keyFrameList.size() - 2, keyFrameList.size() - 1);
+		currentFrmValid = false;
+		resetInterpolation();
+	}
+
+	/**
+	 * Appends the {@code frames} keyFrames to the path, with their associated {@code times} (in seconds), all at once.
+	 * <p>
+	 * Same as calling {@link #addKeyFrame(Frame, float)} on each of them, but the path is invalidated and the
+	 * interpolation reset only once, which is much faster to build long paths (e.g., when restoring them from a
+	 * {@link remixlab.dandelion.core.SceneSnapshot}).
+	 */
+	public void addKeyFrames(Frame[] frames, float[] times) {
+		if (frames.length != times.length)
+			throw new RuntimeException("addKeyFrames: frames and times should have the same length");
+		int first = keyFrameList.size();
+		for (int i = 0; i < frames.length; i++) {
+			if (frames[i] == null)
+				continue;
+			if (keyFrameList.isEmpty())
+				interpolationTm = times[i];
+			if ((!keyFrameList.isEmpty()) && (keyFrameList.get(keyFrameList.size() - 1).time() > times[i])) {
+				System.out.println("Error in KeyFrameInterpolator.addKeyFrames: time is not monotone");
+				continue;
+			}
+			AbstractKeyFrame kf = scene.is3D() ? new KeyFrame3D(frames[i], times[i]) : new KeyFrame2D(frames[i], times[i]);
+			kf.index = keyFrameList.size();
+			keyFrameList.add(kf);
+			frames[i].attachKeyFrame(kf);
+			if (keyFrameTimesCount == keyFrameList.size() - 1) {
+				if (keyFrameTimes.length == keyFrameTimesCount)
+					keyFrameTimes = Arrays.copyOf(keyFrameTimes, 2 * keyFrameTimes.length);
+				keyFrameTimes[keyFrameTimesCount++] = times[i];
+			}
+		}
+		if (keyFrameList.size() == first)
+			return;
+		invalidateValues(first - 1, keyFrameList.size() - 1);
 		currentFrmValid = false;
 		resetInterpolation();
 	}
@@ -686,12 +788,21 @@ public class KeyFrameInterpolator implements Copyable {
 	public void removeKeyFrame(int index) {
 		if (index < 0 || index >= keyFrameList.size())
 			return;
-		valuesAreValid = false;
-		pathIsValid = false;
+		// only the tangents of the keyFrames that were next to the removed one change
+		invalidateValues(index - 1, index);
 		currentFrmValid = false;
 		if (interpolationIsStarted())
 			stopInterpolation();
 		AbstractKeyFrame kf = keyFrameList.remove(index);
+		kf.frame().detachKeyFrame(kf);
+		kf.index = -1;
+		for (int i = index; i < keyFrameList.size(); i++)
+			keyFrameList.get(i).index = i;
+		pooledVersion = -1;
+		if (keyFrameTimesCount == keyFrameList.size() + 1) {
+			System.arraycopy(keyFrameTimes, index + 1, keyFrameTimes, index, keyFrameTimesCount - index - 1);
+			keyFrameTimesCount--;
+		}
 		if (kf.frm instanceof InteractiveFrame)
 			scene.inputHandler().removeFromAllAgentPools((InteractiveFrame) kf.frm);
 		// before:
@@ -700,6 +811,150 @@ public class KeyFrameInterpolator implements Copyable {
 		setInterpolationTime(firstTime());
 	}
 
+	/**
+	 * Lossy keyFrame reduction. Removes as many keyFrames as possible while keeping the re-interpolated path within the
+	 * given tolerances at the times of all the original keyFrames: {@code positionTolerance} is the maximum position
+	 * distance, {@code orientationTolerance} the maximum orientation angular distance (in radians) and
+	 * {@code magnitudeTolerance} the maximum magnitude distance. The first and last keyFrames are always kept.
+	 * <p>
+	 * Useful to compact the (usually dense) paths recorded from trackers or with
+	 * {@link remixlab.dandelion.core.Eye#addKeyFrameToPath(int)}, once the recording is finished. Since keyFrames are
+	 * sampled only once (at the beginning), the reduction is computed on a snapshot of the path.
+	 * <p>
+	 * The interpolation is stopped if {@link #interpolationIsStarted()}.
+	 * 
+	 * @return the compression ratio, i.e., the original {@link #numberOfKeyFrames()} divided by the new one.
+	 */
+	public float reduceKeyFrames(float positionTolerance, float orientationTolerance, float magnitudeTolerance) {
+		int n = keyFrameList.size();
+		if (n < 3)
+			return 1;
+
+		// snapshot
+		float[] t = new float[n];
+		Vec[] pos = new Vec[n];
+		Rotation[] rot = new Rotation[n];
+		Vec[] mag = new Vec[n];
+		for (int i = 0; i < n; i++) {
+			AbstractKeyFrame kf = keyFrameList.get(i);
+			t[i] = kf.time();
+			pos[i] = kf.position();
+			rot[i] = kf.orientation();
+			mag[i] = kf.magnitude();
+		}
+
+		// Greedy pass: candidate c is dropped if the path defined by the kept keyFrames, followed by all the remaining
+		// ones, stays within tolerance. Dropping c only changes the tangents of the last kept keyFrame and of c+1, i.e.,
+		// the two kept segments before c+1, which are the ones verified.
+		int[] kept = new int[n];
+		int count = 0;
+		kept[count++] = 0;
+		int[] w = new int[5];
+		for (int c = 1; c < n - 1; c++) {
+			int m = 0;
+			for (int k = Math.max(count - 3, 0); k < count; k++)
+				w[m++] = kept[k];
+			int p1 = m - 1;
+			w[m++] = c + 1;
+			if (c + 2 < n)
+				w[m++] = c + 2;
+			boolean first = w[0] == 0;
+			boolean last = c + 2 >= n;
+			boolean drop = true;
+			for (int seg = Math.max(p1 - 1, 0); seg <= p1 && drop; seg++)
+				for (int j = w[seg] + 1; j < w[seg + 1] && drop; j++)
+					drop = keyFrameIsWithinTolerance(j, w, m, seg, first, last, t, pos, rot, mag, positionTolerance,
+							orientationTolerance, magnitudeTolerance);
+			if (!drop)
+				kept[count++] = c;
+		}
+		kept[count++] = n - 1;
+
+		if (count == n)
+			return 1;
+
+		if (interpolationIsStarted())
+			stopInterpolation();
+		List<AbstractKeyFrame> reduced = new ArrayList<AbstractKeyFrame>(count);
+		for (int i = 0, k = 0; i < n; i++) {
+			AbstractKeyFrame kf = keyFrameList.get(i);
+			if (k < count && kept[k] == i) {
+				reduced.add(kf);
+				k++;
+			}
+			else {
+				kf.frame().detachKeyFrame(kf);
+				kf.index = -1;
+				if (kf.frm instanceof InteractiveFrame)
+					scene.inputHandler().removeFromAllAgentPools((InteractiveFrame) kf.frm);
+			}
+		}
+		keyFrameList.clear();
+		keyFrameList.addAll(reduced);
+		for (int i = 0; i < keyFrameList.size(); i++)
+			keyFrameList.get(i).index = i;
+		pooledVersion = -1;
+		keyFrameTimesCount = 0;
+		invalidateValues();
+		currentFrmValid = false;
+		setInterpolationTime(firstTime());
+		return (float) n / (float) count;
+	}
+
+	/**
+	 * Internal use. Used by {@link #reduceKeyFrames(float, float, float)} to check whether or not the keyFrame
+	 * {@code j} is approximated within tolerance by segment {@code w[seg]}, {@code w[seg+1]} of the path defined by the
+	 * keyFrame indices in {@code w} ({@code m} of them). {@code first} ({@code last}) is true when {@code w[0]} (
+	 * {@code w[m-1]}) is the first (last) keyFrame of the path.
+	 */
+	protected boolean keyFrameIsWithinTolerance(int j, int[] w, int m, int seg, boolean first, boolean last,
+			float[] t, Vec[] pos, Rotation[] rot, Vec[] mag, float positionTolerance, float orientationTolerance,
+			float magnitudeTolerance) {
+		int a = w[seg];
+		int b = w[seg + 1];
+		int aPrev = seg > 0 ? w[seg - 1] : (first ? a : -1);
+		int bNext = seg + 2 < m ? w[seg + 2] : (last ? b : -1);
+		// neighbors outside the window are never needed (see reduceKeyFrames), but be conservative anyway
+		if (aPrev < 0 || bNext < 0)
+			return false;
+
+		float dt = t[b] - t[a];
+		float alpha = Util.zero(dt) ? 0.0f : (t[j] - t[a]) / dt;
+
+		Vec tgPA = Vec.multiply(Vec.subtract(pos[b], pos[aPrev]), 0.5f);
+		Vec tgPB = Vec.multiply(Vec.subtract(pos[bNext], pos[a]), 0.5f);
+		Vec p = hermite(pos[a], pos[b], tgPA, tgPB, alpha);
+		if (Vec.distance(p, pos[j]) > positionTolerance)
+			return false;
+
+		Vec tgSA = Vec.multiply(Vec.subtract(mag[b], mag[aPrev]), 0.5f);
+		Vec tgSB = Vec.multiply(Vec.subtract(mag[bNext], mag[a]), 0.5f);
+		Vec s = hermite(mag[a], mag[b], tgSA, tgSB, alpha);
+		if (Vec.distance(s, mag[j]) > magnitudeTolerance)
+			return false;
+
+		float angle;
+		if (scene.is3D()) {
+			Quat q = Quat.squad((Quat) rot[a], Quat.squadTangent((Quat) rot[aPrev], (Quat) rot[a], (Quat) rot[b]),
+					Quat.squadTangent((Quat) rot[a], (Quat) rot[b], (Quat) rot[bNext]), (Quat) rot[b], alpha);
+			float dot = Math.min(Math.abs(Quat.dot(q, (Quat) rot[j])), 1.0f);
+			angle = 2.0f * (float) Math.acos(dot);
+		}
+		else
+			angle = Math.abs(lerp(rot[a].angle(), rot[b].angle(), alpha) - rot[j].angle());
+		return angle <= orientationTolerance;
+	}
+
+	/**
+	 * Internal use. Cubic Hermite interpolation, as computed by {@link #interpolateAtTime(float)}.
+	 */
+	protected Vec hermite(Vec p1, Vec p2, Vec tg1, Vec tg2, float alpha) {
+		Vec delta = Vec.subtract(p2, p1);
+		Vec v1 = Vec.subtract(Vec.add(Vec.multiply(delta, 3.0f), Vec.multiply(tg1, (-2.0f))), tg2);
+		Vec v2 = Vec.add(Vec.add(Vec.multiply(delta, (-2.0f)), tg1), tg2);
+		return Vec.add(p1, Vec.multiply(Vec.add(tg1, Vec.multiply(Vec.add(v1, Vec.multiply(v2, alpha)), alpha)), alpha));
+	}
+
 	/**
 	 * Removes all keyFrames from the path. Calls {@link #removeFramesFromAllAgentPools()}. The
 	 * {@link #numberOfKeyFrames()} is set to 0.
@@ -709,9 +964,14 @@ public class KeyFrameInterpolator implements Copyable {
 	public void deletePath() {
 		stopInterpolation();
 		removeFramesFromAllAgentPools();
+		for (int i = 0; i < keyFrameList.size(); i++) {
+			keyFrameList.get(i).frame().detachKeyFrame(keyFrameList.get(i));
+			keyFrameList.get(i).index = -1;
+		}
 		keyFrameList.clear();
-		pathIsValid = false;
-		valuesAreValid = false;
+		pooledVersion = -1;
+		keyFrameTimesCount = 0;
+		invalidateValues();
 		currentFrmValid = false;
 	}
 
@@ -730,31 +990,33 @@ public class KeyFrameInterpolator implements Copyable {
 	/**
 	 * Re-adds all the Frames to all the pools of the agents registered at the
 	 * {@link remixlab.dandelion.core.AbstractScene#inputHandler()}.
+	 * <p>
+	 * If the agent pools didn't change since the last call (see
+	 * {@link remixlab.bias.core.InputHandler#poolsVersion()}), only the keyFrames appended since then are added, so that
+	 * calling it each time the path is drawn stays cheap while recording.
 	 * 
 	 * @see #removeFramesFromAllAgentPools()
 	 */
 	public void addFramesToAllAgentPools() {
-		for (int i = 0; i < keyFrameList.size(); ++i)
+		int from = scene.inputHandler().poolsVersion() == pooledVersion ? Math.min(pooledKeyFrames, keyFrameList.size())
+				: 0;
+		for (int i = from; i < keyFrameList.size(); ++i)
 			if (keyFrameList.get(i).frame() instanceof InteractiveFrame)
 				scene.inputHandler().addInAllAgentPools((InteractiveFrame) keyFrameList.get(i).frame());
+		pooledKeyFrames = keyFrameList.size();
+		pooledVersion = scene.inputHandler().poolsVersion();
 	}
 
+	/**
+	 * Internal use. Recomputes the tangents of the keyFrames invalidated since the last call.
+	 */
 	protected void updateModifiedFrameValues() {
-		AbstractKeyFrame kf;
-		AbstractKeyFrame prev = keyFrameList.get(0);
-		kf = keyFrameList.get(0);
-
-		int index = 1;
-		while (kf != null) {
-			AbstractKeyFrame next = (index < keyFrameList.size()) ? keyFrameList.get(index) : null;
-			index++;
-			if (next != null)
-				kf.computeTangent(prev, next);
-			else
-				kf.computeTangent(prev, kf);
-			prev = kf;
-			kf = next;
-		}
+		int last = keyFrameList.size() - 1;
+		int to = Math.min(invalidTangentsTo, last);
+		for (int i = Math.max(invalidTangentsFrom, 0); i <= to; i++)
+			keyFrameList.get(i).computeTangent(keyFrameList.get(Math.max(i - 1, 0)), keyFrameList.get(Math.min(i + 1, last)));
+		invalidTangentsFrom = Integer.MAX_VALUE;
+		invalidTangentsTo = -1;
 		valuesAreValid = true;
 	}
 
@@ -771,101 +1033,102 @@ public class KeyFrameInterpolator implements Copyable {
 	}
 
 	/**
-	 * Intenal use. Call {@link #checkValidity()} and if path is not valid recomputes it.
+	 * Intenal use. Call {@link #checkValidity()} and if path is not valid recomputes it. Only the path segments
+	 * affected by the keyFrames added, removed or modified since the last call are recomputed.
 	 */
 	protected void updatePath() {
 		checkValidity();
 		if (!pathIsValid) {
-			path.clear();
 			int nbSteps = 30;
 
-			if (keyFrameList.isEmpty())
+			if (keyFrameList.isEmpty()) {
+				path.clear();
 				return;
+			}
 
 			if (!valuesAreValid)
 				updateModifiedFrameValues();
 
-			if (keyFrameList.get(0) == keyFrameList.get(keyFrameList.size() - 1))
+			if (keyFrameList.size() == 1) {
+				path.clear();
 				path.add(new Frame(keyFrameList.get(0).orientation(), keyFrameList.get(0).position(), keyFrameList.get(0)
 						.magnitude()));
+			}
 			else {
-				AbstractKeyFrame[] kf = new AbstractKeyFrame[4];
-				kf[0] = keyFrameList.get(0);
-				kf[1] = kf[0];
-
-				int index = 1;
-				kf[2] = (index < keyFrameList.size()) ? keyFrameList.get(index) : null;
-				index++;
-				kf[3] = (index < keyFrameList.size()) ? keyFrameList.get(index) : null;
-
-				while (kf[2] != null) {
-					Vec pdiff = Vec.subtract(kf[2].position(), kf[1].position());
-					Vec pvec1 = Vec.add(Vec.multiply(pdiff, 3.0f), Vec.multiply(kf[1].tgP(), (-2.0f)));
-					pvec1 = Vec.subtract(pvec1, kf[2].tgP());
-					Vec pvec2 = Vec.add(Vec.multiply(pdiff, (-2.0f)), kf[1].tgP());
-					pvec2 = Vec.add(pvec2, kf[2].tgP());
+				// keep the valid leading segments (the last keyFrame is always re-added)
+				int segment = Math.min(validPathSegments, Math.min(keyFrameList.size() - 1, path.size() / nbSteps));
+				path.subList(segment * nbSteps, path.size()).clear();
+
+				for (; segment < keyFrameList.size() - 1; segment++) {
+					AbstractKeyFrame kf1 = keyFrameList.get(segment);
+					AbstractKeyFrame kf2 = keyFrameList.get(segment + 1);
+					Vec pdiff = Vec.subtract(kf2.position(), kf1.position());
+					Vec pvec1 = Vec.add(Vec.multiply(pdiff, 3.0f), Vec.multiply(kf1.tgP(), (-2.0f)));
+					pvec1 = Vec.subtract(pvec1, kf2.tgP());
+					Vec pvec2 = Vec.add(Vec.multiply(pdiff, (-2.0f)), kf1.tgP());
+					pvec2 = Vec.add(pvec2, kf2.tgP());
 
 					// /**
 					// Option 2 (interpolate magnitude using a spline)
-					Vec sdiff = Vec.subtract(kf[2].magnitude(), kf[1].magnitude());
-					Vec svec1 = Vec.add(Vec.multiply(sdiff, 3.0f), Vec.multiply(kf[1].tgS(), (-2.0f)));
-					svec1 = Vec.subtract(svec1, kf[2].tgS());
-					Vec svec2 = Vec.add(Vec.multiply(sdiff, (-2.0f)), kf[1].tgS());
-					svec2 = Vec.add(svec2, kf[2].tgS());
+					Vec sdiff = Vec.subtract(kf2.magnitude(), kf1.magnitude());
+					Vec svec1 = Vec.add(Vec.multiply(sdiff, 3.0f), Vec.multiply(kf1.tgS(), (-2.0f)));
+					svec1 = Vec.subtract(svec1, kf2.tgS());
+					Vec svec2 = Vec.add(Vec.multiply(sdiff, (-2.0f)), kf1.tgS());
+					svec2 = Vec.add(svec2, kf2.tgS());
 					// */
 
 					for (int step = 0; step < nbSteps; ++step) {
 						Frame frame = new Frame(scene.is3D());
 						float alpha = step / (float) nbSteps;
-						frame.setPosition(Vec.add(kf[1].position(), Vec.multiply(
-								Vec.add(kf[1].tgP(), Vec.multiply(Vec.add(pvec1, Vec.multiply(pvec2, alpha)), alpha)), alpha)));
+						frame.setPosition(Vec.add(kf1.position(), Vec.multiply(
+								Vec.add(kf1.tgP(), Vec.multiply(Vec.add(pvec1, Vec.multiply(pvec2, alpha)), alpha)), alpha)));
 						if (scene.is3D()) {
-							frame.setOrientation(Quat.squad((Quat) kf[1].orientation(), ((KeyFrame3D) kf[1]).tgQ(),
-									((KeyFrame3D) kf[2]).tgQ(), (Quat) kf[2].orientation(), alpha));
+							frame.setOrientation(Quat.squad((Quat) kf1.orientation(), ((KeyFrame3D) kf1).tgQ(),
+									((KeyFrame3D) kf2).tgQ(), (Quat) kf2.orientation(), alpha));
 						}
 						else {
 							// linear interpolation
-							float start = kf[1].orientation().angle();
-							float stop = kf[2].orientation().angle();
+							float start = kf1.orientation().angle();
+							float stop = kf2.orientation().angle();
 							frame.setOrientation(new Rot(start + (stop - start) * alpha));
 						}
-						// myFrame.setMagnitude(magnitudeLerp(kf[1], kf[2], alpha));
+						// myFrame.setMagnitude(magnitudeLerp(kf1, kf2, alpha));
 						// Option 2 (interpolate magnitude using a spline)
-						frame.setMagnitude(Vec.add(kf[1].magnitude(), Vec.multiply(
-								Vec.add(kf[1].tgS(), Vec.multiply(Vec.add(svec1, Vec.multiply(svec2, alpha)), alpha)), alpha)));
-						path.add(frame.get());
+						frame.setMagnitude(Vec.add(kf1.magnitude(), Vec.multiply(
+								Vec.add(kf1.tgS(), Vec.multiply(Vec.add(svec1, Vec.multiply(svec2, alpha)), alpha)), alpha)));
+						path.add(frame);
 					}
-
-					// Shift
-					kf[0] = kf[1];
-					kf[1] = kf[2];
-					kf[2] = kf[3];
-
-					index++;
-					kf[3] = (index < keyFrameList.size()) ? keyFrameList.get(index) : null;
 				}
 				// Add last KeyFrame
-				path.add(new Frame(kf[1].orientation(), kf[1].position(), kf[1].magnitude()));
+				AbstractKeyFrame last = keyFrameList.get(keyFrameList.size() - 1);
+				path.add(new Frame(last.orientation(), last.position(), last.magnitude()));
 			}
+			validPathSegments = keyFrameList.size() - 1;
 			pathIsValid = true;
 		}
 	}
 
 	/**
-	 * Internal use. Calls {@link #invalidateValues()} if a keyFrame (frame) defining the path was recently modified.
+	 * Internal use. Calls {@link #invalidateValues(int, int)} for each keyFrame (frame) defining the path that was recently
+	 * modified.
+	 * <p>
+	 * KeyFrame frames report their modifications as they happen (see
+	 * {@link remixlab.dandelion.core.Frame#notifyKeyFrames()}), so that only the modified keyFrames are visited: the
+	 * call costs O(1) when none was modified, e.g., while recording a path or seeking it many times per frame.
 	 */
 	protected void checkValidity() {
-		boolean flag = false;
-		for (AbstractKeyFrame element : keyFrameList) {
-			if (element.frame().lastUpdate() > lastUpdate()) {
-				flag = true;
-				break;
-			}
-		}
-		if (flag) {
-			this.invalidateValues();
-			this.checked();
+		if (modifiedKeyFrames.isEmpty())
+			return;
+		for (int i = 0; i < modifiedKeyFrames.size(); i++) {
+			AbstractKeyFrame kf = modifiedKeyFrames.get(i);
+			kf.modified = false;
+			// removed keyFrames may have been flagged as well
+			if (kf.index >= 0)
+				// the keyFrame position is used by the tangents of its neighbors
+				this.invalidateValues(kf.index - 1, kf.index + 1);
 		}
+		modifiedKeyFrames.clear();
+		this.checked();
 	}
 
 	/**
@@ -936,75 +1199,80 @@ public class KeyFrameInterpolator implements Copyable {
 			return keyFrameList.get(keyFrameList.size() - 1).time();
 	}
 
-	protected void updateCurrentKeyFrameForTime(float time) {
-		// Assertion: times are sorted in monotone order.
-		// Assertion: keyFrame_ is not empty
-
-		// TODO: Special case for loops when closed path is implemented !!
-		if (!currentFrmValid)
-			// Recompute everything from scratch
-			currentFrame1 = keyFrameList.listIterator();
-
-		// currentFrame_[1]->peekNext() <---> keyFr.get(currentFrame1.nextIndex());
-		while (keyFrameList.get(currentFrame1.nextIndex()).time() > time) {
-			currentFrmValid = false;
-			if (!currentFrame1.hasPrevious())
-				break;
-			currentFrame1.previous();
+	/**
+	 * Internal use. Returns the sorted array of keyFrame times, rebuilding it if it went out of sync with the keyFrame
+	 * list. Only the first {@link #numberOfKeyFrames()} entries are meaningful.
+	 */
+	protected float[] keyFrameTimes() {
+		if (keyFrameTimesCount != keyFrameList.size()) {
+			if (keyFrameTimes.length < keyFrameList.size())
+				keyFrameTimes = new float[Math.max(16, 2 * keyFrameList.size())];
+			for (int i = 0; i < keyFrameList.size(); i++)
+				keyFrameTimes[i] = keyFrameList.get(i).time();
+			keyFrameTimesCount = keyFrameList.size();
 		}
+		return keyFrameTimes;
+	}
 
-		if (!currentFrmValid)
-			// *currentFrame_[2] = *currentFrame_[1]; <---> currentFrame2 =
-			// keyFr.listIterator( currentFrame1.nextIndex() );
-			currentFrame2 = keyFrameList.listIterator(currentFrame1.nextIndex());
-
-		while (keyFrameList.get(currentFrame2.nextIndex()).time() < time) {
-			currentFrmValid = false;
-
-			if (!currentFrame2.hasNext())
-				break;
-
-			currentFrame2.next();
+	/**
+	 * Internal use. Returns the index of the first keyFrame whose time is greater than or equal to {@code time}, or the
+	 * last keyFrame index if there's none. The keyFrames around {@code hint} are tried first (O(1) for monotonic
+	 * playback); a binary search is performed otherwise.
+	 */
+	protected int keyFrameIndexForTime(float time, int hint) {
+		float[] t = keyFrameTimes();
+		int n = keyFrameTimesCount;
+		if (time > t[n - 1])
+			return n - 1;
+		for (int i = hint; i <= hint + 1; i++)
+			if (i >= 0 && i < n && t[i] >= time && (i == 0 || t[i - 1] < time))
+				return i;
+		int low = 0;
+		int high = n - 1;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (t[mid] < time)
+				low = mid + 1;
+			else
+				high = mid;
 		}
+		return low;
+	}
 
-		if (!currentFrmValid) {
-			currentFrame1 = keyFrameList.listIterator(currentFrame2.nextIndex());
-
-			if ((currentFrame1.hasPrevious())
-					&& (time < keyFrameList.get(currentFrame2.nextIndex()).time()))
-				currentFrame1.previous();
-
-			currentFrame0 = keyFrameList.listIterator(currentFrame1.nextIndex());
-
-			if (currentFrame0.hasPrevious())
-				currentFrame0.previous();
-
-			currentFrame3 = keyFrameList.listIterator(currentFrame2.nextIndex());
-
-			if (currentFrame3.hasNext())
-				currentFrame3.next();
+	protected void updateCurrentKeyFrameForTime(float time) {
+		// Assertion: times are sorted in monotone order.
+		// Assertion: keyFrame_ is not empty
 
+		// TODO: Special case for loops when closed path is implemented !!
+		int index2 = keyFrameIndexForTime(time, currentFrmValid ? currentFrame2 : 0);
+		int index1 = ((index2 > 0) && (time < keyFrameTimes[index2])) ? index2 - 1 : index2;
+
+		if (!currentFrmValid || index1 != currentFrame1 || index2 != currentFrame2) {
+			currentFrame1 = index1;
+			currentFrame2 = index2;
+			currentFrame0 = Math.max(currentFrame1 - 1, 0);
+			currentFrame3 = Math.min(currentFrame2 + 1, keyFrameList.size() - 1);
 			currentFrmValid = true;
 			splineCacheIsValid = false;
 		}
 	}
 
 	protected void updateSplineCache() {
-		Vec deltaP = Vec.subtract(keyFrameList.get(currentFrame2.nextIndex()).position(),
-				keyFrameList.get(currentFrame1.nextIndex()).position());
-		pv1 = Vec.add(Vec.multiply(deltaP, 3.0f), Vec.multiply(keyFrameList.get(currentFrame1.nextIndex()).tgP(), (-2.0f)));
-		pv1 = Vec.subtract(pv1, keyFrameList.get(currentFrame2.nextIndex()).tgP());
-		pv2 = Vec.add(Vec.multiply(deltaP, (-2.0f)), keyFrameList.get(currentFrame1.nextIndex()).tgP());
-		pv2 = Vec.add(pv2, keyFrameList.get(currentFrame2.nextIndex()).tgP());
+		Vec deltaP = Vec.subtract(keyFrameList.get(currentFrame2).position(),
+				keyFrameList.get(currentFrame1).position());
+		pv1 = Vec.add(Vec.multiply(deltaP, 3.0f), Vec.multiply(keyFrameList.get(currentFrame1).tgP(), (-2.0f)));
+		pv1 = Vec.subtract(pv1, keyFrameList.get(currentFrame2).tgP());
+		pv2 = Vec.add(Vec.multiply(deltaP, (-2.0f)), keyFrameList.get(currentFrame1).tgP());
+		pv2 = Vec.add(pv2, keyFrameList.get(currentFrame2).tgP());
 
 		// /**
 		// Option 2 (interpolate magnitude using a spline)
-		Vec deltaS = Vec.subtract(keyFrameList.get(currentFrame2.nextIndex()).magnitude(),
-				keyFrameList.get(currentFrame1.nextIndex()).magnitude());
-		sv1 = Vec.add(Vec.multiply(deltaS, 3.0f), Vec.multiply(keyFrameList.get(currentFrame1.nextIndex()).tgS(), (-2.0f)));
-		sv1 = Vec.subtract(sv1, keyFrameList.get(currentFrame2.nextIndex()).tgS());
-		sv2 = Vec.add(Vec.multiply(deltaS, (-2.0f)), keyFrameList.get(currentFrame1.nextIndex()).tgS());
-		sv2 = Vec.add(sv2, keyFrameList.get(currentFrame2.nextIndex()).tgS());
+		Vec deltaS = Vec.subtract(keyFrameList.get(currentFrame2).magnitude(),
+				keyFrameList.get(currentFrame1).magnitude());
+		sv1 = Vec.add(Vec.multiply(deltaS, 3.0f), Vec.multiply(keyFrameList.get(currentFrame1).tgS(), (-2.0f)));
+		sv1 = Vec.subtract(sv1, keyFrameList.get(currentFrame2).tgS());
+		sv2 = Vec.add(Vec.multiply(deltaS, (-2.0f)), keyFrameList.get(currentFrame1).tgS());
+		sv2 = Vec.add(sv2, keyFrameList.get(currentFrame2).tgS());
 		// */
 
 		splineCacheIsValid = true;
@@ -1033,42 +1301,42 @@ public class KeyFrameInterpolator implements Copyable {
 			updateSplineCache();
 
 		float alpha;
-		float dt = keyFrameList.get(currentFrame2.nextIndex()).time() - keyFrameList.get(currentFrame1.nextIndex()).time();
+		float dt = keyFrameList.get(currentFrame2).time() - keyFrameList.get(currentFrame1).time();
 		if (Util.zero(dt))
 			alpha = 0.0f;
 		else
-			alpha = (time - keyFrameList.get(currentFrame1.nextIndex()).time()) / dt;
+			alpha = (time - keyFrameList.get(currentFrame1).time()) / dt;
 
 		// Linear interpolation - debug
 		// Vec pos = alpha*(currentFrame2->peekNext()->position()) +
 		// (1.0-alpha)*(currentFrame1->peekNext()->position());
 		// Vec pos = currentFrame_[1]->peekNext()->position() + alpha *
 		// (currentFrame_[1]->peekNext()->tgP() + alpha * (v1+alpha*v2));
-		Vec pos = Vec.add(keyFrameList.get(currentFrame1.nextIndex()).position(),
-				Vec.multiply(Vec.add(keyFrameList.get(currentFrame1.nextIndex()).tgP(),
+		Vec pos = Vec.add(keyFrameList.get(currentFrame1).position(),
+				Vec.multiply(Vec.add(keyFrameList.get(currentFrame1).tgP(),
 						Vec.multiply(Vec.add(pv1, Vec.multiply(pv2, alpha)), alpha)), alpha));
 
 		/**
-		 * //Option 1 Vec mag = magnitudeLerp((keyFr.get(currentFrame1.nextIndex())),
-		 * (keyFr.get(currentFrame2.nextIndex())), (alpha)); //
+		 * //Option 1 Vec mag = magnitudeLerp((keyFr.get(currentFrame1)),
+		 * (keyFr.get(currentFrame2)), (alpha)); //
 		 */
 
 		// /**
 		// Option 2 (interpolate magnitude using a spline)
-		Vec mag = Vec.add(keyFrameList.get(currentFrame1.nextIndex()).magnitude(),
-				Vec.multiply(Vec.add(keyFrameList.get(currentFrame1.nextIndex()).tgS(),
+		Vec mag = Vec.add(keyFrameList.get(currentFrame1).magnitude(),
+				Vec.multiply(Vec.add(keyFrameList.get(currentFrame1).tgS(),
 						Vec.multiply(Vec.add(sv1, Vec.multiply(sv2, alpha)), alpha)), alpha));
 		// */
 
 		Rotation q;
 		if (scene.is3D()) {
-			q = Quat.squad((Quat) keyFrameList.get(currentFrame1.nextIndex()).orientation(),
-					((KeyFrame3D) keyFrameList.get(currentFrame1.nextIndex())).tgQ(),
-					((KeyFrame3D) keyFrameList.get(currentFrame2.nextIndex())).tgQ(),
-					(Quat) keyFrameList.get(currentFrame2.nextIndex()).orientation(), alpha);
+			q = Quat.squad((Quat) keyFrameList.get(currentFrame1).orientation(),
+					((KeyFrame3D) keyFrameList.get(currentFrame1)).tgQ(),
+					((KeyFrame3D) keyFrameList.get(currentFrame2)).tgQ(),
+					(Quat) keyFrameList.get(currentFrame2).orientation(), alpha);
 		} else {
-			q = new Rot(rotationLerp(keyFrameList.get(currentFrame1.nextIndex()),
-					keyFrameList.get(currentFrame2.nextIndex()),
+			q = new Rot(rotationLerp(keyFrameList.get(currentFrame1),
+					keyFrameList.get(currentFrame2),
 					(alpha)));
 		}
 
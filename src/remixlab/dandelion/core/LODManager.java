@@ -0,0 +1,323 @@
+/*********************************************************************************
+ * dandelion_tree
+ * Copyright (c) 2014 National University of Colombia, https://github.com/remixlab
+ * @author Jean Pierre Charalambos, http://otrolado.info/
+ *
+ * All rights reserved. Library that eases the creation of interactive
+ * scenes, released under the terms of the GNU Public License v3.0
+ * which is available at http://www.gnu.org/licenses/gpl.html
+ *********************************************************************************/
+
+package remixlab.dandelion.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+import remixlab.dandelion.geom.Vec;
+
+/**
+ * Level of detail (LOD) manager. Picks, once per frame, a detail level for each registered
+ * {@link remixlab.dandelion.core.Frame} from its projected size on screen, as given by
+ * {@link remixlab.dandelion.core.Eye#pixelSceneRatio(Vec)}.
+ * <p>
+ * Each frame is registered together with a bounding radius (defined in the frame coordinate system) and a descending
+ * list of thresholds, given as projected radii in pixels. Level {@code 0} (full detail) is selected when the projected
+ * radius is at least {@code thresholds[0]}, level {@code i} when it is at least {@code thresholds[i]}, and level
+ * {@code thresholds.length} (the coarsest one) otherwise. To avoid popping, a frame only moves to a finer level when its
+ * projected radius exceeds the threshold by the {@link #hysteresis()} factor, and to a coarser one when it falls below
+ * it by the same factor.
+ * <p>
+ * The {@link remixlab.dandelion.core.AbstractScene#lodManager()} is updated automatically in
+ * {@link remixlab.dandelion.core.AbstractScene#preDraw()}. Query the results in your drawing code, e.g.,
+ * {@code scene.drawCone(lod.detail(frame, 32, 4), 0, 0, r, h)}. Frames are compared by identity.
+ *
+ * @see #level(Frame)
+ * @see #detail(Frame, int, int)
+ */
+public class LODManager {
+	protected AbstractScene										scene;
+	protected List<Frame>											frameList;
+	protected IdentityHashMap<Frame, Integer>	frameIndex;
+	protected float[]													radii;
+	protected float[][]												thresholds;
+	protected int[]														levels;
+	protected float[]													projectedRadii;
+	protected float[]													defaultThresholds;
+	protected float														hysteresis;
+
+	public LODManager(AbstractScene scn) {
+		scene = scn;
+		frameList = new ArrayList<Frame>();
+		frameIndex = new IdentityHashMap<Frame, Integer>();
+		radii = new float[16];
+		thresholds = new float[16][];
+		levels = new int[16];
+		projectedRadii = new float[16];
+		defaultThresholds = new float[] { 100, 30, 10 };
+		hysteresis = 0.1f;
+	}
+
+	/**
+	 * Convenience function that simply calls {@code add(frame, radius, null)}, i.e., using the
+	 * {@link #defaultThresholds()}.
+	 */
+	public boolean add(Frame frame, float radius) {
+		return add(frame, radius, null);
+	}
+
+	/**
+	 * Registers {@code frame}, bounded by a ball of {@code radius} (defined in the frame coordinate system) centered at
+	 * the frame origin. {@code levelThresholds} are the projected radii in pixels from which each level is selected, in
+	 * descending order. Pass {@code null} to use the {@link #defaultThresholds()}. If {@code frame} was already registered
+	 * its radius and thresholds are updated.
+	 * <p>
+	 * The frame is assigned the coarsest level until the next {@link #update()}.
+	 *
+	 * @return true if the frame wasn't registered before
+	 */
+	public boolean add(Frame frame, float radius, float[] levelThresholds) {
+		if (frame == null)
+			return false;
+		if (levelThresholds != null)
+			for (int i = 1; i < levelThresholds.length; i++)
+				if (levelThresholds[i] > levelThresholds[i - 1])
+					throw new RuntimeException("LOD thresholds should be given in descending order");
+		int index = indexOf(frame);
+		boolean added = index < 0;
+		if (added) {
+			index = frameList.size();
+			frameList.add(frame);
+			frameIndex.put(frame, index);
+			ensureCapacity(index + 1);
+		}
+		radii[index] = radius;
+		thresholds[index] = levelThresholds == null ? null : levelThresholds.clone();
+		levels[index] = thresholdsOf(index).length;
+		projectedRadii[index] = 0;
+		return added;
+	}
+
+	/**
+	 * Unregisters {@code frame}.
+	 */
+	public boolean remove(Frame frame) {
+		int index = indexOf(frame);
+		if (index < 0)
+			return false;
+		int last = frameList.size() - 1;
+		frameList.remove(index);
+		frameIndex.remove(frame);
+		for (int i = index; i < last; i++)
+			frameIndex.put(frameList.get(i), i);
+		System.arraycopy(radii, index + 1, radii, index, last - index);
+		System.arraycopy(thresholds, index + 1, thresholds, index, last - index);
+		System.arraycopy(levels, index + 1, levels, index, last - index);
+		System.arraycopy(projectedRadii, index + 1, projectedRadii, index, last - index);
+		thresholds[last] = null;
+		return true;
+	}
+
+	/**
+	 * Returns true if {@code frame} is registered.
+	 */
+	public boolean contains(Frame frame) {
+		return indexOf(frame) >= 0;
+	}
+
+	/**
+	 * Unregisters all frames.
+	 */
+	public void clear() {
+		frameList.clear();
+		frameIndex.clear();
+		Arrays.fill(thresholds, null);
+	}
+
+	/**
+	 * Returns the number of registered frames.
+	 */
+	public int size() {
+		return frameList.size();
+	}
+
+	/**
+	 * Returns the index of {@code frame} (comparing by identity), or -1 if it isn't registered. Takes constant time.
+	 */
+	public int indexOf(Frame frame) {
+		Integer i = frameIndex.get(frame);
+		return i == null ? -1 : i;
+	}
+
+	/**
+	 * Returns the thresholds used by frames registered without their own ones. Default is {@code 100, 30, 10} pixels,
+	 * i.e., four levels.
+	 */
+	public float[] defaultThresholds() {
+		return defaultThresholds;
+	}
+
+	/**
+	 * Sets the {@link #defaultThresholds()}, in descending order.
+	 */
+	public void setDefaultThresholds(float[] levelThresholds) {
+		for (int i = 1; i < levelThresholds.length; i++)
+			if (levelThresholds[i] > levelThresholds[i - 1])
+				throw new RuntimeException("LOD thresholds should be given in descending order");
+		defaultThresholds = levelThresholds.clone();
+	}
+
+	/**
+	 * Returns the hysteresis factor used to avoid popping. A frame moves to a finer level only when its projected radius
+	 * reaches {@code threshold * (1 + hysteresis())}, and to a coarser one only when it falls below
+	 * {@code threshold * (1 - hysteresis())}. Default is 0.1.
+	 */
+	public float hysteresis() {
+		return hysteresis;
+	}
+
+	/**
+	 * Sets the {@link #hysteresis()} factor. Should be in [0..1).
+	 */
+	public void setHysteresis(float factor) {
+		if (factor < 0 || factor >= 1) {
+			System.out.println("Warning: LOD hysteresis should be in [0..1) - Ignoring value");
+			return;
+		}
+		hysteresis = factor;
+	}
+
+	/**
+	 * Returns the level selected for {@code frame} at the last {@link #update()}: {@code 0} for full detail, up to the
+	 * number of thresholds for the coarsest one. Returns -1 if {@code frame} isn't registered.
+	 */
+	public int level(Frame frame) {
+		int index = indexOf(frame);
+		return index < 0 ? -1 : levels[index];
+	}
+
+	/**
+	 * Returns the level selected for the {@code index}-th registered frame at the last {@link #update()}.
+	 *
+	 * @see #indexOf(Frame)
+	 */
+	public int level(int index) {
+		return levels[index];
+	}
+
+	/**
+	 * Returns the number of levels of {@code frame}, i.e., the length of its thresholds plus one, or 0 if it isn't
+	 * registered.
+	 */
+	public int levelCount(Frame frame) {
+		int index = indexOf(frame);
+		return index < 0 ? 0 : thresholdsOf(index).length + 1;
+	}
+
+	/**
+	 * Returns the projected radius (in pixels) computed for {@code frame} at the last {@link #update()}, or 0 if it isn't
+	 * registered.
+	 */
+	public float projectedRadius(Frame frame) {
+		int index = indexOf(frame);
+		return index < 0 ? 0 : projectedRadii[index];
+	}
+
+	/**
+	 * Maps the {@link #level(Frame)} of {@code frame} to a detail (e.g., the number of subdivisions passed to
+	 * {@link remixlab.dandelion.core.AbstractScene#drawCone(int, float, float, float, float)} or
+	 * {@link remixlab.dandelion.core.AbstractScene#drawTorusSolenoid(int, int, float, float)}): {@code maxDetail} is
+	 * halved at each level, but never below {@code minDetail}. Returns {@code maxDetail} if {@code frame} isn't
+	 * registered.
+	 */
+	public int detail(Frame frame, int maxDetail, int minDetail) {
+		int level = level(frame);
+		if (level <= 0)
+			return maxDetail;
+		return Math.max(maxDetail >> Math.min(level, 31), minDetail);
+	}
+
+	/**
+	 * Returns {@code details[level(frame)]}, clamped to the {@code details} bounds, i.e., one user defined detail per
+	 * level, from the finest to the coarsest one.
+	 */
+	public int detail(Frame frame, int[] details) {
+		int level = Math.max(level(frame), 0);
+		return details[Math.min(level, details.length - 1)];
+	}
+
+	/**
+	 * Computes the projected radius of all registered frames and updates their levels. Called by
+	 * {@link remixlab.dandelion.core.AbstractScene#preDraw()}, once the eye matrices are bound.
+	 * <p>
+	 * With a perspective {@link remixlab.dandelion.core.Camera} the per frame
+	 * {@link remixlab.dandelion.core.Eye#pixelSceneRatio(Vec)} is evaluated in bulk, from the eye position, view
+	 * direction and field of view computed once. Otherwise it doesn't depend on the position and is computed only once.
+	 */
+	public void update() {
+		int n = frameList.size();
+		if (n == 0)
+			return;
+		Eye eye = scene.eye();
+		boolean perspective = eye instanceof Camera && ((Camera) eye).type() == Camera.Type.PERSPECTIVE;
+		float ratio = 1, k = 0;
+		Vec eyePos = null, viewDir = null;
+		if (perspective) {
+			Camera camera = (Camera) eye;
+			k = 2.0f * (float) Math.tan(camera.fieldOfView() / 2.0f) / camera.screenHeight();
+			eyePos = camera.position();
+			viewDir = camera.viewDirection();
+		}
+		else
+			ratio = eye.pixelSceneRatio(eye.position());
+		for (int i = 0; i < n; i++) {
+			Frame frame = frameList.get(i);
+			Vec m = frame.magnitude();
+			float radius = radii[i] * Math.max(Math.abs(m.x()), Math.max(Math.abs(m.y()), frame.is3D() ? Math.abs(m.z()) : 0));
+			if (perspective) {
+				Vec p = frame.position();
+				float depth = Math.abs((p.x() - eyePos.x()) * viewDir.x() + (p.y() - eyePos.y()) * viewDir.y()
+						+ (p.z() - eyePos.z()) * viewDir.z());
+				ratio = depth * k;
+			}
+			projectedRadii[i] = ratio > 0 ? radius / ratio : Float.MAX_VALUE;
+			levels[i] = selectLevel(levels[i], projectedRadii[i], thresholdsOf(i));
+		}
+	}
+
+	/**
+	 * Internal use. Returns the new level, starting at {@code current}, for an object with a {@code projected} radius,
+	 * applying the {@link #hysteresis()}.
+	 */
+	protected int selectLevel(int current, float projected, float[] levelThresholds) {
+		int level = Math.min(Math.max(current, 0), levelThresholds.length);
+		// finer
+		while (level > 0 && projected >= levelThresholds[level - 1] * (1 + hysteresis))
+			level--;
+		// coarser
+		while (level < levelThresholds.length && projected < levelThresholds[level] * (1 - hysteresis))
+			level++;
+		return level;
+	}
+
+	/**
+	 * Internal use. Returns the thresholds of the {@code index}-th frame.
+	 */
+	protected float[] thresholdsOf(int index) {
+		return thresholds[index] == null ? defaultThresholds : thresholds[index];
+	}
+
+	/**
+	 * Internal use. Grows the per frame arrays to hold at least {@code capacity} frames.
+	 */
+	protected void ensureCapacity(int capacity) {
+		if (capacity <= radii.length)
+			return;
+		int newCapacity = Math.max(capacity, 2 * radii.length);
+		radii = Arrays.copyOf(radii, newCapacity);
+		thresholds = Arrays.copyOf(thresholds, newCapacity);
+		levels = Arrays.copyOf(levels, newCapacity);
+		projectedRadii = Arrays.copyOf(projectedRadii, newCapacity);
+	}
+}
@@ -11,6 +11,8 @@
 package remixlab.dandelion.core;
 
 import remixlab.dandelion.geom.*;
+import remixlab.fpstiming.TimingHandler;
+import remixlab.util.Trace;
 import remixlab.util.Util;
 
 /**
@@ -22,20 +24,163 @@ public abstract class MatrixHelper implements Constants {
 
 	protected Mat						projectionViewMat, projectionViewInverseMat;
 	protected boolean				unprojectCacheIsOptimized, projectionViewMatHasInverse;
+	protected Mat[]					stereoProjectionViewMat;
+
+	// eye matrices cache
+	protected Eye						cachedEye;
+	protected long					cacheStamp	= -1;
+	protected int						cachedWidth, cachedHeight;
+	protected boolean				cachedLeftHanded;
+	protected float					cachedRadius;
+	protected Vec						cachedCenter, cachedAnchor;
+	protected long					cacheHits, cacheMisses;
 
 	public MatrixHelper(AbstractScene scn) {
 		scene = scn;
 		projectionViewMat = new Mat();
 		unprojectCacheIsOptimized = false;
+		cachedCenter = new Vec();
+		cachedAnchor = new Vec();
 	}
 
 	/**
 	 * Load {@link #projection()} and {@link #modelView()} in {@link remixlab.dandelion.core.AbstractScene#preDraw()}.
+	 * <p>
+	 * The eye view and projection matrices, together with {@link #projectionView()} (and
+	 * {@link #projectionViewInverse()}), are only recomputed when {@link #eyeHasChanged()}. Otherwise the previously
+	 * computed ones are simply (re)loaded.
+	 * 
+	 * @see #cacheHitRate()
 	 */
 	public void bind() {
-		loadProjection();
-		loadModelView();// TODO test also: initModelView(false);
-		cacheProjectionViewInverse();
+		long token = Trace.begin(Trace.BIND);
+		boolean changed = eyeHasChanged();
+		if (changed) {
+			scene.eye().computeProjection();
+			scene.eye().computeView();
+			if (scene.eye() instanceof Camera && ((Camera) scene.eye()).isStereoEnabled())
+				((Camera) scene.eye()).computeStereo();
+		}
+		setProjection(scene.eye().projectionMat);
+		setModelView(scene.eye().viewMat);// TODO test also: initModelView(false);
+		if (changed)
+			cacheProjectionViewInverse();
+		Trace.end(Trace.BIND, token, scene.eye(), null, null);
+	}
+
+	/**
+	 * Loads the left (if {@code left} is {@code true}) or right eye {@link #projection()} and {@link #modelView()}, as
+	 * computed by the last {@link #bind()} (see {@link remixlab.dandelion.core.Camera#computeStereo()}), together with
+	 * their {@link #stereoProjectionView(boolean)}. Call it before drawing each eye pass.
+	 * <p>
+	 * {@link #projectionView()} and {@link #projectionViewInverse()} are left untouched: they keep the center eye
+	 * matrices, which are the ones used to pick, (un)project coordinates and update the
+	 * {@link remixlab.dandelion.core.OcclusionCuller}, and which {@link #bind()} only recomputes when the eye changes.
+	 * <p>
+	 * The {@link remixlab.dandelion.core.AbstractScene#eye()} should be a {@link remixlab.dandelion.core.Camera} having
+	 * {@link remixlab.dandelion.core.Camera#isStereoEnabled()}. The boundary equations, which bound both eye frustums in
+	 * stereo mode, are not recomputed, so that visibility tests may be shared by both passes.
+	 */
+	public void bindStereo(boolean left) {
+		if (!(scene.eye() instanceof Camera) || !((Camera) scene.eye()).isStereoEnabled())
+			throw new RuntimeException("bindStereo requires a Camera eye with stereo enabled");
+		Camera camera = (Camera) scene.eye();
+		setProjection(camera.getStereoProjection(left));
+		setModelView(camera.getStereoView(left));
+		if (stereoProjectionViewMat == null)
+			stereoProjectionViewMat = new Mat[] { new Mat(), new Mat() };
+		Mat.multiply(camera.getStereoProjection(left), camera.getStereoView(left), stereoProjectionViewMat[left ? 0 : 1]);
+	}
+
+	/**
+	 * Returns the left (if {@code left} is {@code true}) or right eye {@code P x M}, as computed by the last
+	 * {@link #bindStereo(boolean)} call for that eye, or {@code null} if it hasn't been called yet.
+	 * 
+	 * @see #projectionView()
+	 */
+	public Mat stereoProjectionView(boolean left) {
+		return stereoProjectionViewMat == null ? null : stereoProjectionViewMat[left ? 0 : 1];
+	}
+
+	/**
+	 * Internal use. Returns {@code true} if the eye matrices need to be recomputed since the last call, i.e., if the
+	 * {@link remixlab.dandelion.core.AbstractScene#eye()} was replaced or updated (see
+	 * {@link remixlab.dandelion.core.Eye#lastUpdate()}), or if the screen size, the scene radius, center or anchor, or the
+	 * scene handedness were changed. Updates the {@link #cacheHits()} and {@link #cacheMisses()} counters.
+	 * <p>
+	 * Note that the eye is considered to be changed while it is being modified within the current frame.
+	 */
+	protected boolean eyeHasChanged() {
+		Eye eye = scene.eye();
+		boolean changed = eye != cachedEye || eye.lastUpdate() >= cacheStamp || eye.screenWidth() != cachedWidth
+				|| eye.screenHeight() != cachedHeight || eye.sceneRadius() != cachedRadius
+				|| scene.isLeftHanded() != cachedLeftHanded || !sameValues(eye.sceneCenter(), cachedCenter)
+				|| !sameValues(eye.anchor(), cachedAnchor);
+		if (!changed) {
+			cacheHits++;
+			return false;
+		}
+		cacheMisses++;
+		cachedEye = eye;
+		cacheStamp = TimingHandler.frameCount;
+		cachedWidth = eye.screenWidth();
+		cachedHeight = eye.screenHeight();
+		cachedRadius = eye.sceneRadius();
+		cachedLeftHanded = scene.isLeftHanded();
+		cachedCenter.set(eye.sceneCenter());
+		cachedAnchor.set(eye.anchor());
+		return true;
+	}
+
+	private static boolean sameValues(Vec v1, Vec v2) {
+		return v1.x() == v2.x() && v1.y() == v2.y() && v1.z() == v2.z();
+	}
+
+	/**
+	 * Forces the eye matrices to be recomputed at the next {@link #bind()}.
+	 */
+	public void invalidateCache() {
+		cacheStamp = -1;
+		cachedEye = null;
+	}
+
+	/**
+	 * Returns the number of {@link #bind()} calls that reused the cached eye matrices.
+	 * 
+	 * @see #cacheMisses()
+	 * @see #cacheHitRate()
+	 */
+	public long cacheHits() {
+		return cacheHits;
+	}
+
+	/**
+	 * Returns the number of {@link #bind()} calls that recomputed the eye matrices.
+	 * 
+	 * @see #cacheHits()
+	 * @see #cacheHitRate()
+	 */
+	public long cacheMisses() {
+		return cacheMisses;
+	}
+
+	/**
+	 * Returns {@link #cacheHits()} / ({@link #cacheHits()} + {@link #cacheMisses()}), or 0 if {@link #bind()} hasn't
+	 * been called yet.
+	 * 
+	 * @see #resetCacheCounters()
+	 */
+	public float cacheHitRate() {
+		long total = cacheHits + cacheMisses;
+		return total == 0 ? 0 : (float) cacheHits / (float) total;
+	}
+
+	/**
+	 * Resets the {@link #cacheHits()} and {@link #cacheMisses()} counters.
+	 */
+	public void resetCacheCounters() {
+		cacheHits = 0;
+		cacheMisses = 0;
 	}
 
 	/**
@@ -69,6 +214,8 @@ public abstract class MatrixHelper implements Constants {
 	 * @see #cacheProjectionViewInverse()
 	 */
 	public void optimizeUnprojectCache(boolean optimise) {
+		if (optimise && !unprojectCacheIsOptimized)
+			invalidateCache();
 		unprojectCacheIsOptimized = optimise;
 	}
 
@@ -97,7 +244,8 @@ public abstract class MatrixHelper implements Constants {
 	 * @see remixlab.dandelion.core.Eye#getProjection(boolean)
 	 */
 	public void loadProjection() {
-		setProjection(scene.eye().getProjection(true));
+		scene.eye().computeProjection();
+		setProjection(scene.eye().projectionMat);
 	}
 
 	/**
@@ -116,7 +264,7 @@ public abstract class MatrixHelper implements Constants {
 	public void loadModelView(boolean includeView) {
 		scene.eye().computeView();
 		if (includeView)
-			setModelView(scene.eye().getView(false));
+			setModelView(scene.eye().viewMat);
 		else
 			resetModelView();// loads identity -> only model, (excludes view)
 	}
@@ -0,0 +1,399 @@
+/*********************************************************************************
+ * dandelion_tree
+ * Copyright (c) 2014 National University of Colombia, https://github.com/remixlab
+ * @author Jean Pierre Charalambos, http://otrolado.info/
+ *
+ * All rights reserved. Library that eases the creation of interactive
+ * scenes, released under the terms of the GNU Public License v3.0
+ * which is available at http://www.gnu.org/licenses/gpl.html
+ *********************************************************************************/
+
+package remixlab.dandelion.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import remixlab.dandelion.geom.Vec;
+
+/**
+ * Splits a triangle mesh into clusters (patches) of triangles having similar normals and precomputes, once, the
+ * normal cone and bounding ball of each cluster, so that whole back facing clusters can be skipped every frame with a
+ * single test per cluster (see {@link #visibleClusters(Camera, Frame, int[])}).
+ * <p>
+ * Triangles are first binned by normal direction (24 bins, i.e., the four quadrants of each cube face), then sorted
+ * spatially within each bin and split into clusters of at most {@link #maxClusterSize()} triangles. The mesh triangle
+ * indices are reordered so that the triangles of each cluster are contiguous (see {@link #triangles()},
+ * {@link #clusterStart(int)} and {@link #clusterSize(int)}). Cones are packed into a single array (see
+ * {@link #packedCones()}).
+ * <p>
+ * A cluster is back facing when every one of its triangles faces away from the eye for every point of its bounding
+ * ball, i.e., when the eye lies outside the ball and {@code phi + angle + asin(radius / distance) < PI/2}, {@code phi}
+ * being the angle between the cone axis and the eye to cluster center direction (see
+ * {@link Camera#coneIsBackFacing(Vec, float, Vec, float)}). Both {@code phi} and {@code angle + asin(radius / distance)}
+ * are then below {@code PI/2}, and the test compares their cosine and sine, respectively, without any trigonometric
+ * call: {@code dot(axis, v) > sin(angle) * sqrt(d^2 - r^2) + cos(angle) * r} and
+ * {@code cos(angle) * sqrt(d^2 - r^2) > sin(angle) * r}.
+ * Counter-clockwise triangles are considered front facing.
+ */
+public class MeshClusters {
+	/**
+	 * Number of floats per cluster in {@link #packedCones()}: axis (x, y, z), sin and cos of the cone angle, bounding
+	 * ball center (x, y, z) and radius.
+	 */
+	public static final int	STRIDE	= 9;
+
+	protected float[]				vertices;
+	protected int[]					triangles;
+	protected int						maxClusterSize;
+	protected float[]				cones;
+	protected int[]					clusterStart;
+	protected int						clusterCount;
+
+	/**
+	 * Convenience constructor that simply calls {@code this(vertexData, triangleIndices, 64)}.
+	 */
+	public MeshClusters(float[] vertexData, int[] triangleIndices) {
+		this(vertexData, triangleIndices, 64);
+	}
+
+	/**
+	 * Builds the clusters of the mesh given by {@code vertexData}, holding consecutive {@code (x, y, z)} triples, and
+	 * {@code triangleIndices}, holding three counter-clockwise vertex indices per triangle. {@code triangleIndices} is not
+	 * modified: see {@link #triangles()} for the reordered indices.
+	 */
+	public MeshClusters(float[] vertexData, int[] triangleIndices, int clusterSize) {
+		if (vertexData.length % 3 != 0 || triangleIndices.length % 3 != 0)
+			throw new RuntimeException("Mesh vertices and indices should come in triples");
+		vertices = vertexData;
+		maxClusterSize = Math.max(clusterSize, 1);
+		build(triangleIndices);
+	}
+
+	/**
+	 * Returns the maximum number of triangles per cluster.
+	 */
+	public int maxClusterSize() {
+		return maxClusterSize;
+	}
+
+	/**
+	 * Returns the mesh triangle indices reordered so that the triangles of each cluster are contiguous.
+	 */
+	public int[] triangles() {
+		return triangles;
+	}
+
+	/**
+	 * Returns the number of clusters.
+	 */
+	public int clusterCount() {
+		return clusterCount;
+	}
+
+	/**
+	 * Returns the index of the first triangle of the {@code cluster} (i.e., its first index in {@link #triangles()} is
+	 * {@code 3 * clusterStart(cluster)}).
+	 */
+	public int clusterStart(int cluster) {
+		return clusterStart[cluster];
+	}
+
+	/**
+	 * Returns the number of triangles of the {@code cluster}.
+	 */
+	public int clusterSize(int cluster) {
+		return clusterStart[cluster + 1] - clusterStart[cluster];
+	}
+
+	/**
+	 * Returns the packed cluster cones, {@link #STRIDE} floats per cluster.
+	 */
+	public float[] packedCones() {
+		return cones;
+	}
+
+	/**
+	 * Returns the normal cone of the {@code cluster} as a {@link remixlab.dandelion.core.Camera.Cone}.
+	 */
+	public Camera.Cone cone(Camera camera, int cluster) {
+		int c = STRIDE * cluster;
+		return camera.new Cone(new Vec(cones[c], cones[c + 1], cones[c + 2]), (float) Math.atan2(cones[c + 3], cones[c + 4]));
+	}
+
+	/**
+	 * Writes into {@code visible} the indices of the clusters which are not back facing the {@code camera}, the mesh
+	 * being defined in the {@code frame} coordinate system (or in the world if {@code frame} is {@code null}), and
+	 * returns their number. {@code visible} should hold at least {@link #clusterCount()} ints.
+	 * <p>
+	 * The camera position (or view direction, for orthographic cameras) is converted into the frame once, so
+	 * {@code frame} should only have uniform scaling.
+	 *
+	 * @see #visibleClusters(float[], int, Vec, boolean, int[])
+	 */
+	public int visibleClusters(Camera camera, Frame frame, int[] visible) {
+		boolean perspective = camera.type() == Camera.Type.PERSPECTIVE;
+		Vec eye;
+		if (perspective)
+			eye = frame == null ? camera.position() : frame.coordinatesOf(camera.position());
+		else {
+			eye = frame == null ? camera.viewDirection() : frame.transformOf(camera.viewDirection());
+			eye.normalize();
+		}
+		return visibleClusters(cones, clusterCount, eye, perspective, visible);
+	}
+
+	/**
+	 * Writes into {@code triangleIndices} the (reordered) indices of the triangles of the clusters which are not back
+	 * facing the {@code camera} (see {@link #visibleClusters(Camera, Frame, int[])}), and returns the number of indices
+	 * written, ready to be submitted. {@code triangleIndices} should be as long as {@link #triangles()}.
+	 */
+	public int visibleTriangles(Camera camera, Frame frame, int[] triangleIndices) {
+		int[] visible = new int[clusterCount];
+		int n = visibleClusters(camera, frame, visible);
+		int count = 0;
+		for (int i = 0; i < n; i++) {
+			int from = 3 * clusterStart[visible[i]];
+			int length = 3 * clusterSize(visible[i]);
+			System.arraycopy(triangles, from, triangleIndices, count, length);
+			count += length;
+		}
+		return count;
+	}
+
+	/**
+	 * Batched back face test over {@code count} packed {@code cones} (see {@link #packedCones()}). {@code eye} is the eye
+	 * position if {@code perspective}, or the normalized view direction otherwise, defined in the cones coordinate
+	 * system. Writes the indices of the non back facing clusters into {@code visible} and returns their number.
+	 */
+	public static int visibleClusters(float[] cones, int count, Vec eye, boolean perspective, int[] visible) {
+		float ex = eye.x(), ey = eye.y(), ez = eye.z();
+		int n = 0;
+		for (int i = 0, c = 0; i < count; i++, c += STRIDE) {
+			float ax = cones[c], ay = cones[c + 1], az = cones[c + 2];
+			float sin = cones[c + 3], cos = cones[c + 4];
+			boolean backFacing;
+			if (cos <= 0)
+				// cone angle >= PI/2
+				backFacing = false;
+			else if (perspective) {
+				float vx = cones[c + 5] - ex, vy = cones[c + 6] - ey, vz = cones[c + 7] - ez;
+				float r = cones[c + 8];
+				float d2 = vx * vx + vy * vy + vz * vz;
+				// phi + angle + asin(r/d) < PI/2 <=> angle + asin(r/d) < PI/2, i.e.,
+				// cos(angle) * sqrt(d^2 - r^2) > sin(angle) * r, and cos(phi) > sin(angle + asin(r/d)), i.e.,
+				// dot(axis, v) > sin(angle) * sqrt(d^2 - r^2) + cos(angle) * r
+				if (d2 > r * r) {
+					float t = (float) Math.sqrt(d2 - r * r);
+					backFacing = cos * t > sin * r && ax * vx + ay * vy + az * vz > sin * t + cos * r;
+				}
+				else
+					backFacing = false;
+			}
+			else
+				backFacing = ax * ex + ay * ey + az * ez > sin;
+			if (!backFacing)
+				visible[n++] = i;
+		}
+		return n;
+	}
+
+	/**
+	 * Internal use. Bins, sorts and splits the triangles into clusters, and computes their cones.
+	 */
+	protected void build(int[] triangleIndices) {
+		final int count = triangleIndices.length / 3;
+		final float[] centroids = new float[3 * count];
+		int[] bins = new int[count];
+		for (int t = 0; t < count; t++) {
+			int i0 = 3 * triangleIndices[3 * t], i1 = 3 * triangleIndices[3 * t + 1], i2 = 3 * triangleIndices[3 * t + 2];
+			float ux = vertices[i1] - vertices[i0], uy = vertices[i1 + 1] - vertices[i0 + 1], uz = vertices[i1 + 2]
+					- vertices[i0 + 2];
+			float vx = vertices[i2] - vertices[i0], vy = vertices[i2 + 1] - vertices[i0 + 1], vz = vertices[i2 + 2]
+					- vertices[i0 + 2];
+			float nx = uy * vz - uz * vy, ny = uz * vx - ux * vz, nz = ux * vy - uy * vx;
+			float norm = (float) Math.sqrt(nx * nx + ny * ny + nz * nz);
+			for (int k = 0; k < 3; k++)
+				centroids[3 * t + k] = (vertices[i0 + k] + vertices[i1 + k] + vertices[i2 + k]) / 3;
+			bins[t] = norm > 0 ? bin(nx, ny, nz) : 24;
+		}
+
+		// group triangles by bin, then sort each bin along a Morton (Z-order) curve of the centroids
+		List<List<Integer>> groups = new ArrayList<List<Integer>>();
+		for (int b = 0; b <= 24; b++)
+			groups.add(new ArrayList<Integer>());
+		for (int t = 0; t < count; t++)
+			groups.get(bins[t]).add(t);
+		final int[] codes = mortonCodes(centroids, count);
+
+		triangles = new int[3 * count];
+		List<Integer> starts = new ArrayList<Integer>();
+		int next = 0;
+		for (List<Integer> group : groups) {
+			if (group.isEmpty())
+				continue;
+			Integer[] sorted = group.toArray(new Integer[group.size()]);
+			Arrays.sort(sorted, new Comparator<Integer>() {
+				@Override
+				public int compare(Integer a, Integer b) {
+					return codes[a] < codes[b] ? -1 : (codes[a] == codes[b] ? 0 : 1);
+				}
+			});
+			for (int i = 0; i < sorted.length; i++) {
+				if (i % maxClusterSize == 0)
+					starts.add(next);
+				System.arraycopy(triangleIndices, 3 * sorted[i], triangles, 3 * next, 3);
+				next++;
+			}
+		}
+		clusterCount = starts.size();
+		clusterStart = new int[clusterCount + 1];
+		for (int i = 0; i < clusterCount; i++)
+			clusterStart[i] = starts.get(i);
+		clusterStart[clusterCount] = count;
+
+		cones = new float[STRIDE * clusterCount];
+		for (int i = 0; i < clusterCount; i++)
+			computeCone(i);
+	}
+
+	/**
+	 * Internal use. Computes the normal cone and the bounding ball of the {@code cluster}.
+	 */
+	protected void computeCone(int cluster) {
+		int from = clusterStart[cluster], to = clusterStart[cluster + 1];
+		int c = STRIDE * cluster;
+		// cone axis: normalized sum of the normals
+		float ax = 0, ay = 0, az = 0;
+		float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE, minZ = Float.MAX_VALUE;
+		float maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE, maxZ = -Float.MAX_VALUE;
+		boolean degenerate = false;
+		for (int t = from; t < to; t++) {
+			float[] n = normal(t);
+			if (n == null)
+				degenerate = true;
+			else {
+				ax += n[0];
+				ay += n[1];
+				az += n[2];
+			}
+			for (int k = 0; k < 3; k++) {
+				int v = 3 * triangles[3 * t + k];
+				minX = Math.min(minX, vertices[v]);
+				minY = Math.min(minY, vertices[v + 1]);
+				minZ = Math.min(minZ, vertices[v + 2]);
+				maxX = Math.max(maxX, vertices[v]);
+				maxY = Math.max(maxY, vertices[v + 1]);
+				maxZ = Math.max(maxZ, vertices[v + 2]);
+			}
+		}
+		float norm = (float) Math.sqrt(ax * ax + ay * ay + az * az);
+		float minCos = -1;
+		if (norm > 0 && !degenerate) {
+			ax /= norm;
+			ay /= norm;
+			az /= norm;
+			minCos = 1;
+			for (int t = from; t < to; t++) {
+				float[] n = normal(t);
+				minCos = Math.min(minCos, n[0] * ax + n[1] * ay + n[2] * az);
+			}
+		}
+		else {
+			ax = 0;
+			ay = 0;
+			az = 1;
+		}
+		minCos = Math.max(Math.min(minCos, 1), -1);
+		cones[c] = ax;
+		cones[c + 1] = ay;
+		cones[c + 2] = az;
+		// angle = acos(minCos)
+		cones[c + 3] = (float) Math.sqrt(1 - minCos * minCos);
+		cones[c + 4] = minCos;
+		float cx = (minX + maxX) / 2, cy = (minY + maxY) / 2, cz = (minZ + maxZ) / 2;
+		float r2 = 0;
+		for (int t = from; t < to; t++)
+			for (int k = 0; k < 3; k++) {
+				int v = 3 * triangles[3 * t + k];
+				float dx = vertices[v] - cx, dy = vertices[v + 1] - cy, dz = vertices[v + 2] - cz;
+				r2 = Math.max(r2, dx * dx + dy * dy + dz * dz);
+			}
+		cones[c + 5] = cx;
+		cones[c + 6] = cy;
+		cones[c + 7] = cz;
+		cones[c + 8] = (float) Math.sqrt(r2);
+	}
+
+	/**
+	 * Internal use. Returns the normalized normal of the {@code t}-th (reordered) triangle, or null if it is degenerate.
+	 */
+	protected float[] normal(int t) {
+		int i0 = 3 * triangles[3 * t], i1 = 3 * triangles[3 * t + 1], i2 = 3 * triangles[3 * t + 2];
+		float ux = vertices[i1] - vertices[i0], uy = vertices[i1 + 1] - vertices[i0 + 1], uz = vertices[i1 + 2]
+				- vertices[i0 + 2];
+		float vx = vertices[i2] - vertices[i0], vy = vertices[i2 + 1] - vertices[i0 + 1], vz = vertices[i2 + 2]
+				- vertices[i0 + 2];
+		float nx = uy * vz - uz * vy, ny = uz * vx - ux * vz, nz = ux * vy - uy * vx;
+		float norm = (float) Math.sqrt(nx * nx + ny * ny + nz * nz);
+		if (norm == 0)
+			return null;
+		return new float[] { nx / norm, ny / norm, nz / norm };
+	}
+
+	/**
+	 * Internal use. Returns the normal bin, in [0..24): the dominant axis and its sign select a cube face, and the signs
+	 * of the two other components one of its quadrants.
+	 */
+	protected static int bin(float nx, float ny, float nz) {
+		float x = Math.abs(nx), y = Math.abs(ny), z = Math.abs(nz);
+		int face;
+		float u, v;
+		if (x >= y && x >= z) {
+			face = nx > 0 ? 0 : 1;
+			u = ny;
+			v = nz;
+		}
+		else if (y >= z) {
+			face = ny > 0 ? 2 : 3;
+			u = nx;
+			v = nz;
+		}
+		else {
+			face = nz > 0 ? 4 : 5;
+			u = nx;
+			v = ny;
+		}
+		return 4 * face + (u >= 0 ? 0 : 1) + (v >= 0 ? 0 : 2);
+	}
+
+	/**
+	 * Internal use. Returns the 30 bits Morton code of each triangle centroid, quantized within the mesh bounding box.
+	 */
+	protected static int[] mortonCodes(float[] centroids, int count) {
+		float[] min = { Float.MAX_VALUE, Float.MAX_VALUE, Float.MAX_VALUE };
+		float[] max = { -Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE };
+		for (int t = 0; t < count; t++)
+			for (int k = 0; k < 3; k++) {
+				min[k] = Math.min(min[k], centroids[3 * t + k]);
+				max[k] = Math.max(max[k], centroids[3 * t + k]);
+			}
+		int[] codes = new int[count];
+		for (int t = 0; t < count; t++) {
+			int code = 0;
+			for (int k = 0; k < 3; k++) {
+				float extent = max[k] - min[k];
+				int q = extent > 0 ? (int) ((centroids[3 * t + k] - min[k]) / extent * 1023) : 0;
+				// spread the 10 bits of q, two zeros apart
+				q = (q | (q << 16)) & 0x030000FF;
+				q = (q | (q << 8)) & 0x0300F00F;
+				q = (q | (q << 4)) & 0x030C30C3;
+				q = (q | (q << 2)) & 0x09249249;
+				code |= q << k;
+			}
+			codes[t] = code;
+		}
+		return codes;
+	}
+}
@@ -0,0 +1,500 @@
+/*********************************************************************************
+ * dandelion_tree
+ * Copyright (c) 2014 National University of Colombia, https://github.com/remixlab
+ * @author Jean Pierre Charalambos, http://otrolado.info/
+ *
+ * All rights reserved. Library that eases the creation of interactive
+ * scenes, released under the terms of the GNU Public License v3.0
+ * which is available at http://www.gnu.org/licenses/gpl.html
+ *********************************************************************************/
+
+package remixlab.dandelion.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import remixlab.dandelion.geom.Mat;
+import remixlab.dandelion.geom.Vec;
+
+/**
+ * Software occlusion culler. Rasterizes a set of user designated occluder meshes into a small CPU depth buffer and
+ * tests object bounds against a hierarchical-Z (HiZ) pyramid built from it, so that objects hidden behind walls can be
+ * skipped before being drawn. No GPU is needed, so it also runs headless.
+ * <p>
+ * Occluders are triangle meshes (see {@link #addOccluder(Frame, float[], int[])}) defined in the coordinate system of a
+ * {@link remixlab.dandelion.core.Frame} (or in the world, if the frame is {@code null}). Choose them big and simple
+ * (walls, floors, large machinery casings): they should be fully contained in the objects they stand for, since the
+ * culler trusts them to be opaque.
+ * <p>
+ * Call {@link #update()} once per frame, after the eye matrices are bound (e.g., at the beginning of your drawing
+ * code, or automatically if the culler was obtained with
+ * {@link remixlab.dandelion.core.AbstractScene#occlusionCuller()}), and then query {@link #boxIsOccluded(Vec, Vec)} or
+ * {@link #ballIsOccluded(Vec, float)}. Tests are conservative: objects crossing the near plane or lying outside the
+ * screen are never reported as occluded. Combine them with the eye frustum culling (e.g.,
+ * {@link remixlab.dandelion.core.Eye#boxIsVisible(Vec, Vec)}).
+ * <p>
+ * The depth buffer is split in horizontal bands of {@link #tileSize()} rows which can be rasterized by several threads
+ * (see {@link #setThreads(int)}).
+ */
+public class OcclusionCuller {
+	protected AbstractScene			scene;
+	protected int								width, height, tileSize, threads;
+	protected float[][]					hiZ;
+	protected int[]							hiZWidth, hiZHeight;
+	protected Mat								projectionView;
+
+	// occluders
+	protected List<Frame>				frames;
+	protected List<float[]>			vertices;
+	protected List<int[]>				indices;
+
+	// screen space triangles: x0, y0, z0, x1, y1, z1, x2, y2, z2
+	protected float[]						triangles;
+	protected int								triangleCount;
+	protected float[]						clip			= new float[0];
+
+	// stats
+	protected long							tests, occluded;
+
+	private ExecutorService			executor;
+
+	/**
+	 * Convenience constructor that simply calls {@code this(scn, 256, 128)}.
+	 */
+	public OcclusionCuller(AbstractScene scn) {
+		this(scn, 256, 128);
+	}
+
+	/**
+	 * Defines a culler with a {@code w} x {@code h} depth buffer. Keep it small (a few hundred pixels wide is usually
+	 * enough) and with the same aspect ratio as the scene.
+	 */
+	public OcclusionCuller(AbstractScene scn, int w, int h) {
+		scene = scn;
+		frames = new ArrayList<Frame>();
+		vertices = new ArrayList<float[]>();
+		indices = new ArrayList<int[]>();
+		triangles = new float[9 * 64];
+		projectionView = new Mat();
+		tileSize = 16;
+		threads = 1;
+		setResolution(w, h);
+	}
+
+	/**
+	 * Sets the depth buffer resolution.
+	 */
+	public void setResolution(int w, int h) {
+		if (w <= 0 || h <= 0)
+			throw new RuntimeException("Occlusion depth buffer size should be positive");
+		width = w;
+		height = h;
+		int levels = 1;
+		for (int s = Math.max(w, h); s > 1; s = (s + 1) / 2)
+			levels++;
+		hiZ = new float[levels][];
+		hiZWidth = new int[levels];
+		hiZHeight = new int[levels];
+		for (int l = 0, lw = w, lh = h; l < levels; l++, lw = (lw + 1) / 2, lh = (lh + 1) / 2) {
+			hiZ[l] = new float[lw * lh];
+			hiZWidth[l] = lw;
+			hiZHeight[l] = lh;
+			Arrays.fill(hiZ[l], 1);
+		}
+	}
+
+	/**
+	 * Returns the depth buffer width.
+	 */
+	public int width() {
+		return width;
+	}
+
+	/**
+	 * Returns the depth buffer height.
+	 */
+	public int height() {
+		return height;
+	}
+
+	/**
+	 * Returns the depth buffer (the HiZ pyramid level 0), row by row, as normalized depths in [0..1] (1 being the far
+	 * plane, i.e., no occluder). Valid until the next {@link #update()}.
+	 */
+	public float[] depthBuffer() {
+		return hiZ[0];
+	}
+
+	/**
+	 * Returns the number of rows of each depth buffer band rasterized as a single task. Default is 16.
+	 */
+	public int tileSize() {
+		return tileSize;
+	}
+
+	/**
+	 * Sets the {@link #tileSize()}.
+	 */
+	public void setTileSize(int rows) {
+		tileSize = Math.max(rows, 1);
+	}
+
+	/**
+	 * Returns the number of threads used to rasterize the occluders. Default is 1, i.e., the calling thread.
+	 */
+	public int threads() {
+		return threads;
+	}
+
+	/**
+	 * Sets the number of {@link #threads()}. The threads are daemons, created the first time they are needed.
+	 */
+	public void setThreads(int n) {
+		threads = Math.max(n, 1);
+		if (executor != null) {
+			executor.shutdown();
+			executor = null;
+		}
+	}
+
+	/**
+	 * Adds an occluder mesh. {@code vertexData} holds consecutive {@code (x, y, z)} triples defined in the {@code frame}
+	 * coordinate system (or in the world if {@code frame} is {@code null}), and {@code triangleIndices} three vertex
+	 * indices per triangle. Arrays are not copied: changes made to them are taken into account at the next
+	 * {@link #update()}.
+	 */
+	public void addOccluder(Frame frame, float[] vertexData, int[] triangleIndices) {
+		if (vertexData.length % 3 != 0 || triangleIndices.length % 3 != 0)
+			throw new RuntimeException("Occluder vertices and indices should come in triples");
+		for (int i = 0; i < triangleIndices.length; i++)
+			if (triangleIndices[i] < 0 || 3 * triangleIndices[i] >= vertexData.length)
+				throw new RuntimeException("Occluder index out of bounds: " + triangleIndices[i]);
+		frames.add(frame);
+		vertices.add(vertexData);
+		indices.add(triangleIndices);
+	}
+
+	/**
+	 * Convenience function that adds an axis aligned box occluder, spanning from {@code p1} to {@code p2}, defined in the
+	 * {@code frame} coordinate system (or in the world if {@code frame} is {@code null}).
+	 */
+	public void addBoxOccluder(Frame frame, Vec p1, Vec p2) {
+		float[] v = new float[24];
+		for (int c = 0; c < 8; c++) {
+			v[3 * c] = (c & 1) != 0 ? p2.x() : p1.x();
+			v[3 * c + 1] = (c & 2) != 0 ? p2.y() : p1.y();
+			v[3 * c + 2] = (c & 4) != 0 ? p2.z() : p1.z();
+		}
+		addOccluder(frame, v, new int[] {
+				0, 1, 3, 0, 3, 2, 4, 5, 7, 4, 7, 6, // z faces
+				0, 1, 5, 0, 5, 4, 2, 3, 7, 2, 7, 6, // y faces
+				0, 2, 6, 0, 6, 4, 1, 3, 7, 1, 7, 5 }); // x faces
+	}
+
+	/**
+	 * Removes all the occluders of {@code frame} (which may be {@code null}).
+	 */
+	public void removeOccluders(Frame frame) {
+		for (int i = frames.size() - 1; i >= 0; i--)
+			if (frames.get(i) == frame) {
+				frames.remove(i);
+				vertices.remove(i);
+				indices.remove(i);
+			}
+	}
+
+	/**
+	 * Removes all the occluders.
+	 */
+	public void clear() {
+		frames.clear();
+		vertices.clear();
+		indices.clear();
+	}
+
+	/**
+	 * Returns the number of occluder meshes.
+	 */
+	public int occluderCount() {
+		return frames.size();
+	}
+
+	/**
+	 * Returns the number of occluder triangles rasterized at the last {@link #update()}.
+	 */
+	public int rasterizedTriangles() {
+		return triangleCount;
+	}
+
+	/**
+	 * Returns the number of occlusion tests performed since the last {@link #resetStats()}.
+	 */
+	public long tests() {
+		return tests;
+	}
+
+	/**
+	 * Returns the number of occlusion tests reporting an occluded object since the last {@link #resetStats()}.
+	 */
+	public long occluded() {
+		return occluded;
+	}
+
+	/**
+	 * Resets the {@link #tests()} and {@link #occluded()} counters.
+	 */
+	public void resetStats() {
+		tests = 0;
+		occluded = 0;
+	}
+
+	/**
+	 * Rasterizes the occluders using the {@link remixlab.dandelion.core.MatrixHelper#projectionView()} bound by the
+	 * scene.
+	 *
+	 * @see #update(Mat)
+	 */
+	public void update() {
+		update(scene.matrixHelper().projectionView());
+	}
+
+	/**
+	 * Rasterizes the occluders into the depth buffer using the {@code pv} (projection times view) matrix, and builds the
+	 * HiZ pyramid. The occlusion tests use the same matrix. Useful to cull from an arbitrary point of view, e.g.,
+	 * headless.
+	 */
+	public void update(Mat pv) {
+		projectionView.set(pv);
+		setupTriangles();
+		Arrays.fill(hiZ[0], 1);
+		int bands = (height + tileSize - 1) / tileSize;
+		if (threads == 1 || bands == 1)
+			rasterize(0, height);
+		else {
+			List<Callable<Object>> tasks = new ArrayList<Callable<Object>>();
+			for (int b = 0; b < bands; b++) {
+				final int y0 = b * tileSize;
+				final int y1 = Math.min(y0 + tileSize, height);
+				tasks.add(new Callable<Object>() {
+					@Override
+					public Object call() {
+						rasterize(y0, y1);
+						return null;
+					}
+				});
+			}
+			runAll(tasks);
+		}
+		buildHiZ();
+	}
+
+	/**
+	 * Internal use. Transforms all the occluder triangles into screen space. Triangles crossing the near plane are
+	 * discarded, which is conservative (they can only hide less).
+	 */
+	protected void setupTriangles() {
+		triangleCount = 0;
+		Mat m = new Mat();
+		for (int o = 0; o < frames.size(); o++) {
+			Frame frame = frames.get(o);
+			if (frame == null)
+				m.set(projectionView);
+			else
+				Mat.multiply(projectionView, frame.bulkMatrix(true, false), m);
+			float[] v = vertices.get(o);
+			int[] idx = indices.get(o);
+			int n = v.length / 3;
+			if (clip.length < 4 * n)
+				clip = new float[4 * n];
+			float[] a = m.mat;
+			for (int i = 0; i < n; i++) {
+				float x = v[3 * i], y = v[3 * i + 1], z = v[3 * i + 2];
+				float w = a[3] * x + a[7] * y + a[11] * z + a[15];
+				if (w < 1E-5f) {
+					clip[4 * i + 3] = -1;
+					continue;
+				}
+				clip[4 * i] = ((a[0] * x + a[4] * y + a[8] * z + a[12]) / w * 0.5f + 0.5f) * width;
+				clip[4 * i + 1] = (0.5f - (a[1] * x + a[5] * y + a[9] * z + a[13]) / w * 0.5f) * height;
+				clip[4 * i + 2] = (a[2] * x + a[6] * y + a[10] * z + a[14]) / w * 0.5f + 0.5f;
+				clip[4 * i + 3] = w;
+			}
+			for (int t = 0; t < idx.length; t += 3) {
+				int i0 = 4 * idx[t], i1 = 4 * idx[t + 1], i2 = 4 * idx[t + 2];
+				if (clip[i0 + 3] < 0 || clip[i1 + 3] < 0 || clip[i2 + 3] < 0)
+					continue;
+				// discard triangles completely behind the far plane
+				if (clip[i0 + 2] > 1 && clip[i1 + 2] > 1 && clip[i2 + 2] > 1)
+					continue;
+				if (9 * (triangleCount + 1) > triangles.length)
+					triangles = Arrays.copyOf(triangles, 2 * triangles.length);
+				int d = 9 * triangleCount++;
+				triangles[d] = clip[i0];
+				triangles[d + 1] = clip[i0 + 1];
+				triangles[d + 2] = clip[i0 + 2];
+				triangles[d + 3] = clip[i1];
+				triangles[d + 4] = clip[i1 + 1];
+				triangles[d + 5] = clip[i1 + 2];
+				triangles[d + 6] = clip[i2];
+				triangles[d + 7] = clip[i2 + 1];
+				triangles[d + 8] = clip[i2 + 2];
+			}
+		}
+	}
+
+	/**
+	 * Internal use. Rasterizes all the screen space triangles into the depth buffer rows {@code [y0..y1)}, sampling
+	 * coverage at pixel centers (so that triangles sharing an edge leave no cracks) and keeping the nearest depth. The
+	 * depth written is the farthest one of the triangle plane over the texel, not the one at its center.
+	 * <p>
+	 * Texels at the occluder edges may thus be only partially covered: {@link #boxIsOccluded(Vec, Vec)} compensates for
+	 * it by testing one more texel around the box.
+	 */
+	protected void rasterize(int y0, int y1) {
+		float[] depth = hiZ[0];
+		for (int t = 0; t < triangleCount; t++) {
+			int d = 9 * t;
+			float ax = triangles[d], ay = triangles[d + 1], az = triangles[d + 2];
+			float bx = triangles[d + 3], by = triangles[d + 4], bz = triangles[d + 5];
+			float cx = triangles[d + 6], cy = triangles[d + 7], cz = triangles[d + 8];
+			float area = (bx - ax) * (cy - ay) - (by - ay) * (cx - ax);
+			if (area == 0)
+				continue;
+			int minX = Math.max((int) Math.floor(Math.min(ax, Math.min(bx, cx))), 0);
+			int maxX = Math.min((int) Math.ceil(Math.max(ax, Math.max(bx, cx))), width - 1);
+			int minY = Math.max((int) Math.floor(Math.min(ay, Math.min(by, cy))), y0);
+			int maxY = Math.min((int) Math.ceil(Math.max(ay, Math.max(by, cy))), y1 - 1);
+			if (minX > maxX || minY > maxY)
+				continue;
+			// barycentric coordinates (normalized edge functions, whatever the winding) and depth, as linear functions
+			// f(px, py) = c + x * px + y * py of the screen position
+			float inv = 1 / area;
+			float w0x = (by - cy) * inv, w0y = (cx - bx) * inv, w0c = (bx * cy - by * cx) * inv;
+			float w1x = (cy - ay) * inv, w1y = (ax - cx) * inv, w1c = (cx * ay - cy * ax) * inv;
+			float w2x = -w0x - w1x, w2y = -w0y - w1y, w2c = 1 - w0c - w1c;
+			float zx = az * w0x + bz * w1x + cz * w2x, zy = az * w0y + bz * w1y + cz * w2y;
+			float zc = az * w0c + bz * w1c + cz * w2c;
+			// offset from the texel (x, y) corner to the farthest depth over the texel
+			float zo = Math.max(zx, 0) + Math.max(zy, 0);
+			for (int y = minY; y <= maxY; y++) {
+				float py = y + 0.5f;
+				for (int x = minX; x <= maxX; x++) {
+					float px = x + 0.5f;
+					if (w0c + w0x * px + w0y * py < 0 || w1c + w1x * px + w1y * py < 0 || w2c + w2x * px + w2y * py < 0)
+						continue;
+					float z = zc + zx * x + zy * y + zo;
+					int i = y * width + x;
+					if (z < depth[i])
+						depth[i] = Math.max(z, 0);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Internal use. Builds the HiZ pyramid: each texel keeps the farthest depth of its (up to four) children.
+	 */
+	protected void buildHiZ() {
+		for (int l = 1; l < hiZ.length; l++) {
+			float[] src = hiZ[l - 1], dst = hiZ[l];
+			int sw = hiZWidth[l - 1], sh = hiZHeight[l - 1], dw = hiZWidth[l], dh = hiZHeight[l];
+			for (int y = 0; y < dh; y++)
+				for (int x = 0; x < dw; x++) {
+					int sx = 2 * x, sy = 2 * y;
+					int sx1 = Math.min(sx + 1, sw - 1), sy1 = Math.min(sy + 1, sh - 1);
+					dst[y * dw + x] = Math.max(Math.max(src[sy * sw + sx], src[sy * sw + sx1]),
+							Math.max(src[sy1 * sw + sx], src[sy1 * sw + sx1]));
+				}
+		}
+	}
+
+	/**
+	 * Returns {@code true} if the ball is hidden by the occluders rasterized at the last {@link #update()}.
+	 *
+	 * @see #boxIsOccluded(Vec, Vec)
+	 */
+	public boolean ballIsOccluded(Vec center, float radius) {
+		return boxIsOccluded(new Vec(center.x() - radius, center.y() - radius, center.z() - radius), new Vec(center.x()
+				+ radius, center.y() + radius, center.z() + radius));
+	}
+
+	/**
+	 * Returns {@code true} if the world axis aligned box spanning from {@code p1} to {@code p2} is hidden by the
+	 * occluders rasterized at the last {@link #update()}.
+	 * <p>
+	 * The box is projected onto the screen, and its nearest depth is compared against the farthest occluder depth of the
+	 * HiZ texels covering its screen bounding rectangle grown by one texel, at the coarsest pyramid level where that
+	 * rectangle spans at most two texels per axis. Growing the rectangle accounts for the occluder edge texels whose
+	 * centers are covered but which are only partially hidden (see {@link #rasterize(int, int)}), so that the test stays
+	 * conservative as long as the occluder silhouettes have no concavities smaller than a texel.
+	 */
+	public boolean boxIsOccluded(Vec p1, Vec p2) {
+		tests++;
+		float[] a = projectionView.mat;
+		float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE, maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE;
+		float minZ = Float.MAX_VALUE;
+		for (int c = 0; c < 8; c++) {
+			float x = (c & 1) != 0 ? p2.x() : p1.x();
+			float y = (c & 2) != 0 ? p2.y() : p1.y();
+			float z = (c & 4) != 0 ? p2.z() : p1.z();
+			float w = a[3] * x + a[7] * y + a[11] * z + a[15];
+			// crossing the near plane
+			if (w < 1E-5f)
+				return false;
+			float sx = ((a[0] * x + a[4] * y + a[8] * z + a[12]) / w * 0.5f + 0.5f) * width;
+			float sy = (0.5f - (a[1] * x + a[5] * y + a[9] * z + a[13]) / w * 0.5f) * height;
+			float sz = (a[2] * x + a[6] * y + a[10] * z + a[14]) / w * 0.5f + 0.5f;
+			minX = Math.min(minX, sx);
+			maxX = Math.max(maxX, sx);
+			minY = Math.min(minY, sy);
+			maxY = Math.max(maxY, sy);
+			minZ = Math.min(minZ, sz);
+		}
+		// partially (or fully) outside the screen
+		if (minX < 0 || minY < 0 || maxX > width || maxY > height)
+			return false;
+		int x0 = (int) minX - 1, y0 = (int) minY - 1, x1 = (int) maxX + 1, y1 = (int) maxY + 1;
+		// the grown rectangle would reach outside the depth buffer
+		if (x0 < 0 || y0 < 0 || x1 >= width || y1 >= height)
+			return false;
+		int level = 0;
+		while (level < hiZ.length - 1 && ((x1 >> level) - (x0 >> level) > 1 || (y1 >> level) - (y0 >> level) > 1))
+			level++;
+		float[] z = hiZ[level];
+		int w = hiZWidth[level];
+		for (int y = y0 >> level; y <= y1 >> level; y++)
+			for (int x = x0 >> level; x <= x1 >> level; x++)
+				if (z[y * w + x] >= minZ)
+					return false;
+		occluded++;
+		return true;
+	}
+
+	private void runAll(List<Callable<Object>> tasks) {
+		if (executor == null)
+			executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread t = new Thread(r, "dandelion-occlusion");
+					t.setDaemon(true);
+					return t;
+				}
+			});
+		try {
+			for (Future<Object> f : executor.invokeAll(tasks))
+				f.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Occlusion rasterization interrupted", e);
+		} catch (ExecutionException e) {
+			throw new RuntimeException("Occlusion rasterization failed", e.getCause());
+		}
+	}
+}
@@ -0,0 +1,572 @@
+/*********************************************************************************
+ * dandelion_tree
+ * Copyright (c) 2014 National University of Colombia, https://github.com/remixlab
+ * @author Jean Pierre Charalambos, http://otrolado.info/
+ *
+ * All rights reserved. Library that eases the creation of interactive
+ * scenes, released under the terms of the GNU Public License v3.0
+ * which is available at http://www.gnu.org/licenses/gpl.html
+ *********************************************************************************/
+
+package remixlab.dandelion.core;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+import remixlab.dandelion.constraint.*;
+import remixlab.dandelion.geom.*;
+
+/**
+ * Compact, versioned, binary snapshot of a scene state: a {@link remixlab.dandelion.core.Frame} hierarchy (together
+ * with the frame {@link remixlab.dandelion.core.Frame#constraint()}s), the {@link remixlab.dandelion.core.Eye}
+ * parameters and a set of {@link remixlab.dandelion.core.KeyFrameInterpolator} paths.
+ * <p>
+ * Frames are stored as fixed size records (see {@link #FRAME_BYTES}), so that loading a snapshot allocates all the
+ * frames at once and then fills their kernels directly from the (possibly memory-mapped, see {@link #load(String)})
+ * buffer, bypassing the setters, constraints and reference frame loop checks. Frames are rebuilt as plain
+ * {@link remixlab.dandelion.core.Frame}s, except for those saved from an
+ * {@link remixlab.dandelion.core.InteractiveFrame} which are rebuilt as such. Pass your own frames to
+ * {@link #read(ByteBuffer, List)} to restore the snapshot into them instead, so that no frame gets constructed at all.
+ * <p>
+ * A frame whose {@link remixlab.dandelion.core.Frame#referenceFrame()} isn't part of the snapshot is stored by its
+ * world coordinates (and restored with a {@code null} reference frame). Only {@link LocalConstraint}s,
+ * {@link WorldConstraint}s and {@link CameraConstraint}s (attached to the scene eye on restore) are stored. Keyframes
+ * referencing a frame of the snapshot are restored as references to it, otherwise by value. Frame links (see
+ * {@link remixlab.dandelion.core.Frame#linkTo(Frame)}) are not stored.
+ * <p>
+ * Typical usage:
+ * <p>
+ * {@code SceneSnapshot snapshot = new SceneSnapshot(scene);}<br>
+ * {@code snapshot.add(frames);}<br>
+ * {@code snapshot.add(scene.eye().keyFrameInterpolator(1));}<br>
+ * {@code snapshot.save("workspace.bin");}<br>
+ * {@code // later on}<br>
+ * {@code List<Frame> frames = new SceneSnapshot(scene).load("workspace.bin");}<br>
+ */
+public class SceneSnapshot {
+	/**
+	 * File signature, i.e., the 'DNSS' bytes.
+	 */
+	public static final int	MAGIC							= 0x444E5353;
+	/**
+	 * Current format version. Snapshots having a different version are rejected.
+	 */
+	public static final int	VERSION						= 1;
+	/**
+	 * Size of a frame record: translation (3 floats), rotation (4 floats, the angle and 3 zeros in 2D), scaling (3
+	 * floats), reference frame index, constraint index and flags (3 ints).
+	 */
+	public static final int	FRAME_BYTES				= 52;
+	/**
+	 * Size of a constraint record: kind, translation and rotation constraint types (3 ints), translation direction,
+	 * rotation direction and scaling constraint vector (9 floats).
+	 */
+	public static final int	CONSTRAINT_BYTES	= 48;
+	/**
+	 * Size of the eye record: position (3 floats), orientation (4 floats), magnitude (3 floats), scene radius, scene
+	 * center (3 floats) and anchor (3 floats), followed by the Camera type (int) and its zNear and zClipping
+	 * coefficients, IOD, focus distance, physical distance to screen and physical screen width (6 floats).
+	 */
+	public static final int	EYE_BYTES					= 96;
+	/**
+	 * Size of a keyframe record: time (float), frame index (int), position (3 floats), orientation (4 floats) and
+	 * magnitude (3 floats).
+	 */
+	public static final int	KEYFRAME_BYTES		= 48;
+
+	protected static final int	HEADER_BYTES			= 28;
+	protected static final int	INTERPOLATOR_BYTES	= 20;
+
+	// frame flags
+	protected static final int	INTERACTIVE				= 1;
+
+	// constraint kinds
+	protected static final int	LOCAL							= 1;
+	protected static final int	WORLD							= 2;
+	protected static final int	CAMERA						= 3;
+
+	// eye kinds
+	protected static final int	NO_EYE						= 0;
+	protected static final int	CAMERA_EYE				= 1;
+	protected static final int	WINDOW_EYE				= 2;
+
+	protected AbstractScene											scene;
+	protected List<Frame>												frameList;
+	protected IdentityHashMap<Frame, Integer>		frameIndex;
+	protected List<KeyFrameInterpolator>				interpolatorList;
+	protected boolean														eyeIncluded;
+
+	/**
+	 * Creates an empty snapshot of {@code scn}, including its {@link remixlab.dandelion.core.AbstractScene#eye()}.
+	 */
+	public SceneSnapshot(AbstractScene scn) {
+		scene = scn;
+		frameList = new ArrayList<Frame>();
+		frameIndex = new IdentityHashMap<Frame, Integer>();
+		interpolatorList = new ArrayList<KeyFrameInterpolator>();
+		eyeIncluded = true;
+	}
+
+	/**
+	 * Adds {@code frame} to the snapshot. Does nothing if it was already added.
+	 */
+	public void add(Frame frame) {
+		if (frame != null && indexOf(frame) < 0) {
+			frameIndex.put(frame, frameList.size());
+			frameList.add(frame);
+		}
+	}
+
+	/**
+	 * Adds all {@code frames} to the snapshot.
+	 */
+	public void add(List<? extends Frame> frames) {
+		for (Frame frame : frames)
+			add(frame);
+	}
+
+	/**
+	 * Adds the {@code interpolator} path to the snapshot. Does nothing if it was already added.
+	 */
+	public void add(KeyFrameInterpolator interpolator) {
+		if (interpolator != null && !interpolatorList.contains(interpolator))
+			interpolatorList.add(interpolator);
+	}
+
+	/**
+	 * Returns the snapshot frames, i.e., the added ones or the ones restored by the last {@link #read(ByteBuffer)}.
+	 */
+	public List<Frame> frames() {
+		return frameList;
+	}
+
+	/**
+	 * Returns the snapshot interpolators, i.e., the added ones or the ones restored by the last
+	 * {@link #read(ByteBuffer)}.
+	 */
+	public List<KeyFrameInterpolator> interpolators() {
+		return interpolatorList;
+	}
+
+	/**
+	 * Removes all frames and interpolators from the snapshot.
+	 */
+	public void clear() {
+		frameList.clear();
+		frameIndex.clear();
+		interpolatorList.clear();
+	}
+
+	/**
+	 * Returns true if the scene eye parameters are saved and restored. Default is true.
+	 */
+	public boolean isEyeIncluded() {
+		return eyeIncluded;
+	}
+
+	/**
+	 * Includes or excludes the scene eye parameters from the snapshot, according to {@code flag}.
+	 */
+	public void includeEye(boolean flag) {
+		eyeIncluded = flag;
+	}
+
+	/**
+	 * Returns the index of {@code frame} (comparing by identity), or -1 if it isn't part of the snapshot.
+	 */
+	public int indexOf(Frame frame) {
+		// the frames() list may have been modified directly
+		if (frameIndex.size() != frameList.size())
+			indexFrames();
+		Integer i = frameIndex.get(frame);
+		return i == null || frameList.get(i) != frame ? -1 : i;
+	}
+
+	/**
+	 * Internal use. Rebuilds the frame index from the {@link #frames()} list.
+	 */
+	protected void indexFrames() {
+		frameIndex.clear();
+		for (int i = 0; i < frameList.size(); i++)
+			frameIndex.put(frameList.get(i), i);
+	}
+
+	// 1. Writing
+
+	/**
+	 * Returns the snapshot as a new (flipped) buffer.
+	 *
+	 * @see #save(String)
+	 */
+	public ByteBuffer write() {
+		indexFrames();
+		IdentityHashMap<Constraint, Integer> constraintIndex = new IdentityHashMap<Constraint, Integer>();
+		List<AxisPlaneConstraint> constraints = new ArrayList<AxisPlaneConstraint>();
+		for (Frame frame : frameList) {
+			Constraint c = frame.constraint();
+			if (c == null || constraintIndex.containsKey(c))
+				continue;
+			if (constraintKind(c) == 0) {
+				System.out.println("Warning: SceneSnapshot only stores Local, World and Camera constraints - Skipping "
+						+ c.getClass().getName());
+				continue;
+			}
+			constraintIndex.put(c, constraints.size());
+			constraints.add((AxisPlaneConstraint) c);
+		}
+		int size = HEADER_BYTES + frameList.size() * FRAME_BYTES + constraints.size() * CONSTRAINT_BYTES
+				+ (eyeIncluded ? EYE_BYTES : 0);
+		for (KeyFrameInterpolator kfi : interpolatorList)
+			size += INTERPOLATOR_BYTES + kfi.numberOfKeyFrames() * KEYFRAME_BYTES;
+
+		ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.BIG_ENDIAN);
+		int eyeKind = !eyeIncluded ? NO_EYE : scene.eye() instanceof Camera ? CAMERA_EYE : WINDOW_EYE;
+		buffer.putInt(MAGIC).putInt(VERSION).putInt(scene.is3D() ? 3 : 2).putInt(frameList.size())
+				.putInt(constraints.size()).putInt(interpolatorList.size()).putInt(eyeKind);
+
+		for (Frame frame : frameList) {
+			Integer ref = frame.referenceFrame() == null ? null : frameIndex.get(frame.referenceFrame());
+			if (ref != null || frame.referenceFrame() == null)
+				putFrame(buffer, frame.translation(), frame.rotation(), frame.scaling());
+			else
+				putFrame(buffer, frame.position(), frame.orientation(), frame.magnitude());
+			Integer constraint = frame.constraint() == null ? null : constraintIndex.get(frame.constraint());
+			buffer.putInt(ref == null ? -1 : ref).putInt(constraint == null ? -1 : constraint)
+					.putInt(frame instanceof InteractiveFrame ? INTERACTIVE : 0);
+		}
+
+		for (AxisPlaneConstraint c : constraints) {
+			buffer.putInt(constraintKind(c)).putInt(c.translationConstraintType().ordinal())
+					.putInt(c.rotationConstraintType().ordinal());
+			putVec(buffer, c.translationConstraintDirection());
+			putVec(buffer, c.rotationConstraintDirection());
+			putVec(buffer, c.scalingConstraintVec());
+		}
+
+		if (eyeIncluded) {
+			Eye eye = scene.eye();
+			putFrame(buffer, eye.position(), eye.orientation(), eye.frame().magnitude());
+			buffer.putFloat(eye.sceneRadius());
+			putVec(buffer, eye.sceneCenter());
+			putVec(buffer, eye.anchor());
+			if (eye instanceof Camera) {
+				Camera camera = (Camera) eye;
+				buffer.putInt(camera.type().ordinal()).putFloat(camera.zNearCoefficient())
+						.putFloat(camera.zClippingCoefficient()).putFloat(camera.IODistance()).putFloat(camera.focusDistance())
+						.putFloat(camera.physicalDistanceToScreen()).putFloat(camera.physicalScreenWidth());
+			}
+			else
+				buffer.position(buffer.position() + 28);
+		}
+
+		for (KeyFrameInterpolator kfi : interpolatorList) {
+			Integer frame = frameIndex.get(kfi.frame());
+			buffer.putInt(frame == null ? -1 : frame).putInt(kfi.interpolationPeriod()).putFloat(kfi.interpolationSpeed())
+					.putInt(kfi.loopInterpolation() ? 1 : 0).putInt(kfi.numberOfKeyFrames());
+			for (int i = 0; i < kfi.numberOfKeyFrames(); i++) {
+				Frame keyFrame = kfi.keyFrame(i);
+				Integer ref = frameIndex.get(keyFrame);
+				buffer.putFloat(kfi.keyFrameTime(i)).putInt(ref == null ? -1 : ref);
+				putFrame(buffer, keyFrame.position(), keyFrame.orientation(), keyFrame.magnitude());
+			}
+		}
+		buffer.flip();
+		return buffer;
+	}
+
+	/**
+	 * Writes the snapshot (see {@link #write()}) to the file at {@code path}.
+	 */
+	public void save(String path) {
+		FileOutputStream stream = null;
+		try {
+			stream = new FileOutputStream(path);
+			FileChannel channel = stream.getChannel();
+			ByteBuffer buffer = write();
+			while (buffer.hasRemaining())
+				channel.write(buffer);
+		} catch (IOException e) {
+			throw new RuntimeException("Unable to save scene snapshot to " + path + ": " + e.getMessage());
+		} finally {
+			close(stream);
+		}
+	}
+
+	// 2. Reading
+
+	/**
+	 * Memory-maps the file at {@code path} and restores it (see {@link #read(ByteBuffer)}).
+	 *
+	 * @return the restored frames
+	 */
+	public List<Frame> load(String path) {
+		return load(path, null);
+	}
+
+	/**
+	 * Memory-maps the file at {@code path} and restores it into the given {@code targets} (see
+	 * {@link #read(ByteBuffer, List)}).
+	 *
+	 * @return the restored frames
+	 */
+	public List<Frame> load(String path, List<? extends Frame> targets) {
+		RandomAccessFile file = null;
+		try {
+			file = new RandomAccessFile(path, "r");
+			FileChannel channel = file.getChannel();
+			return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), targets);
+		} catch (IOException e) {
+			throw new RuntimeException("Unable to load scene snapshot from " + path + ": " + e.getMessage());
+		} finally {
+			close(file);
+		}
+	}
+
+	/**
+	 * Convenience function that simply calls {@code read(buffer, null)}.
+	 */
+	public List<Frame> read(ByteBuffer buffer) {
+		return read(buffer, null);
+	}
+
+	/**
+	 * Restores the snapshot held by {@code buffer} (from its current position) and returns the restored
+	 * {@link #frames()}. The restored {@link #interpolators()} are registered at the scene, and the eye parameters
+	 * applied to the scene eye (only if it's of the same kind as the saved one).
+	 * <p>
+	 * If {@code targets} is non-null its first frames receive the snapshot ones, in order; the remaining snapshot frames
+	 * are created. Note that target frames keep their own class, and that their constraints are replaced.
+	 */
+	public List<Frame> read(ByteBuffer buffer, List<? extends Frame> targets) {
+		ByteBuffer in = buffer.slice().order(ByteOrder.BIG_ENDIAN);
+		if (in.remaining() < HEADER_BYTES || in.getInt(0) != MAGIC)
+			throw new RuntimeException("Not a scene snapshot");
+		if (in.getInt(4) != VERSION)
+			throw new RuntimeException("Unsupported scene snapshot version: " + in.getInt(4));
+		boolean is3D = in.getInt(8) == 3;
+		if (is3D != scene.is3D())
+			throw new RuntimeException("Scene snapshot dimension doesn't match the scene one");
+		int frameCount = in.getInt(12);
+		int constraintCount = in.getInt(16);
+		int interpolatorCount = in.getInt(20);
+		int eyeKind = in.getInt(24);
+		if (frameCount < 0 || constraintCount < 0 || interpolatorCount < 0 || eyeKind < NO_EYE || eyeKind > WINDOW_EYE)
+			throw new RuntimeException("Corrupt scene snapshot header");
+
+		int framesAt = HEADER_BYTES;
+		long constraintsAt = framesAt + (long) frameCount * FRAME_BYTES;
+		long eyeAt = constraintsAt + (long) constraintCount * CONSTRAINT_BYTES;
+		long interpolatorsAt = eyeAt + (eyeKind == NO_EYE ? 0 : EYE_BYTES);
+		if (in.limit() < interpolatorsAt + (long) interpolatorCount * INTERPOLATOR_BYTES)
+			throw new RuntimeException("Truncated scene snapshot");
+
+		// constraints
+		Constraint[] constraints = new Constraint[constraintCount];
+		for (int i = 0; i < constraintCount; i++)
+			constraints[i] = readConstraint(in, (int) constraintsAt + i * CONSTRAINT_BYTES);
+
+		checkReferenceFrames(in, framesAt, frameCount);
+
+		// allocate all frames at once, then fill their kernels in a single pass over the buffer
+		List<Frame> frames = new ArrayList<Frame>(frameCount);
+		for (int i = 0; i < frameCount; i++) {
+			if (targets != null && i < targets.size())
+				frames.add(targets.get(i));
+			else if ((in.getInt(framesAt + i * FRAME_BYTES + 48) & INTERACTIVE) != 0)
+				frames.add(new InteractiveFrame(scene));
+			else
+				frames.add(new Frame(is3D));
+		}
+		for (int i = 0; i < frameCount; i++) {
+			int at = framesAt + i * FRAME_BYTES;
+			Frame.AbstractFrameKernel kernel = frames.get(i).kernel();
+			kernel.trans.set(in.getFloat(at), in.getFloat(at + 4), in.getFloat(at + 8));
+			if (is3D)
+				kernel.rot = new Quat(in.getFloat(at + 12), in.getFloat(at + 16), in.getFloat(at + 20), in.getFloat(at + 24));
+			else
+				kernel.rot = new Rot(in.getFloat(at + 12));
+			kernel.scl.set(in.getFloat(at + 28), in.getFloat(at + 32), in.getFloat(at + 36));
+			int ref = in.getInt(at + 40);
+			int constraint = in.getInt(at + 44);
+			kernel.refFrame = ref < 0 || ref >= frameCount ? null : frames.get(ref);
+			kernel.constr = constraint < 0 || constraint >= constraintCount ? null : constraints[constraint];
+			kernel.modified();
+		}
+
+		if (eyeKind != NO_EYE)
+			readEye(in, (int) eyeAt, eyeKind);
+
+		// interpolators
+		List<KeyFrameInterpolator> interpolators = new ArrayList<KeyFrameInterpolator>(interpolatorCount);
+		int at = (int) interpolatorsAt;
+		for (int i = 0; i < interpolatorCount; i++) {
+			if (in.limit() - at < INTERPOLATOR_BYTES)
+				throw new RuntimeException("Truncated scene snapshot");
+			int frame = in.getInt(at);
+			KeyFrameInterpolator kfi = new KeyFrameInterpolator(scene, frame < 0 || frame >= frameCount ? new Frame(is3D)
+					: frames.get(frame));
+			kfi.setInterpolationPeriod(in.getInt(at + 4));
+			kfi.setInterpolationSpeed(in.getFloat(at + 8));
+			kfi.setLoopInterpolation(in.getInt(at + 12) != 0);
+			int keyFrameCount = in.getInt(at + 16);
+			at += INTERPOLATOR_BYTES;
+			if (keyFrameCount < 0 || (in.limit() - at) / KEYFRAME_BYTES < keyFrameCount)
+				throw new RuntimeException("Truncated scene snapshot");
+			// keyframes are added in bulk, so that the path is invalidated only once
+			Frame[] keyFrames = new Frame[keyFrameCount];
+			float[] times = new float[keyFrameCount];
+			for (int k = 0; k < keyFrameCount; k++, at += KEYFRAME_BYTES) {
+				int ref = in.getInt(at + 4);
+				if (ref >= 0 && ref < frameCount)
+					keyFrames[k] = frames.get(ref);
+				else
+					keyFrames[k] = new Frame(getRotation(in, at + 20, is3D), getVec(in, at + 8), getVec(in, at + 36));
+				times[k] = in.getFloat(at);
+			}
+			kfi.addKeyFrames(keyFrames, times);
+			interpolators.add(kfi);
+		}
+
+		frameList = frames;
+		indexFrames();
+		interpolatorList = interpolators;
+		return frames;
+	}
+
+	/**
+	 * Internal use. Throws a RuntimeException if the reference frames of the {@code frameCount} frame records found at
+	 * {@code framesAt} form a loop, since the kernels are filled bypassing the
+	 * {@link remixlab.dandelion.core.Frame#setReferenceFrame(Frame)} checks. Each chain is only walked once.
+	 */
+	protected void checkReferenceFrames(ByteBuffer in, int framesAt, int frameCount) {
+		// 0: not visited yet, -1: reaches the world, i + 1: being walked from frame i
+		int[] state = new int[frameCount];
+		for (int i = 0; i < frameCount; i++) {
+			int f = i;
+			while (f >= 0 && f < frameCount && state[f] == 0) {
+				state[f] = i + 1;
+				f = in.getInt(framesAt + f * FRAME_BYTES + 40);
+			}
+			if (f >= 0 && f < frameCount && state[f] == i + 1)
+				throw new RuntimeException("Corrupt scene snapshot: frame " + f + " reference frame loop");
+			for (f = i; f >= 0 && f < frameCount && state[f] == i + 1; f = in.getInt(framesAt + f * FRAME_BYTES + 40))
+				state[f] = -1;
+		}
+	}
+
+	/**
+	 * Internal use. Restores the eye record found at {@code at}.
+	 */
+	protected void readEye(ByteBuffer in, int at, int eyeKind) {
+		Eye eye = scene.eye();
+		if ((eyeKind == CAMERA_EYE) != (eye instanceof Camera)) {
+			System.out.println("Warning: scene snapshot eye kind doesn't match the scene one - Ignoring eye");
+			return;
+		}
+		eye.setSceneRadius(in.getFloat(at + 40));
+		eye.setSceneCenter(getVec(in, at + 44));
+		eye.setPosition(getVec(in, at));
+		eye.setOrientation(getRotation(in, at + 12, scene.is3D()));
+		eye.frame().setScaling(getVec(in, at + 28));
+		eye.setAnchor(getVec(in, at + 56));
+		if (eye instanceof Camera) {
+			Camera camera = (Camera) eye;
+			camera.setType(ordinal(Camera.Type.values(), in.getInt(at + 68), "camera type"));
+			camera.setZNearCoefficient(in.getFloat(at + 72));
+			camera.setZClippingCoefficient(in.getFloat(at + 76));
+			camera.setIODistance(in.getFloat(at + 80));
+			camera.setFocusDistance(in.getFloat(at + 84));
+			camera.setPhysicalDistanceToScreen(in.getFloat(at + 88));
+			camera.setPhysicalScreenWidth(in.getFloat(at + 92));
+		}
+	}
+
+	/**
+	 * Internal use. Restores the constraint record found at {@code at}.
+	 */
+	protected Constraint readConstraint(ByteBuffer in, int at) {
+		AxisPlaneConstraint c;
+		switch (in.getInt(at)) {
+		case LOCAL:
+			c = new LocalConstraint();
+			break;
+		case WORLD:
+			c = new WorldConstraint();
+			break;
+		case CAMERA:
+			c = new CameraConstraint(scene.eye());
+			break;
+		default:
+			return null;
+		}
+		AxisPlaneConstraint.Type[] types = AxisPlaneConstraint.Type.values();
+		c.setTranslationConstraint(ordinal(types, in.getInt(at + 4), "translation constraint type"), getVec(in, at + 12));
+		c.setRotationConstraint(ordinal(types, in.getInt(at + 8), "rotation constraint type"), getVec(in, at + 24));
+		c.setScalingConstraintVec(getVec(in, at + 36));
+		return c;
+	}
+
+	/**
+	 * Internal use. Returns the kind of {@code c}, or 0 if it can't be stored.
+	 */
+	protected static int constraintKind(Constraint c) {
+		if (c instanceof LocalConstraint)
+			return LOCAL;
+		if (c instanceof WorldConstraint)
+			return WORLD;
+		if (c instanceof CameraConstraint)
+			return CAMERA;
+		return 0;
+	}
+
+	/**
+	 * Internal use. Returns {@code values[ordinal]}, throwing a corrupt snapshot exception if {@code ordinal} is out of
+	 * bounds.
+	 */
+	protected static <E extends Enum<E>> E ordinal(E[] values, int ordinal, String name) {
+		if (ordinal < 0 || ordinal >= values.length)
+			throw new RuntimeException("Corrupt scene snapshot: invalid " + name + " " + ordinal);
+		return values[ordinal];
+	}
+
+	protected static void putFrame(ByteBuffer buffer, Vec t, Rotation r, Vec s) {
+		putVec(buffer, t);
+		if (r instanceof Quat) {
+			Quat q = (Quat) r;
+			buffer.putFloat(q.quat[0]).putFloat(q.quat[1]).putFloat(q.quat[2]).putFloat(q.quat[3]);
+		}
+		else
+			buffer.putFloat(r.angle()).putFloat(0).putFloat(0).putFloat(0);
+		putVec(buffer, s);
+	}
+
+	protected static void putVec(ByteBuffer buffer, Vec v) {
+		buffer.putFloat(v.x()).putFloat(v.y()).putFloat(v.z());
+	}
+
+	protected static Vec getVec(ByteBuffer in, int at) {
+		return new Vec(in.getFloat(at), in.getFloat(at + 4), in.getFloat(at + 8));
+	}
+
+	protected static Rotation getRotation(ByteBuffer in, int at, boolean is3D) {
+		if (is3D)
+			return new Quat(in.getFloat(at), in.getFloat(at + 4), in.getFloat(at + 8), in.getFloat(at + 12));
+		return new Rot(in.getFloat(at));
+	}
+
+	private static void close(java.io.Closeable closeable) {
+		if (closeable != null)
+			try {
+				closeable.close();
+			} catch (IOException e) {
+				// nothing to do
+			}
+	}
+}
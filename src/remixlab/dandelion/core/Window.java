@@ -217,10 +217,14 @@ public class Window extends Eye implements Copyable {
 		dist[3] = Vec.dot(Vec.subtract(pos, Vec.multiply(up, wh[1])), normal[3]);
 
 		for (int i = 0; i < 4; ++i) {
-			coef[i][0] = normal[i].vec[0];
-			coef[i][1] = normal[i].vec[1];
+			// normalized, so that boundary distances are simply evaluated (see boundaryDistance)
+			float norm = (float) Math.sqrt(normal[i].vec[0] * normal[i].vec[0] + normal[i].vec[1] * normal[i].vec[1]);
+			if (norm == 0)
+				norm = 1;
+			coef[i][0] = normal[i].vec[0] / norm;
+			coef[i][1] = normal[i].vec[1] / norm;
 			// Change respect to Camera occurs here:
-			coef[i][2] = -dist[i];
+			coef[i][2] = -dist[i] / norm;
 		}
 
 		return coef;
@@ -255,18 +259,16 @@ public class Window extends Eye implements Copyable {
 		boolean allInForAllPlanes = true;
 
 		for (int i = 0; i < 4; ++i) {
-			boolean allOut = true;
-			for (int c = 0; c < 4; ++c) {
-				Vec pos = new Vec(((c & 2) != 0) ? p1.vec[0] : p2.vec[0],
-						((c & 1) != 0) ? p1.vec[1] : p2.vec[1]);
-				if (distanceToBoundary(i, pos) > 0.0)
-					allInForAllPlanes = false;
-				else
-					allOut = false;
-			}
-			// The eight points are on the outside side of this plane
-			if (allOut)
+			// only the nearest and farthest corners (along the boundary normal) need to be tested
+			float ax1 = fpCoefficients[i][0] * p1.vec[0], ax2 = fpCoefficients[i][0] * p2.vec[0];
+			float by1 = fpCoefficients[i][1] * p1.vec[1], by2 = fpCoefficients[i][1] * p2.vec[1];
+			float min = Math.min(ax1, ax2) + Math.min(by1, by2) + fpCoefficients[i][2];
+			float max = Math.max(ax1, ax2) + Math.max(by1, by2) + fpCoefficients[i][2];
+			// The four points are on the outside side of this boundary
+			if (min > 0)
 				return Eye.Visibility.INVISIBLE;
+			if (max > 0)
+				allInForAllPlanes = false;
 		}
 
 		if (allInForAllPlanes)
@@ -284,7 +286,7 @@ public class Window extends Eye implements Copyable {
 					+ "with Scene.enableBoundaryEquations()");
 		boolean allInForAllPlanes = true;
 		for (int i = 0; i < 4; ++i) {
-			float d = distanceToBoundary(i, center);
+			float d = boundaryDistance(i, center.vec[0], center.vec[1]);
 			if (d > radius)
 				return Eye.Visibility.INVISIBLE;
 			if ((d > 0) || (-d < radius))
@@ -302,11 +304,19 @@ public class Window extends Eye implements Copyable {
 					+ "enable automatic updates of the equations in your PApplet.setup "
 					+ "with Scene.enableBoundaryEquations()");
 		for (int i = 0; i < 4; ++i)
-			if (distanceToBoundary(i, point) > 0)
+			if (boundaryDistance(i, point.vec[0], point.vec[1]) > 0)
 				return false;
 		return true;
 	}
 
+	/**
+	 * Internal use. Same as {@link #distanceToBoundary(int, Vec)} but without the warning and the normalization, since
+	 * {@link #computeBoundaryEquations(float[][])} already normalizes the 2D boundary equations.
+	 */
+	protected float boundaryDistance(int index, float x, float y) {
+		return fpCoefficients[index][0] * x + fpCoefficients[index][1] * y + fpCoefficients[index][2];
+	}
+
 	@Override
 	public float pixelSceneRatio(Vec position) {
 		float[] wh = getBoundaryWidthHeight();
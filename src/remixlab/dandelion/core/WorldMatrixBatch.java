@@ -0,0 +1,401 @@
+/*********************************************************************************
+ * dandelion_tree
+ * Copyright (c) 2014 National University of Colombia, https://github.com/remixlab
+ * @author Jean Pierre Charalambos, http://otrolado.info/
+ *
+ * All rights reserved. Library that eases the creation of interactive
+ * scenes, released under the terms of the GNU Public License v3.0
+ * which is available at http://www.gnu.org/licenses/gpl.html
+ *********************************************************************************/
+
+package remixlab.dandelion.core;
+
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+import remixlab.dandelion.geom.Quat;
+import remixlab.dandelion.geom.Rot;
+import remixlab.dandelion.geom.Rotation;
+import remixlab.dandelion.geom.Vec;
+import remixlab.fpstiming.TimingHandler;
+
+/**
+ * A set of {@link remixlab.dandelion.core.Frame}s whose world matrices are exported all at once into a single
+ * {@code float[]} or {@code FloatBuffer}, e.g., to be uploaded as an instance attribute buffer for a single instanced
+ * draw call.
+ * <p>
+ * The world matrix of a frame is the one applied by
+ * {@link remixlab.dandelion.core.AbstractScene#applyWorldTransformation(Frame)}, i.e., the product of the local
+ * matrices (see {@link #localMatrix(Frame, float[])}) of the frame and all its ancestors, scalings included. Note that
+ * it differs from {@link Frame#worldMatrix()} when an ancestor is scaled, since the latter only takes into account the
+ * frame own {@link Frame#scaling()}.
+ * <p>
+ * Frames are kept in parent-before-child order (see {@link #frames()}), so that the world matrix of a frame is
+ * computed from the (already computed) world matrix of its nearest ancestor in the batch. Reference frames which
+ * don't belong to the batch are composed in between. Only the frames whose {@link Frame#lastUpdate()} (or that of any
+ * of their ancestors) changed since the last {@link #update()} are recomputed.
+ * <p>
+ * Each matrix takes 16 consecutive floats, in the same column-major layout used by
+ * {@link remixlab.dandelion.geom.Mat#mat}. The {@code i}-th matrix belongs to {@code frames().get(i)}. Typical usage:
+ * <p>
+ * {@code WorldMatrixBatch batch = new WorldMatrixBatch();} <br>
+ * {@code batch.add(body); batch.add(leftArm); batch.add(rightArm);} <br>
+ * {@code // then, once per frame:} <br>
+ * {@code batch.export(instanceBuffer);} <br>
+ */
+public class WorldMatrixBatch {
+	protected List<Frame>											frameList;
+	protected IdentityHashMap<Frame, Integer>	members;
+	protected IdentityHashMap<Frame, Integer>	sortedIndex;
+	protected boolean													orderIsValid;
+
+	// sorted (parent-before-child) data
+	protected Frame[]													sorted;
+	protected Frame[][]												chain;
+	protected int[]														parent;
+	protected long[]													stamp;
+	protected boolean[]												recomputed;
+	protected float[]													matrices;
+	protected int															recomputedCount;
+
+	protected float[]													local		= new float[16];
+	protected float[]													tmp			= new float[16];
+
+	/**
+	 * Constructs an empty batch.
+	 */
+	public WorldMatrixBatch() {
+		frameList = new ArrayList<Frame>();
+		members = new IdentityHashMap<Frame, Integer>();
+		matrices = new float[0];
+	}
+
+	/**
+	 * Adds {@code frame} to the batch. Does nothing if {@code frame} is null or if it already belongs to the batch.
+	 *
+	 * @return true if the frame was added
+	 */
+	public boolean add(Frame frame) {
+		if (frame == null || contains(frame))
+			return false;
+		members.put(frame, frameList.size());
+		frameList.add(frame);
+		orderIsValid = false;
+		return true;
+	}
+
+	/**
+	 * Removes {@code frame} from the batch.
+	 *
+	 * @return true if the frame was removed
+	 */
+	public boolean remove(Frame frame) {
+		Integer i = members.remove(frame);
+		if (i == null)
+			return false;
+		frameList.remove((int) i);
+		for (int k = i; k < frameList.size(); k++)
+			members.put(frameList.get(k), k);
+		orderIsValid = false;
+		return true;
+	}
+
+	/**
+	 * Returns true if {@code frame} belongs to the batch. Frames are compared by identity.
+	 */
+	public boolean contains(Frame frame) {
+		return members.containsKey(frame);
+	}
+
+	/**
+	 * Removes all frames from the batch.
+	 */
+	public void clear() {
+		frameList.clear();
+		members.clear();
+		orderIsValid = false;
+	}
+
+	/**
+	 * Returns the number of frames in the batch.
+	 */
+	public int size() {
+		return frameList.size();
+	}
+
+	/**
+	 * Returns the batch frames in parent-before-child order, i.e., the order in which their matrices are exported.
+	 */
+	public List<Frame> frames() {
+		validateOrder();
+		List<Frame> list = new ArrayList<Frame>(sorted.length);
+		for (Frame f : sorted)
+			list.add(f);
+		return list;
+	}
+
+	/**
+	 * Returns the index of {@code frame} in the exported buffer, or -1 if it doesn't belong to the batch.
+	 */
+	public int indexOf(Frame frame) {
+		validateOrder();
+		Integer i = sortedIndex.get(frame);
+		return i == null ? -1 : i;
+	}
+
+	/**
+	 * Returns the number of world matrices that were actually recomputed by the last {@link #update()}.
+	 */
+	public int recomputedCount() {
+		return recomputedCount;
+	}
+
+	/**
+	 * Updates the world matrices of the frames that have been modified since the last call, and returns the internal
+	 * array holding all of them (16 floats per frame, see {@link #frames()}). Don't modify the returned array.
+	 */
+	public float[] update() {
+		validateOrder();
+		recomputedCount = 0;
+		for (int i = 0; i < sorted.length; i++) {
+			boolean dirty = parent[i] >= 0 ? recomputed[parent[i]] : false;
+			Frame[] c = chain[i];
+			for (int k = 0; k < c.length && !dirty; k++)
+				if (c[k].lastUpdate() >= stamp[i])
+					dirty = true;
+			if (dirty && !chainIsValid(i)) {
+				// the hierarchy changed: re-sort and start over
+				orderIsValid = false;
+				return update();
+			}
+			recomputed[i] = dirty;
+			if (dirty) {
+				computeWorldMatrix(i);
+				stamp[i] = TimingHandler.frameCount;
+				recomputedCount++;
+			}
+		}
+		return matrices;
+	}
+
+	/**
+	 * Updates the batch (see {@link #update()}) and copies all the world matrices into {@code target}, starting at
+	 * {@code offset}.
+	 *
+	 * @return the number of floats written, i.e., {@code 16 * size()}
+	 */
+	public int export(float[] target, int offset) {
+		update();
+		if (target.length - offset < matrices.length)
+			throw new RuntimeException("Target array too small: " + matrices.length + " floats needed from offset " + offset);
+		System.arraycopy(matrices, 0, target, offset, matrices.length);
+		return matrices.length;
+	}
+
+	/**
+	 * Updates the batch (see {@link #update()}) and puts all the world matrices into {@code target}, at its current
+	 * position. The buffer position is advanced by {@code 16 * size()}. Use a direct buffer to upload it straight to the
+	 * GPU.
+	 *
+	 * @return the number of floats written, i.e., {@code 16 * size()}
+	 */
+	public int export(FloatBuffer target) {
+		update();
+		target.put(matrices, 0, matrices.length);
+		return matrices.length;
+	}
+
+	/**
+	 * Internal use. Sorts the frames in parent-before-child order and computes, for each frame, the (non-batched)
+	 * reference frames standing between it and its nearest batched ancestor.
+	 */
+	protected void validateOrder() {
+		if (orderIsValid)
+			return;
+		int n = frameList.size();
+		IdentityHashMap<Frame, Integer> depth = new IdentityHashMap<Frame, Integer>();
+		for (Frame f : frameList)
+			depth.put(f, -1);
+		int maxDepth = 0;
+		for (Frame f : frameList)
+			maxDepth = Math.max(maxDepth, depth(f, depth));
+
+		// stable bucket sort by depth
+		sorted = new Frame[n];
+		int idx = 0;
+		for (int d = 0; d <= maxDepth; d++)
+			for (Frame f : frameList)
+				if (depth.get(f) == d)
+					sorted[idx++] = f;
+
+		IdentityHashMap<Frame, Integer> index = new IdentityHashMap<Frame, Integer>();
+		for (int i = 0; i < n; i++)
+			index.put(sorted[i], i);
+		sortedIndex = index;
+
+		chain = new Frame[n][];
+		parent = new int[n];
+		stamp = new long[n];
+		recomputed = new boolean[n];
+		if (matrices.length != 16 * n)
+			matrices = new float[16 * n];
+		List<Frame> c = new ArrayList<Frame>();
+		for (int i = 0; i < n; i++) {
+			c.clear();
+			Frame f = sorted[i];
+			parent[i] = -1;
+			while (f != null) {
+				c.add(f);
+				f = f.referenceFrame();
+				if (f != null && index.containsKey(f)) {
+					parent[i] = index.get(f);
+					break;
+				}
+			}
+			chain[i] = c.toArray(new Frame[c.size()]);
+			stamp[i] = Long.MIN_VALUE;
+		}
+		orderIsValid = true;
+	}
+
+	/**
+	 * Internal use. Returns the number of batched ancestors of {@code frame}, caching results in {@code depth}.
+	 */
+	protected int depth(Frame frame, IdentityHashMap<Frame, Integer> depth) {
+		int d = depth.get(frame);
+		if (d >= 0)
+			return d;
+		d = 0;
+		Frame f = frame.referenceFrame();
+		while (f != null) {
+			if (depth.containsKey(f)) {
+				d = depth(f, depth) + 1;
+				break;
+			}
+			f = f.referenceFrame();
+		}
+		depth.put(frame, d);
+		return d;
+	}
+
+	/**
+	 * Internal use. Returns false if the reference frame chain of the {@code i}-th sorted frame changed since the batch
+	 * was last sorted.
+	 */
+	protected boolean chainIsValid(int i) {
+		Frame[] c = chain[i];
+		for (int k = 0; k < c.length; k++) {
+			Frame expected = k + 1 < c.length ? c[k + 1] : (parent[i] >= 0 ? sorted[parent[i]] : null);
+			if (c[k].referenceFrame() != expected)
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Internal use. Computes the world matrix of the {@code i}-th sorted frame from that of its batched parent.
+	 */
+	protected void computeWorldMatrix(int i) {
+		int o = 16 * i;
+		Frame[] c = chain[i];
+		if (parent[i] >= 0)
+			System.arraycopy(matrices, 16 * parent[i], matrices, o, 16);
+		else
+			setIdentity(matrices, o);
+		for (int k = c.length - 1; k >= 0; k--) {
+			localMatrix(c[k], local);
+			multiplyAffine(matrices, o, local, tmp);
+			System.arraycopy(tmp, 0, matrices, o, 16);
+		}
+	}
+
+	/**
+	 * Writes the local transformation matrix of {@code frame} (see {@link Frame#matrix()}) into {@code target}, without
+	 * allocating.
+	 */
+	public static void localMatrix(Frame frame, float[] target) {
+		Rotation r = frame.rotation();
+		float[] m = target;
+		if (r instanceof Quat) {
+			float[] q = ((Quat) r).quat;
+			float q00 = 2.0f * q[0] * q[0];
+			float q11 = 2.0f * q[1] * q[1];
+			float q22 = 2.0f * q[2] * q[2];
+			float q01 = 2.0f * q[0] * q[1];
+			float q02 = 2.0f * q[0] * q[2];
+			float q03 = 2.0f * q[0] * q[3];
+			float q12 = 2.0f * q[1] * q[2];
+			float q13 = 2.0f * q[1] * q[3];
+			float q23 = 2.0f * q[2] * q[3];
+			m[0] = 1.0f - q11 - q22;
+			m[1] = q01 + q23;
+			m[2] = q02 - q13;
+			m[4] = q01 - q23;
+			m[5] = 1.0f - q22 - q00;
+			m[6] = q12 + q03;
+			m[8] = q02 + q13;
+			m[9] = q12 - q03;
+			m[10] = 1.0f - q11 - q00;
+		}
+		else {
+			float cosB = ((Rot) r).cos();
+			float sinB = ((Rot) r).sin();
+			m[0] = cosB;
+			m[1] = sinB;
+			m[2] = 0;
+			m[4] = -sinB;
+			m[5] = cosB;
+			m[6] = 0;
+			m[8] = 0;
+			m[9] = 0;
+			m[10] = 1;
+		}
+		Vec s = frame.scaling();
+		m[0] *= s.vec[0];
+		m[1] *= s.vec[0];
+		m[2] *= s.vec[0];
+		m[4] *= s.vec[1];
+		m[5] *= s.vec[1];
+		m[6] *= s.vec[1];
+		m[8] *= s.vec[2];
+		m[9] *= s.vec[2];
+		m[10] *= s.vec[2];
+		Vec t = frame.translation();
+		m[12] = t.vec[0];
+		m[13] = t.vec[1];
+		m[14] = t.vec[2];
+		m[3] = 0;
+		m[7] = 0;
+		m[11] = 0;
+		m[15] = 1;
+	}
+
+	/**
+	 * Internal use. {@code c = a * b}, where {@code a} is read from {@code aArray} at {@code aOffset}, and all matrices
+	 * are affine (i.e., their last row is {@code (0,0,0,1)}).
+	 */
+	protected static void multiplyAffine(float[] aArray, int aOffset, float[] b, float[] c) {
+		float a0 = aArray[aOffset], a1 = aArray[aOffset + 1], a2 = aArray[aOffset + 2];
+		float a4 = aArray[aOffset + 4], a5 = aArray[aOffset + 5], a6 = aArray[aOffset + 6];
+		float a8 = aArray[aOffset + 8], a9 = aArray[aOffset + 9], a10 = aArray[aOffset + 10];
+		float a12 = aArray[aOffset + 12], a13 = aArray[aOffset + 13], a14 = aArray[aOffset + 14];
+		for (int col = 0; col < 16; col += 4) {
+			float b0 = b[col], b1 = b[col + 1], b2 = b[col + 2];
+			float w = col == 12 ? 1 : 0;
+			c[col] = a0 * b0 + a4 * b1 + a8 * b2 + a12 * w;
+			c[col + 1] = a1 * b0 + a5 * b1 + a9 * b2 + a13 * w;
+			c[col + 2] = a2 * b0 + a6 * b1 + a10 * b2 + a14 * w;
+			c[col + 3] = w;
+		}
+	}
+
+	/**
+	 * Internal use. Sets the 16 floats of {@code m} starting at {@code offset} to the identity matrix.
+	 */
+	protected static void setIdentity(float[] m, int offset) {
+		for (int i = 0; i < 16; i++)
+			m[offset + i] = (i % 5 == 0) ? 1 : 0;
+	}
+}
@@ -634,6 +634,33 @@ public class Mat implements Linkable {
 		c.mat[15] = a.mat[3] * b.mat[12] + a.mat[7] * b.mat[13] + a.mat[11] * b.mat[14] + a.mat[15] * b.mat[15];
 	}
 
+	/**
+	 * Same as {@link #multiply(Mat, Mat, Mat)} (i.e., {@code c = a * b}), but assuming both {@code a} and {@code b} are
+	 * {@link #isAffine()}, so that only their upper 3x4 part is taken into account. {@code c} should be a different
+	 * matrix than {@code a} and {@code b}.
+	 */
+	public static void multiplyAffine(Mat a, Mat b, Mat c) {
+		c.mat[0] = a.mat[0] * b.mat[0] + a.mat[4] * b.mat[1] + a.mat[8] * b.mat[2];
+		c.mat[4] = a.mat[0] * b.mat[4] + a.mat[4] * b.mat[5] + a.mat[8] * b.mat[6];
+		c.mat[8] = a.mat[0] * b.mat[8] + a.mat[4] * b.mat[9] + a.mat[8] * b.mat[10];
+		c.mat[12] = a.mat[0] * b.mat[12] + a.mat[4] * b.mat[13] + a.mat[8] * b.mat[14] + a.mat[12];
+
+		c.mat[1] = a.mat[1] * b.mat[0] + a.mat[5] * b.mat[1] + a.mat[9] * b.mat[2];
+		c.mat[5] = a.mat[1] * b.mat[4] + a.mat[5] * b.mat[5] + a.mat[9] * b.mat[6];
+		c.mat[9] = a.mat[1] * b.mat[8] + a.mat[5] * b.mat[9] + a.mat[9] * b.mat[10];
+		c.mat[13] = a.mat[1] * b.mat[12] + a.mat[5] * b.mat[13] + a.mat[9] * b.mat[14] + a.mat[13];
+
+		c.mat[2] = a.mat[2] * b.mat[0] + a.mat[6] * b.mat[1] + a.mat[10] * b.mat[2];
+		c.mat[6] = a.mat[2] * b.mat[4] + a.mat[6] * b.mat[5] + a.mat[10] * b.mat[6];
+		c.mat[10] = a.mat[2] * b.mat[8] + a.mat[6] * b.mat[9] + a.mat[10] * b.mat[10];
+		c.mat[14] = a.mat[2] * b.mat[12] + a.mat[6] * b.mat[13] + a.mat[10] * b.mat[14] + a.mat[14];
+
+		c.mat[3] = 0;
+		c.mat[7] = 0;
+		c.mat[11] = 0;
+		c.mat[15] = 1;
+	}
+
 	/**
 	 * 16 consecutive values that are used as the elements of a 4 x 4 column-major matrix.
 	 */
@@ -968,9 +995,11 @@ public class Mat implements Linkable {
 	/**
 	 * Invert this matrix into {@code m}, i.e., doesn't modify this matrix.
 	 * <p>
-	 * {@code m} should be non-null.
+	 * {@code m} should be non-null. Affine matrices are inverted with {@link #invertAffine(Mat)}.
 	 */
 	public boolean invert(Mat m) {
+		if (isAffine())
+			return invertAffine(m);
 		float determinant = determinant();
 		if (determinant == 0) {
 			return false;
@@ -1030,6 +1059,11 @@ public class Mat implements Linkable {
 	 * @return true if successful
 	 */
 	public boolean invert() {
+		if (isAffine()) {
+			if (Util.zero(affineDeterminant()))
+				return false;
+			return invertAffine(this);
+		}
 		float determinant = determinant();
 		if (Util.zero(determinant)) {
 			return false;
@@ -1083,6 +1117,128 @@ public class Mat implements Linkable {
 		return true;
 	}
 
+	/**
+	 * Returns {@code true} if the matrix is affine, i.e., if its last row is {@code (0, 0, 0, 1)}. Frame matrices (rotation
+	 * times scaling plus translation) are always affine, while perspective projections are not.
+	 * 
+	 * @see #isRigid()
+	 */
+	public boolean isAffine() {
+		return mat[3] == 0 && mat[7] == 0 && mat[11] == 0 && mat[15] == 1;
+	}
+
+	/**
+	 * Convenience function that simply returns {@code isRigid(1E-5f)}.
+	 * 
+	 * @see #isRigid(float)
+	 */
+	public boolean isRigid() {
+		return isRigid(1E-5f);
+	}
+
+	/**
+	 * Returns {@code true} if the matrix is {@link #isAffine()} and its upper left 3x3 matrix is orthonormal (within
+	 * {@code epsilon}), i.e., if it represents a rotation followed by a translation (no scaling nor shearing).
+	 * 
+	 * @see #invertRigid(Mat)
+	 */
+	public boolean isRigid(float epsilon) {
+		if (!isAffine())
+			return false;
+		float x = mat[0] * mat[0] + mat[1] * mat[1] + mat[2] * mat[2] - 1;
+		float y = mat[4] * mat[4] + mat[5] * mat[5] + mat[6] * mat[6] - 1;
+		float z = mat[8] * mat[8] + mat[9] * mat[9] + mat[10] * mat[10] - 1;
+		float xy = mat[0] * mat[4] + mat[1] * mat[5] + mat[2] * mat[6];
+		float xz = mat[0] * mat[8] + mat[1] * mat[9] + mat[2] * mat[10];
+		float yz = mat[4] * mat[8] + mat[5] * mat[9] + mat[6] * mat[10];
+		return Math.abs(x) <= epsilon && Math.abs(y) <= epsilon && Math.abs(z) <= epsilon && Math.abs(xy) <= epsilon
+				&& Math.abs(xz) <= epsilon && Math.abs(yz) <= epsilon;
+	}
+
+	/**
+	 * Internal use. Returns the determinant of the upper left 3x3 matrix, which equals the {@link #determinant()} of an
+	 * {@link #isAffine()} matrix.
+	 */
+	protected float affineDeterminant() {
+		return mat[0] * (mat[5] * mat[10] - mat[9] * mat[6]) + mat[4] * (mat[9] * mat[2] - mat[1] * mat[10]) + mat[8]
+				* (mat[1] * mat[6] - mat[5] * mat[2]);
+	}
+
+	/**
+	 * Inverts this {@link #isAffine()} matrix into {@code m} (which may be this matrix), using only its upper 3x4 part:
+	 * the upper left 3x3 matrix is inverted and the translation is set to its negated and inverse transformed image. Much
+	 * cheaper than the general 4x4 inversion performed by {@link #invert(Mat)}.
+	 * <p>
+	 * Returns {@code false} (and leaves {@code m} untouched) if the matrix is singular. The result is undefined if the
+	 * matrix is not affine.
+	 * 
+	 * @see #invertRigid(Mat)
+	 */
+	public boolean invertAffine(Mat m) {
+		float c00 = mat[5] * mat[10] - mat[9] * mat[6];
+		float c01 = mat[9] * mat[2] - mat[1] * mat[10];
+		float c02 = mat[1] * mat[6] - mat[5] * mat[2];
+		float determinant = mat[0] * c00 + mat[4] * c01 + mat[8] * c02;
+		if (determinant == 0)
+			return false;
+		float c10 = mat[8] * mat[6] - mat[4] * mat[10];
+		float c11 = mat[0] * mat[10] - mat[8] * mat[2];
+		float c12 = mat[4] * mat[2] - mat[0] * mat[6];
+		float c20 = mat[4] * mat[9] - mat[8] * mat[5];
+		float c21 = mat[8] * mat[1] - mat[0] * mat[9];
+		float c22 = mat[0] * mat[5] - mat[4] * mat[1];
+		float tx = mat[12], ty = mat[13], tz = mat[14];
+
+		float inv = 1 / determinant;
+		m.mat[0] = c00 * inv;
+		m.mat[1] = c01 * inv;
+		m.mat[2] = c02 * inv;
+		m.mat[3] = 0;
+		m.mat[4] = c10 * inv;
+		m.mat[5] = c11 * inv;
+		m.mat[6] = c12 * inv;
+		m.mat[7] = 0;
+		m.mat[8] = c20 * inv;
+		m.mat[9] = c21 * inv;
+		m.mat[10] = c22 * inv;
+		m.mat[11] = 0;
+		m.mat[12] = -(m.mat[0] * tx + m.mat[4] * ty + m.mat[8] * tz);
+		m.mat[13] = -(m.mat[1] * tx + m.mat[5] * ty + m.mat[9] * tz);
+		m.mat[14] = -(m.mat[2] * tx + m.mat[6] * ty + m.mat[10] * tz);
+		m.mat[15] = 1;
+		return true;
+	}
+
+	/**
+	 * Inverts this {@link #isRigid()} matrix into {@code m} (which may be this matrix): the upper left 3x3 matrix is
+	 * transposed and the translation is set to its negated and inverse rotated image. The result is undefined if the
+	 * matrix is not rigid.
+	 * 
+	 * @see #invertAffine(Mat)
+	 */
+	public void invertRigid(Mat m) {
+		float r01 = mat[4], r02 = mat[8], r12 = mat[9];
+		float r10 = mat[1], r20 = mat[2], r21 = mat[6];
+		float tx = mat[12], ty = mat[13], tz = mat[14];
+
+		m.mat[0] = mat[0];
+		m.mat[5] = mat[5];
+		m.mat[10] = mat[10];
+		m.mat[1] = r01;
+		m.mat[2] = r02;
+		m.mat[6] = r12;
+		m.mat[4] = r10;
+		m.mat[8] = r20;
+		m.mat[9] = r21;
+		m.mat[3] = 0;
+		m.mat[7] = 0;
+		m.mat[11] = 0;
+		m.mat[12] = -(m.mat[0] * tx + m.mat[4] * ty + m.mat[8] * tz);
+		m.mat[13] = -(m.mat[1] * tx + m.mat[5] * ty + m.mat[9] * tz);
+		m.mat[14] = -(m.mat[2] * tx + m.mat[6] * ty + m.mat[10] * tz);
+		m.mat[15] = 1;
+	}
+
 	/**
 	 * Calculate the determinant of a 3x3 matrix.
 	 * 
@@ -43,6 +43,9 @@ public class Rot implements Constants, Rotation {
 
 	protected float	angle;
 
+	// cached cosine and sine of the angle, lazily updated
+	private float		trigAngle	= Float.NaN, cosine, sine;
+
 	public Rot() {
 		angle = 0;
 	}
@@ -87,24 +90,52 @@ public class Rot implements Constants, Rotation {
 		return new Rot(-angle());
 	}
 
+	/**
+	 * Returns the cosine of the {@link #angle()}. The value is cached until the angle changes.
+	 * 
+	 * @see #sin()
+	 */
+	public float cos() {
+		updateTrigonometry();
+		return cosine;
+	}
+
+	/**
+	 * Returns the sine of the {@link #angle()}. The value is cached until the angle changes.
+	 * 
+	 * @see #cos()
+	 */
+	public float sin() {
+		updateTrigonometry();
+		return sine;
+	}
+
+	private void updateTrigonometry() {
+		if (angle != trigAngle) {
+			cosine = (float) Math.cos(angle);
+			sine = (float) Math.sin(angle);
+			trigAngle = angle;
+		}
+	}
+
 	@Override
 	public Vec rotate(Vec v) {
-		float cosB = (float) Math.cos(angle());
-		float sinB = (float) Math.sin(angle());
+		float cosB = cos();
+		float sinB = sin();
 		return new Vec(((v.x() * cosB) - (v.y() * sinB)), ((v.x() * sinB) + (v.y() * cosB)));
 	}
 
 	@Override
 	public Vec inverseRotate(Vec v) {
-		float cosB = (float) Math.cos(-angle());
-		float sinB = (float) Math.sin(-angle());
+		float cosB = cos();
+		float sinB = -sin();
 		return new Vec(((v.x() * cosB) - (v.y() * sinB)), ((v.x() * sinB) + (v.y() * cosB)));
 	}
 
 	@Override
 	public Mat matrix() {
-		float cosB = (float) Math.cos((double) angle());
-		float sinB = (float) Math.sin((double) angle());
+		float cosB = cos();
+		float sinB = sin();
 
 		return new Mat(cosB, sinB, 0, 0,
 				-sinB, cosB, 0, 0,
@@ -114,8 +145,8 @@ public class Rot implements Constants, Rotation {
 
 	@Override
 	public Mat inverseMatrix() {
-		float cosB = (float) Math.cos(-angle());
-		float sinB = (float) Math.sin(-angle());
+		float cosB = cos();
+		float sinB = -sin();
 
 		return new Mat(cosB, sinB, 0, 0,
 				-sinB, cosB, 0, 0,
@@ -10,6 +10,8 @@
 
 package remixlab.fpstiming;
 
+import remixlab.util.Trace;
+
 /**
  * Sequential timers are single-threaded timers handled by a TimingHandler.
  */
@@ -68,7 +70,9 @@ public class SeqTimer implements Timer {
 	protected boolean execute() {
 		boolean result = trigggered();
 		if (result) {
+			long token = Trace.begin(Trace.TIMER_EXECUTE);
 			timingTask().execute();
+			Trace.end(Trace.TIMER_EXECUTE, token, timingTask(), null, null);
 			if (runOnlyOnce)
 				inactivate();
 		}
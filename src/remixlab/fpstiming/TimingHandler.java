@@ -12,6 +12,8 @@ package remixlab.fpstiming;
 
 import java.util.ArrayList;
 
+import remixlab.util.Trace;
+
 /**
  * A timing handler holds a {@link #timerPool()} and an {@link #animatorPool()}. The timer pool are all the tasks
  * scheduled to be performed in the future (one single time or periodically). The animation pool are all the objects
@@ -71,9 +73,12 @@ public class TimingHandler {
 		// Animation
 		for (Animator aObj : aPool)
 			if (aObj.isAnimationStarted())
-				if (aObj.timer().trigggered())
+				if (aObj.timer().trigggered()) {
+					long token = Trace.begin(Trace.ANIMATE);
 					if (!aObj.invokeAnimationHandler())
 						aObj.animate();
+					Trace.end(Trace.ANIMATE, token, aObj, null, null);
+				}
 	}
 
 	/**
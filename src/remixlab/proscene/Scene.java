@@ -10,6 +10,7 @@
 
 package remixlab.proscene; 
 
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.nio.FloatBuffer;
 import java.util.List;
@@ -59,8 +60,9 @@ import remixlab.fpstiming.TimingTask;
  * method, even if it's empty. See the example <i>AlternativeUse</i>.
  * <li><b>External draw handler registration</b>. In addition (not being part of Dandelion), you can even declare an
  * external drawing method and then register it at the Scene with {@link #addDrawHandler(Object, String)}. That method
- * should return {@code void} and have one single {@code Scene} parameter. This strategy may be useful when there are
- * multiple viewers sharing the same drawing code. See the example <i>StandardCamera</i>.
+ * should return {@code void} and have one single {@code Scene} parameter (or implement a {@link DrawHandler} and
+ * register it with {@link #addDrawHandler(DrawHandler)}). This strategy may be useful when there are multiple viewers
+ * sharing the same drawing code. See the example <i>StandardCamera</i>.
  * </ol>
  * <h3>Interactivity mechanisms</h3>
  * Through Dandelion, Proscene provides powerful interactivity mechanisms allowing a wide range of scene setups ranging
@@ -85,7 +87,8 @@ import remixlab.fpstiming.TimingTask;
  * example <i>Flock</i>.
  * <li><b>External animation handler registration.</b> In addition (not being part of Dandelion), you can also declare
  * an external animation method and then register it at the Scene with {@link #addAnimationHandler(Object, String)}.
- * That method should return {@code void} and have one single {@code Scene} parameter. See the example
+ * That method should return {@code void} and have one single {@code Scene} parameter (or implement an
+ * {@link AnimationHandler} and register it with {@link #addAnimationHandler(AnimationHandler)}). See the example
  * <i>AnimationHandler</i>.
  */
 public class Scene extends AbstractScene implements PConstants {
@@ -201,6 +204,67 @@ public class Scene extends AbstractScene implements PConstants {
 				a[4], a[5], a[7]);
 	}
 
+	/**
+	 * Typed 'draw' handler, called once per frame by the Scene it is registered at.
+	 * 
+	 * @see remixlab.proscene.Scene#addDrawHandler(DrawHandler)
+	 */
+	public interface DrawHandler {
+		void draw(Scene scene);
+	}
+
+	/**
+	 * Typed 'animation' handler, called by the Scene it is registered at each time its animation timer is triggered.
+	 * 
+	 * @see remixlab.proscene.Scene#addAnimationHandler(AnimationHandler)
+	 */
+	public interface AnimationHandler {
+		void animate(Scene scene);
+	}
+
+	/**
+	 * Internal use. Binds a reflective handler method once: the method is looked up (and its access checks suppressed)
+	 * at registration, and the invocation arguments array is reused across frames.
+	 */
+	protected static class MethodHandler implements DrawHandler, AnimationHandler {
+		protected Object		object;
+		protected Method		method;
+		protected Object[]	args;
+
+		protected MethodHandler(Object obj, String methodName) throws NoSuchMethodException {
+			method = obj.getClass().getMethod(methodName, new Class<?>[] { Scene.class });
+			try {
+				method.setAccessible(true);
+			} catch (SecurityException e) {
+			}
+			object = obj;
+			args = new Object[1];
+		}
+
+		@Override
+		public void draw(Scene scene) {
+			invoke(scene);
+		}
+
+		@Override
+		public void animate(Scene scene) {
+			invoke(scene);
+		}
+
+		protected void invoke(Scene scene) {
+			args[0] = scene;
+			try {
+				method.invoke(object, args);
+			} catch (InvocationTargetException e) {
+				if (e.getCause() instanceof RuntimeException)
+					throw (RuntimeException) e.getCause();
+				throw new RuntimeException(e.getCause());
+			} catch (IllegalAccessException e) {
+				throw new RuntimeException(e);
+			}
+		}
+	}
+
 	/**
 	 * Proscene {@link remixlab.dandelion.agent.KeyboardAgent}.
 	 */
@@ -272,7 +336,7 @@ public class Scene extends AbstractScene implements PConstants {
 			if (e.getAction() == processing.event.MouseEvent.MOVE) {
 				event = new DOF2Event(prevEvent, e.getX() - scene.upperLeftCorner.x(), e.getY()
 						- scene.upperLeftCorner.y());
-				updateTrackedGrabber(event);
+				deferTrackedGrabberUpdate(event);
 				prevEvent = event.get();
 			}
 			if (e.getAction() == processing.event.MouseEvent.PRESS) {
@@ -329,6 +393,7 @@ public class Scene extends AbstractScene implements PConstants {
 				}
 			}
 			if (e.getAction() == processing.event.MouseEvent.RELEASE) {
+				correctPrediction();
 				if (inputGrabber() instanceof InteractiveFrame)
 					if (need4Spin && (prevEvent.speed() >= ((InteractiveFrame) inputGrabber()).spinningSensitivity()))
 						((InteractiveFrame) inputGrabber()).startSpinning(prevEvent);
@@ -344,7 +409,7 @@ public class Scene extends AbstractScene implements PConstants {
 				}
 				if (rotateVisualHint())
 					setRotateVisualHint(false);
-				updateTrackedGrabber(event);
+				deferTrackedGrabberUpdate(event);
 				prevEvent = event.get();
 				if (bypassNullEvent) {
 					iFrame.setDampingFriction(dFriction);
@@ -545,9 +610,11 @@ public class Scene extends AbstractScene implements PConstants {
 
 		@Override
 		public void bind() {
-			scene.eye().computeProjection();
-			scene.eye().computeView();
-			cacheProjectionViewInverse();
+			if (eyeHasChanged()) {
+				scene.eye().computeProjection();
+				scene.eye().computeView();
+				cacheProjectionViewInverse();
+			}
 
 			Vec pos = scene.eye().position();
 			Rotation o = scene.eye().frame().orientation();
@@ -872,6 +939,8 @@ public class Scene extends AbstractScene implements PConstants {
 	protected Method						drawHandlerMethod;
 	/** the name of the method to handle the event */
 	protected String						drawHandlerMethodName;
+	/** The bound draw handler, invoked each frame */
+	protected DrawHandler				drawHandler;
 	// Animation
 	/** The object to handle the animation */
 	protected Object						animateHandlerObject;
@@ -879,12 +948,16 @@ public class Scene extends AbstractScene implements PConstants {
 	protected Method						animateHandlerMethod;
 	/** the name of the method to handle the animation */
 	protected String						animateHandlerMethodName;
+	/** The bound animation handler */
+	protected AnimationHandler	animationHandler;
 
 	protected boolean						javaTiming;
 
 	// Eventhandling agents
 	protected MouseAgent				defMouseAgent;
 	protected KeyboardAgent			defKeyboardAgent;
+	// Set when the P5 events are dispatched by a ViewportRouter
+	protected ViewportRouter		router;
 
 	/**
 	 * Constructor that defines an on-screen Processing Scene. Same as {@code this(p, p.g}.
@@ -1336,7 +1409,8 @@ public class Scene extends AbstractScene implements PConstants {
 	public void enableKeyboardAgent() {
 		if (!inputHandler().isAgentRegistered(keyboardAgent())) {
 			inputHandler().registerAgent(keyboardAgent());
-			parent.registerMethod("keyEvent", keyboardAgent());
+			if (router == null)
+				parent.registerMethod("keyEvent", keyboardAgent());
 		}
 	}
 
@@ -1349,7 +1423,8 @@ public class Scene extends AbstractScene implements PConstants {
 	 */
 	public KeyboardAgent disableKeyboardAgent() {
 		if (inputHandler().isAgentRegistered(keyboardAgent())) {
-			parent.unregisterMethod("keyEvent", keyboardAgent());
+			if (router == null)
+				parent.unregisterMethod("keyEvent", keyboardAgent());
 			return (KeyboardAgent) inputHandler().unregisterAgent(keyboardAgent());
 		}
 		return keyboardAgent();
@@ -1385,7 +1460,8 @@ public class Scene extends AbstractScene implements PConstants {
 	public void enableMouseAgent() {
 		if (!inputHandler().isAgentRegistered(mouseAgent())) {
 			inputHandler().registerAgent(mouseAgent());
-			parent.registerMethod("mouseEvent", mouseAgent());
+			if (router == null)
+				parent.registerMethod("mouseEvent", mouseAgent());
 		}
 	}
 
@@ -1398,7 +1474,8 @@ public class Scene extends AbstractScene implements PConstants {
 	 */
 	public MouseAgent disableMouseAgent() {
 		if (inputHandler().isAgentRegistered(mouseAgent())) {
-			parent.unregisterMethod("mouseEvent", mouseAgent());
+			if (router == null)
+				parent.unregisterMethod("mouseEvent", mouseAgent());
 			return (MouseAgent) inputHandler().unregisterAgent(mouseAgent());
 		}
 		return mouseAgent();
@@ -1705,14 +1782,24 @@ public class Scene extends AbstractScene implements PConstants {
 		return parent;
 	}
 
+	/**
+	 * Returns the {@link remixlab.proscene.ViewportRouter} dispatching the Processing events to this Scene agents, or
+	 * {@code null} if they are registered at the {@link #pApplet()} themselves.
+	 * 
+	 * @see remixlab.proscene.ViewportRouter#add(Scene)
+	 */
+	public ViewportRouter router() {
+		return router;
+	}
+
 	// 10. Draw method registration
 
 	@Override
 	protected boolean invokeDrawHandler() {
 		// 3. Draw external registered method
-		if (drawHandlerObject != null) {
+		if (drawHandler != null) {
 			try {
-				drawHandlerMethod.invoke(drawHandlerObject, new Object[] { this });
+				drawHandler.draw(this);
 				return true;
 			} catch (Exception e) {
 				PApplet.println("Something went wrong when invoking your " + drawHandlerMethodName + " method");
@@ -1726,18 +1813,24 @@ public class Scene extends AbstractScene implements PConstants {
 	/**
 	 * Attempt to add a 'draw' handler method to the Scene. The default event handler is a method that returns void and
 	 * has one single Scene parameter.
+	 * <p>
+	 * The method is looked up once, here, so that each frame only pays for a plain reflective call. Register a
+	 * {@link remixlab.proscene.Scene.DrawHandler} instead to avoid reflection altogether.
 	 * 
 	 * @param obj
 	 *          the object to handle the event
 	 * @param methodName
 	 *          the method to execute in the object handler class
 	 * 
+	 * @see #addDrawHandler(DrawHandler)
 	 * @see #removeDrawHandler()
 	 * @see #invokeDrawHandler()
 	 */
 	public void addDrawHandler(Object obj, String methodName) {
 		try {
-			drawHandlerMethod = obj.getClass().getMethod(methodName, new Class<?>[] { Scene.class });
+			MethodHandler handler = new MethodHandler(obj, methodName);
+			drawHandler = handler;
+			drawHandlerMethod = handler.method;
 			drawHandlerObject = obj;
 			drawHandlerMethodName = methodName;
 		} catch (Exception e) {
@@ -1746,6 +1839,24 @@ public class Scene extends AbstractScene implements PConstants {
 		}
 	}
 
+	/**
+	 * Adds a typed 'draw' handler to the Scene, e.g., an anonymous {@link remixlab.proscene.Scene.DrawHandler} sharing
+	 * the drawing code among several viewers. It replaces the previously added handler, if any.
+	 * 
+	 * @see #addDrawHandler(Object, String)
+	 * @see #removeDrawHandler()
+	 */
+	public void addDrawHandler(DrawHandler handler) {
+		if (handler == null) {
+			removeDrawHandler();
+			return;
+		}
+		drawHandler = handler;
+		drawHandlerMethod = null;
+		drawHandlerObject = handler;
+		drawHandlerMethodName = "draw";
+	}
+
 	/**
 	 * Unregisters the 'draw' handler method (if any has previously been added to the Scene).
 	 * 
@@ -1753,6 +1864,7 @@ public class Scene extends AbstractScene implements PConstants {
 	 * @see #invokeDrawHandler()
 	 */
 	public void removeDrawHandler() {
+		drawHandler = null;
 		drawHandlerMethod = null;
 		drawHandlerObject = null;
 		drawHandlerMethodName = null;
@@ -1774,9 +1886,9 @@ public class Scene extends AbstractScene implements PConstants {
 
 	@Override
 	public boolean invokeAnimationHandler() {
-		if (animateHandlerObject != null) {
+		if (animationHandler != null) {
 			try {
-				animateHandlerMethod.invoke(animateHandlerObject, new Object[] { this });
+				animationHandler.animate(this);
 				return true;
 			} catch (Exception e) {
 				PApplet.println("Something went wrong when invoking your " + animateHandlerMethodName + " method");
@@ -1790,6 +1902,9 @@ public class Scene extends AbstractScene implements PConstants {
 	/**
 	 * Attempt to add an 'animation' handler method to the Scene. The default event handler is a method that returns void
 	 * and has one single Scene parameter.
+	 * <p>
+	 * The method is looked up once, here, so that each animation step only pays for a plain reflective call. Register an
+	 * {@link remixlab.proscene.Scene.AnimationHandler} instead to avoid reflection altogether.
 	 * 
 	 * @param obj
 	 *          the object to handle the event
@@ -1797,11 +1912,14 @@ public class Scene extends AbstractScene implements PConstants {
 	 *          the method to execute in the object handler class
 	 * 
 	 * @see #animate()
+	 * @see #addAnimationHandler(AnimationHandler)
 	 * @see #removeAnimationHandler()
 	 */
 	public void addAnimationHandler(Object obj, String methodName) {
 		try {
-			animateHandlerMethod = obj.getClass().getMethod(methodName, new Class<?>[] { Scene.class });
+			MethodHandler handler = new MethodHandler(obj, methodName);
+			animationHandler = handler;
+			animateHandlerMethod = handler.method;
 			animateHandlerObject = obj;
 			animateHandlerMethodName = methodName;
 		} catch (Exception e) {
@@ -1810,12 +1928,30 @@ public class Scene extends AbstractScene implements PConstants {
 		}
 	}
 
+	/**
+	 * Adds a typed 'animation' handler to the Scene. It replaces the previously added handler, if any.
+	 * 
+	 * @see #addAnimationHandler(Object, String)
+	 * @see #removeAnimationHandler()
+	 */
+	public void addAnimationHandler(AnimationHandler handler) {
+		if (handler == null) {
+			removeAnimationHandler();
+			return;
+		}
+		animationHandler = handler;
+		animateHandlerMethod = null;
+		animateHandlerObject = handler;
+		animateHandlerMethodName = "animate";
+	}
+
 	/**
 	 * Unregisters the 'animation' handler method (if any has previously been added to the Scene).
 	 * 
 	 * @see #addAnimationHandler(Object, String)
 	 */
 	public void removeAnimationHandler() {
+		animationHandler = null;
 		animateHandlerMethod = null;
 		animateHandlerObject = null;
 		animateHandlerMethodName = null;
@@ -0,0 +1,284 @@
+/**************************************************************************************
+ * ProScene (version 2.0.0)
+ * Copyright (c) 2010-2014 National University of Colombia, https://github.com/remixlab
+ * @author Jean Pierre Charalambos, http://otrolado.info/
+ *
+ * All rights reserved. Library that eases the creation of interactive scenes
+ * in Processing, released under the terms of the GNU Public License v3.0
+ * which is available at http://www.gnu.org/licenses/gpl.html
+ **************************************************************************************/
+
+package remixlab.proscene;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import processing.core.PApplet;
+
+/**
+ * Routes the Processing mouse and keyboard events of a PApplet shared by many {@link remixlab.proscene.Scene}s (e.g.,
+ * a multi-viewport layout of off-screen scenes created with {@link remixlab.proscene.Scene#Scene(PApplet,
+ * processing.core.PGraphics, int, int)}) to a single scene, instead of letting every scene agent receive (and process)
+ * every event.
+ * <p>
+ * The viewport rectangles ({@link remixlab.dandelion.core.AbstractScene#upperLeftCorner}, width and height) of the
+ * {@link #add(Scene)}ed scenes are kept in a uniform grid, so that finding the scene under the pointer only tests the
+ * few scenes overlapping its grid cell. Each mouse event is then dispatched to:
+ * <ol>
+ * <li>The scene holding the capture, i.e., the one that received the last press, until the release.</li>
+ * <li>Otherwise, the topmost (last added) scene under the pointer. When the pointer leaves a scene, that scene also
+ * receives the move event, so that it may reset its tracked grabber.</li>
+ * </ol>
+ * Keyboard events are dispatched to the {@link #focus()} scene, i.e., the one which received the last mouse event.
+ * <p>
+ * The routed scenes keep their {@link remixlab.proscene.Scene#mouseAgent()} and
+ * {@link remixlab.proscene.Scene#keyboardAgent()} (which may still be enabled or disabled), but these are no longer
+ * registered at the PApplet.
+ */
+public class ViewportRouter {
+	protected PApplet			parent;
+	protected List<Scene>	scenes;
+	protected Scene				capture, hover, focus;
+
+	// grid
+	protected int					cellSize;
+	protected int					cols, rows;
+	protected int[][]			cells;
+	protected int[]				rects;
+	protected boolean			dirty;
+
+	/**
+	 * Creates a router for the {@code p} events, with a 64 pixels grid cell size, and registers it at the PApplet.
+	 */
+	public ViewportRouter(PApplet p) {
+		parent = p;
+		scenes = new ArrayList<Scene>();
+		cellSize = 64;
+		rects = new int[0];
+		parent.registerMethod("pre", this);
+		parent.registerMethod("mouseEvent", this);
+		parent.registerMethod("keyEvent", this);
+	}
+
+	/**
+	 * Unregisters the router from the PApplet and gives back its event registrations to the routed scenes.
+	 */
+	public void dispose() {
+		parent.unregisterMethod("pre", this);
+		parent.unregisterMethod("mouseEvent", this);
+		parent.unregisterMethod("keyEvent", this);
+		while (!scenes.isEmpty())
+			remove(scenes.get(scenes.size() - 1));
+	}
+
+	/**
+	 * Routes the {@code scene} events. Scenes added later are taken to be drawn on top of the previous ones.
+	 */
+	public void add(Scene scene) {
+		if (scenes.contains(scene))
+			return;
+		if (scene.pApplet() != parent)
+			throw new RuntimeException("Only scenes sharing the router PApplet can be routed");
+		if (scene.router != null)
+			scene.router.remove(scene);
+		if (scene.isMouseAgentEnabled())
+			parent.unregisterMethod("mouseEvent", scene.mouseAgent());
+		if (scene.isKeyboardAgentEnabled())
+			parent.unregisterMethod("keyEvent", scene.keyboardAgent());
+		scene.router = this;
+		scenes.add(scene);
+		dirty = true;
+	}
+
+	/**
+	 * Stops routing the {@code scene} events, registering back its enabled agents at the PApplet.
+	 */
+	public void remove(Scene scene) {
+		if (!scenes.remove(scene))
+			return;
+		scene.router = null;
+		if (scene.isMouseAgentEnabled())
+			parent.registerMethod("mouseEvent", scene.mouseAgent());
+		if (scene.isKeyboardAgentEnabled())
+			parent.registerMethod("keyEvent", scene.keyboardAgent());
+		if (capture == scene)
+			capture = null;
+		if (hover == scene)
+			hover = null;
+		if (focus == scene)
+			focus = null;
+		dirty = true;
+	}
+
+	/**
+	 * Returns the routed scenes.
+	 */
+	public List<Scene> scenes() {
+		return new ArrayList<Scene>(scenes);
+	}
+
+	/**
+	 * Returns the scene receiving the keyboard events, i.e., the one which received the last mouse event. May be
+	 * {@code null}.
+	 */
+	public Scene focus() {
+		return focus;
+	}
+
+	/**
+	 * Sets the {@link #focus()} scene.
+	 */
+	public void setFocus(Scene scene) {
+		focus = scene;
+	}
+
+	/**
+	 * Returns the scene holding the mouse capture (i.e., the one receiving the drag events), or {@code null} if the
+	 * mouse buttons are released.
+	 */
+	public Scene capture() {
+		return capture;
+	}
+
+	/**
+	 * Returns the grid cell size in pixels.
+	 */
+	public int cellSize() {
+		return cellSize;
+	}
+
+	/**
+	 * Sets the grid cell size in pixels. Cells about the size of the smallest viewport are a good choice.
+	 */
+	public void setCellSize(int size) {
+		if (size < 1) {
+			System.out.println("Warning: cell size should be greater than 0 - Ignoring value");
+			return;
+		}
+		cellSize = size;
+		dirty = true;
+	}
+
+	/**
+	 * Returns the topmost routed scene whose viewport contains the ({@code x}, {@code y}) PApplet pixel, or {@code null}
+	 * if none does.
+	 */
+	public Scene sceneAt(int x, int y) {
+		if (dirty)
+			updateGrid();
+		if (x < 0 || y < 0 || cells == null)
+			return null;
+		int c = x / cellSize, r = y / cellSize;
+		if (c >= cols || r >= rows)
+			return null;
+		int[] cell = cells[r * cols + c];
+		for (int i = cell.length - 1; i >= 0; i--) {
+			int k = 4 * cell[i];
+			if (x >= rects[k] && y >= rects[k + 1] && x < rects[k + 2] && y < rects[k + 3])
+				return scenes.get(cell[i]);
+		}
+		return null;
+	}
+
+	/**
+	 * Registered at the PApplet. Refreshes the grid if any viewport (or the PApplet) has been moved or resized.
+	 */
+	public void pre() {
+		if (dirty || rects.length != 4 * scenes.size())
+			dirty = true;
+		else
+			for (int i = 0; i < scenes.size() && !dirty; i++) {
+				Scene s = scenes.get(i);
+				int k = 4 * i;
+				dirty = rects[k] != s.upperLeftCorner.x() || rects[k + 1] != s.upperLeftCorner.y()
+						|| rects[k + 2] != s.upperLeftCorner.x() + s.width() || rects[k + 3] != s.upperLeftCorner.y() + s.height();
+			}
+		if (!dirty && cells != null && (cols != cols(parent.width) || rows != cols(parent.height)))
+			dirty = true;
+		if (dirty)
+			updateGrid();
+	}
+
+	/**
+	 * Registered at the PApplet. Dispatches {@code e} to the capturing scene or to the scene under the pointer (see the
+	 * class documentation).
+	 */
+	public void mouseEvent(processing.event.MouseEvent e) {
+		int action = e.getAction();
+		Scene target = capture;
+		if (target == null) {
+			target = sceneAt(e.getX(), e.getY());
+			if (hover != target && hover != null && action == processing.event.MouseEvent.MOVE)
+				dispatch(hover, e);
+			hover = target;
+		}
+		if (action == processing.event.MouseEvent.PRESS)
+			capture = target;
+		else if (action == processing.event.MouseEvent.RELEASE)
+			capture = null;
+		if (target == null)
+			return;
+		focus = target;
+		dispatch(target, e);
+	}
+
+	/**
+	 * Registered at the PApplet. Dispatches {@code e} to the {@link #focus()} scene.
+	 */
+	public void keyEvent(processing.event.KeyEvent e) {
+		if (focus != null && focus.isKeyboardAgentEnabled() && focus.keyboardAgent() instanceof Scene.ProsceneKeyboard)
+			((Scene.ProsceneKeyboard) focus.keyboardAgent()).keyEvent(e);
+	}
+
+	/**
+	 * Internal use. Passes {@code e} to the {@code scene} mouse agent, if enabled.
+	 */
+	protected void dispatch(Scene scene, processing.event.MouseEvent e) {
+		if (scene.isMouseAgentEnabled() && scene.mouseAgent() instanceof Scene.ProsceneMouse)
+			((Scene.ProsceneMouse) scene.mouseAgent()).mouseEvent(e);
+	}
+
+	/**
+	 * Internal use. Number of cells needed to cover {@code pixels}.
+	 */
+	protected int cols(int pixels) {
+		return Math.max(1, (pixels + cellSize - 1) / cellSize);
+	}
+
+	/**
+	 * Internal use. Rebuilds the grid from the current viewports.
+	 */
+	protected void updateGrid() {
+		cols = cols(parent.width);
+		rows = cols(parent.height);
+		rects = new int[4 * scenes.size()];
+		int[] counts = new int[cols * rows];
+		for (int pass = 0; pass < 2; pass++) {
+			if (pass == 1) {
+				cells = new int[cols * rows][];
+				for (int i = 0; i < cells.length; i++)
+					cells[i] = new int[counts[i]];
+				Arrays.fill(counts, 0);
+			}
+			for (int i = 0; i < scenes.size(); i++) {
+				Scene s = scenes.get(i);
+				int k = 4 * i;
+				rects[k] = s.upperLeftCorner.x();
+				rects[k + 1] = s.upperLeftCorner.y();
+				rects[k + 2] = rects[k] + s.width();
+				rects[k + 3] = rects[k + 1] + s.height();
+				int c0 = Math.max(0, rects[k] / cellSize), c1 = Math.min(cols - 1, (rects[k + 2] - 1) / cellSize);
+				int r0 = Math.max(0, rects[k + 1] / cellSize), r1 = Math.min(rows - 1, (rects[k + 3] - 1) / cellSize);
+				for (int r = r0; r <= r1; r++)
+					for (int c = c0; c <= c1; c++) {
+						int cell = r * cols + c;
+						if (pass == 1)
+							cells[cell][counts[cell]] = i;
+						counts[cell]++;
+					}
+			}
+		}
+		dirty = false;
+	}
+}
@@ -0,0 +1,89 @@
+/*********************************************************************************
+ * util_tree
+ * Copyright (c) 2014 National University of Colombia, https://github.com/remixlab
+ * @author Jean Pierre Charalambos, http://otrolado.info/
+ *
+ * All rights reserved. Library that eases the creation of interactive
+ * scenes, released under the terms of the GNU Public License v3.0
+ * which is available at http://www.gnu.org/licenses/gpl.html
+ *********************************************************************************/
+
+package remixlab.util;
+
+/**
+ * Entry point of the framework instrumentation. The traced sections are reported to the installed
+ * {@link remixlab.util.Tracer} (see {@link #setTracer(Tracer)}). By default there is none, and tracing a section
+ * reduces to a static boolean check.
+ * <p>
+ * Traced sections:
+ * <ol>
+ * <li>{@link #AGENT_FEED} and {@link #AGENT_HANDLE}: {@code Agent.feed()} and {@code Agent.handle(BogusEvent)}, with the
+ * agent as subject, its input grabber as action and the event as source.</li>
+ * <li>{@link #TUPLE_PERFORM}: {@code EventGrabberTuple.perform()}, with the grabber as subject, the action and the event
+ * as source.</li>
+ * <li>{@link #TIMER_EXECUTE}: {@code SeqTimer} task executions, with the timing task as subject.</li>
+ * <li>{@link #ANIMATE}: {@code Animator.animate()}, with the animator as subject.</li>
+ * <li>{@link #INTERPOLATION}: {@code KeyFrameInterpolator.update()}, with the interpolator as subject.</li>
+ * <li>{@link #BIND}: {@code MatrixHelper.bind()}, with the eye as subject.</li>
+ * <li>{@link #PRE_DRAW}, {@link #POST_DRAW}, {@link #DRAW_HANDLER} and {@link #VISUAL_HINTS}: the scene drawing phases,
+ * with the scene as subject.</li>
+ * </ol>
+ */
+public final class Trace {
+	public static final String	AGENT_FEED			= "agent.feed";
+	public static final String	AGENT_HANDLE		= "agent.handle";
+	public static final String	TUPLE_PERFORM		= "tuple.perform";
+	public static final String	TIMER_EXECUTE		= "timer.execute";
+	public static final String	ANIMATE					= "animator.animate";
+	public static final String	INTERPOLATION		= "interpolator.update";
+	public static final String	BIND						= "matrix.bind";
+	public static final String	PRE_DRAW				= "scene.preDraw";
+	public static final String	POST_DRAW				= "scene.postDraw";
+	public static final String	DRAW_HANDLER		= "scene.drawHandler";
+	public static final String	VISUAL_HINTS		= "scene.visualHints";
+
+	private static Tracer				tracer;
+	private static boolean			enabled;
+
+	private Trace() {
+	}
+
+	/**
+	 * Installs {@code t} as the framework tracer. Pass {@code null} to disable tracing (default).
+	 */
+	public static void setTracer(Tracer t) {
+		tracer = t;
+		enabled = t != null;
+	}
+
+	/**
+	 * Returns the installed tracer, or {@code null} if tracing is disabled.
+	 */
+	public static Tracer tracer() {
+		return tracer;
+	}
+
+	/**
+	 * Returns {@code true} if a tracer is installed.
+	 */
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Reports the beginning of {@code section} to the {@link #tracer()}, if any, and returns its token (0 otherwise).
+	 */
+	public static long begin(String section) {
+		return enabled ? tracer.begin(section) : 0;
+	}
+
+	/**
+	 * Reports the end of {@code section} to the {@link #tracer()}, if any.
+	 * 
+	 * @see remixlab.util.Tracer#end(String, long, Object, Object, Object)
+	 */
+	public static void end(String section, long token, Object subject, Object action, Object source) {
+		if (enabled)
+			tracer.end(section, token, subject, action, source);
+	}
+}
@@ -0,0 +1,36 @@
+/*********************************************************************************
+ * util_tree
+ * Copyright (c) 2014 National University of Colombia, https://github.com/remixlab
+ * @author Jean Pierre Charalambos, http://otrolado.info/
+ *
+ * All rights reserved. Library that eases the creation of interactive
+ * scenes, released under the terms of the GNU Public License v3.0
+ * which is available at http://www.gnu.org/licenses/gpl.html
+ *********************************************************************************/
+
+package remixlab.util;
+
+/**
+ * Interface for tracers receiving the sections (input handling, timers, animation and drawing phases) traced throughout
+ * the framework. Install one with {@link remixlab.util.Trace#setTracer(Tracer)}, e.g., to forward the sections to a
+ * platform profiler ({@code android.os.Trace}, Java Flight Recorder events, a log...) so that they can be correlated
+ * with GC and CPU samples.
+ * <p>
+ * Implementations are called from the drawing thread and should be fast. The section names are the
+ * {@link remixlab.util.Trace} constants.
+ */
+public interface Tracer {
+	/**
+	 * Called when {@code section} starts. The returned value (e.g., a {@code System.nanoTime()} timestamp) is passed back
+	 * to {@link #end(String, long, Object, Object, Object)}.
+	 */
+	public long begin(String section);
+
+	/**
+	 * Called when {@code section} ends. {@code token} is the value returned by the matching {@link #begin(String)}. The
+	 * section {@code subject} (the agent, grabber, timing task, animator, eye or scene), its {@code action} and its
+	 * {@code source} (the agent or the event) may be {@code null}, depending on the section. Their names should only be
+	 * computed here, if needed.
+	 */
+	public void end(String section, long token, Object subject, Object action, Object source);
+}